@@ -0,0 +1,21 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Runs the benchmarks selected on the command line (all of them by default) with the GC profiler attached,
+// so every result reports allocation rate alongside throughput and latency.
+// Accepts the usual JMH options, e.g. "RoundBenchmark -p blockSize=16 -rf json"
+public class BenchmarkRunner {
+    // EFFECTS: runs the selected benchmarks and prints the results
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,87 @@
+package benchmarks;
+
+import model.Cipher;
+import model.EventLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import persistence.BinaryReader;
+import persistence.BinaryWriter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Measures saving a large cipher with BinaryWriter and loading it back with BinaryReader, for comparison
+// with JsonBenchmark
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class BinaryBenchmark {
+    @Param({"64", "256"})
+    public int blockSize;
+
+    @Param({"100", "1000"})
+    public int layers;
+
+    private Cipher cipher;
+    private Path readFile;
+    private Path writeFile;
+
+    @Setup
+    // MODIFIES: this
+    // EFFECTS: builds a random cipher, saves it to a temporary file for reading and creates another
+    // temporary file to write to
+    public void setUp() throws IOException {
+        cipher = CipherBenchmark.createCipher(blockSize, layers, new Random(42));
+        readFile = Files.createTempFile("blocky-read", ".blky");
+        writeFile = Files.createTempFile("blocky-write", ".blky");
+        write(cipher, readFile);
+    }
+
+    @TearDown
+    // EFFECTS: deletes the temporary files
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(readFile);
+        Files.deleteIfExists(writeFile);
+    }
+
+    @TearDown(Level.Iteration)
+    // MODIFIES: EventLog
+    // EFFECTS: clears the events logged while loading ciphers during the iteration
+    public void clearLog() {
+        EventLog.getInstance().clear();
+    }
+
+    // MODIFIES: file
+    // EFFECTS: writes cipher to file in the binary format
+    private static void write(Cipher cipher, Path file) throws IOException {
+        new BinaryWriter(file.toString()).write(cipher);
+    }
+
+    @Benchmark
+    public Cipher read() throws IOException {
+        return new BinaryReader(readFile.toString()).read();
+    }
+
+    @Benchmark
+    public long write() throws IOException {
+        write(cipher, writeFile);
+        return Files.size(writeFile);
+    }
+}
@@ -0,0 +1,110 @@
+package benchmarks;
+
+import model.Cipher;
+import model.CipherMode;
+import model.EventLog;
+import model.KeySchedule;
+import model.MixKeyRound;
+import model.ModeOfOperation;
+import model.PermutationRound;
+import model.SubstitutionRound;
+import model.exceptions.PaddingException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Measures a whole cipher encrypting and decrypting a MESSAGE_SIZE-byte message in ECB mode, for every
+// block size and number of layers (each layer is a key mix, a substitution and a permutation).
+// Messages go through ModeOfOperation, so the event log records one event per message rather than per block
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CipherBenchmark {
+    static final int MESSAGE_SIZE = 16 * 1024;
+
+    @Param({"1", "4", "8", "16", "64", "256"})
+    public int blockSize;
+
+    @Param({"1", "4", "16"})
+    public int layers;
+
+    private ModeOfOperation encryption;
+    private ModeOfOperation decryption;
+    private byte[] plaintext;
+    private byte[] ciphertext;
+    private byte[] output;
+
+    @Setup
+    // MODIFIES: this
+    // EFFECTS: builds a random cipher with the given block size and layers, and a random message and
+    // its encryption
+    public void setUp() throws PaddingException {
+        Random random = new Random(42);
+        Cipher cipher = createCipher(blockSize, layers, random);
+        List<byte[]> keys = new ArrayList<>();
+        for (int i = 0; i < cipher.getNumberOfKeyRounds(); i++) {
+            byte[] key = new byte[blockSize];
+            random.nextBytes(key);
+            keys.add(key);
+        }
+        KeySchedule schedule = new KeySchedule(cipher, keys);
+        encryption = ModeOfOperation.forEncryption(cipher, CipherMode.ECB, schedule, null);
+        decryption = ModeOfOperation.forDecryption(cipher, CipherMode.ECB, schedule, null);
+
+        plaintext = new byte[MESSAGE_SIZE];
+        random.nextBytes(plaintext);
+        ciphertext = encryption.doFinal(plaintext);
+        output = new byte[ciphertext.length];
+    }
+
+    // EFFECTS: returns a cipher with the given block size made of layers random key mix, substitution
+    // and permutation rounds
+    static Cipher createCipher(int blockSize, int layers, Random random) {
+        Cipher cipher = new Cipher(blockSize);
+        for (int i = 0; i < layers; i++) {
+            cipher.addRound(new MixKeyRound(blockSize));
+            cipher.addRound(RoundBenchmark.createRound("SUBSTITUTION", blockSize, random));
+            cipher.addRound(RoundBenchmark.createRound("PERMUTATION", blockSize, random));
+        }
+        return cipher;
+    }
+
+    @TearDown(Level.Iteration)
+    // MODIFIES: EventLog
+    // EFFECTS: clears the events logged during the iteration so the log does not grow across the run
+    public void clearLog() {
+        EventLog.getInstance().clear();
+    }
+
+    @Benchmark
+    public byte[] encryptMessage() throws PaddingException {
+        int written = encryption.update(plaintext, 0, plaintext.length, output, 0);
+        encryption.doFinal(output, written);
+        return output;
+    }
+
+    @Benchmark
+    public byte[] decryptMessage() throws PaddingException {
+        int written = decryption.update(ciphertext, 0, ciphertext.length, output, 0);
+        decryption.doFinal(output, written);
+        return output;
+    }
+}
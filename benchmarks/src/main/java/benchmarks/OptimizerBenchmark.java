@@ -0,0 +1,110 @@
+package benchmarks;
+
+import model.Cipher;
+import model.EventLog;
+import model.KeySchedule;
+import model.MixKeyRound;
+import model.OptimizedPlan;
+import model.SubstitutionRound;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Compares encrypting a MESSAGE_SIZE-byte message block by block with a cipher's rounds as written, with its
+// optimized plan and with that plan compiled to generated code, for a machine-generated style cipher whose
+// layers each contain two key mixes, two permutations, two substitutions and an identity substitution
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OptimizerBenchmark {
+    static final int MESSAGE_SIZE = 16 * 1024;
+
+    @Param({"8", "16", "256"})
+    public int blockSize;
+
+    @Param({"4", "16"})
+    public int layers;
+
+    private Cipher cipher;
+    private OptimizedPlan plan;
+    private OptimizedPlan compiled;
+    private KeySchedule schedule;
+    private byte[] message;
+
+    @Setup
+    // MODIFIES: this
+    // EFFECTS: builds the cipher, its optimized plan, random keys and a random message
+    public void setUp() {
+        Random random = new Random(42);
+        cipher = new Cipher(blockSize);
+        for (int i = 0; i < layers; i++) {
+            cipher.addRound(new MixKeyRound(blockSize));
+            cipher.addRound(RoundBenchmark.createRound("PERMUTATION", blockSize, random));
+            cipher.addRound(new MixKeyRound(blockSize));
+            cipher.addRound(RoundBenchmark.createRound("PERMUTATION", blockSize, random));
+            cipher.addRound(RoundBenchmark.createRound("SUBSTITUTION", blockSize, random));
+            cipher.addRound(new SubstitutionRound(blockSize));
+            cipher.addRound(RoundBenchmark.createRound("SUBSTITUTION", blockSize, random));
+        }
+        plan = cipher.optimize();
+        compiled = cipher.compile();
+        List<byte[]> keys = new ArrayList<>();
+        for (int i = 0; i < cipher.getNumberOfKeyRounds(); i++) {
+            byte[] key = new byte[blockSize];
+            random.nextBytes(key);
+            keys.add(key);
+        }
+        schedule = new KeySchedule(cipher, keys);
+        message = new byte[MESSAGE_SIZE];
+        random.nextBytes(message);
+    }
+
+    @TearDown(Level.Iteration)
+    // MODIFIES: EventLog
+    // EFFECTS: clears the events logged during the iteration so the log does not grow across the run
+    public void clearLog() {
+        EventLog.getInstance().clear();
+    }
+
+    @Benchmark
+    public byte[] encryptAsWritten() {
+        for (int offset = 0; offset + blockSize <= message.length; offset += blockSize) {
+            cipher.encryptBlock(message, offset, message, offset, schedule);
+        }
+        return message;
+    }
+
+    @Benchmark
+    public byte[] encryptOptimized() {
+        for (int offset = 0; offset + blockSize <= message.length; offset += blockSize) {
+            plan.encryptBlock(message, offset, message, offset, schedule);
+        }
+        return message;
+    }
+
+    @Benchmark
+    public byte[] encryptCompiled() {
+        for (int offset = 0; offset + blockSize <= message.length; offset += blockSize) {
+            compiled.encryptBlock(message, offset, message, offset, schedule);
+        }
+        return message;
+    }
+}
@@ -0,0 +1,82 @@
+package benchmarks;
+
+import model.MixKeyRound;
+import model.PermutationRound;
+import model.Round;
+import model.SubstitutionRound;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Measures a single round encrypting and decrypting one block, for every round type and block size
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RoundBenchmark {
+    @Param({"MIX_KEY", "SUBSTITUTION", "PERMUTATION"})
+    public String roundType;
+
+    @Param({"1", "4", "8", "16", "64", "256"})
+    public int blockSize;
+
+    private Round round;
+    private byte[] src;
+    private byte[] dst;
+
+    @Setup
+    // MODIFIES: this
+    // EFFECTS: builds a round of the given type and block size with random contents, and a random block
+    public void setUp() {
+        Random random = new Random(42);
+        round = createRound(roundType, blockSize, random);
+        src = new byte[blockSize];
+        dst = new byte[blockSize];
+        random.nextBytes(src);
+    }
+
+    // EFFECTS: returns a round of the given type and block size filled with random contents
+    static Round createRound(String roundType, int blockSize, Random random) {
+        switch (roundType) {
+            case "MIX_KEY":
+                MixKeyRound mixKeyRound = new MixKeyRound(blockSize);
+                byte[] key = new byte[blockSize];
+                random.nextBytes(key);
+                mixKeyRound.setKey(key);
+                return mixKeyRound;
+            case "SUBSTITUTION":
+                SubstitutionRound substitutionRound = new SubstitutionRound(blockSize);
+                substitutionRound.fillWithRandomSubstitution();
+                return substitutionRound;
+            default:
+                PermutationRound permutationRound = new PermutationRound(blockSize);
+                permutationRound.fillWithRandomPermutation();
+                return permutationRound;
+        }
+    }
+
+    @Benchmark
+    public byte[] encryptBlock() {
+        round.encryptBlock(src, 0, dst, 0);
+        return dst;
+    }
+
+    @Benchmark
+    public byte[] decryptBlock() {
+        round.decryptBlock(src, 0, dst, 0);
+        return dst;
+    }
+}
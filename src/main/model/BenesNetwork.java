@@ -0,0 +1,200 @@
+package model;
+
+import java.util.Arrays;
+
+/*
+BenesNetwork is a bit permutation of a 32-, 64- or 128-bit block compiled into a Benes network of delta swaps,
+so a block held in registers is permuted with a few shifts, XORs and ANDs per stage and no memory lookups.
+A network on n = 2^k bits has 2k - 1 stages; stage t swaps the pairs of bits delta apart that its mask selects,
+where delta is n/2, n/4, ..., 1, ..., n/4, n/2. Stages that swap nothing are left out. Every stage is its own
+inverse, so running the stages in reverse order undoes the permutation.
+
+Bits are numbered from the left, as in PermutationRound: a 32-bit block is held in the low 32 bits of a long,
+and a 128-bit block in two longs, the high word holding bits 0 to 63. A 128-bit network is stored as its two
+outer stages (which swap bits between the words) around two independent 64-bit networks, one per word.
+ */
+final class BenesNetwork {
+    private final int[] shifts;
+    private final long[] masks;
+    // 128-bit networks only
+    private final long firstCross;
+    private final long lastCross;
+    private final BenesNetwork high;
+    private final BenesNetwork low;
+
+    private BenesNetwork(int[] shifts, long[] masks) {
+        this.shifts = shifts;
+        this.masks = masks;
+        firstCross = 0;
+        lastCross = 0;
+        high = null;
+        low = null;
+    }
+
+    private BenesNetwork(long firstCross, long lastCross, BenesNetwork high, BenesNetwork low) {
+        this.shifts = new int[0];
+        this.masks = new long[0];
+        this.firstCross = firstCross;
+        this.lastCross = lastCross;
+        this.high = high;
+        this.low = low;
+    }
+
+    // REQUIRES: mapping should have length 32, 64 or 128 and uniquely contain the numbers 0 to length - 1
+    // EFFECTS: returns the network that moves bit i (from the left) to bit mapping[i]
+    static BenesNetwork of(int[] mapping) {
+        int bits = mapping.length;
+        int levels = Integer.numberOfTrailingZeros(bits);
+        boolean[][] swaps = new boolean[2 * levels - 1][bits];
+        route(mapping, 0, 0, swaps);
+        if (bits <= Long.SIZE) {
+            return fromStages(swaps, 0, swaps.length, 0, bits);
+        }
+        BenesNetwork high = fromStages(swaps, 1, swaps.length - 1, 0, Long.SIZE);
+        BenesNetwork low = fromStages(swaps, 1, swaps.length - 1, Long.SIZE, Long.SIZE);
+        return new BenesNetwork(crossMask(swaps[0]), crossMask(swaps[swaps.length - 1]), high, low);
+    }
+
+    // MODIFIES: swaps
+    // EFFECTS: marks in swaps the pairs that the network's stages must swap so that the sub-network on positions
+    // base to base + pi.length - 1, at the given depth, moves the bit at base + i to base + pi[i]. Uses the
+    // looping algorithm: the two bits of each input pair, and the two bits bound for each output pair, must go
+    // through different halves of the network
+    private static void route(int[] pi, int base, int depth, boolean[][] swaps) {
+        int half = pi.length / 2;
+        if (half == 1) {
+            swaps[depth][base] = pi[0] == 1;
+            return;
+        }
+        int[] source = new int[pi.length];
+        for (int i = 0; i < pi.length; i++) {
+            source[pi[i]] = i;
+        }
+        int[] side = assignHalves(pi, source);
+        int[] upper = new int[half];
+        int[] lower = new int[half];
+        for (int i = 0; i < pi.length; i++) {
+            (side[i] == 0 ? upper : lower)[i % half] = pi[i] % half;
+        }
+        for (int i = 0; i < half; i++) {
+            swaps[depth][base + i] = side[i] == 1;
+            swaps[swaps.length - 1 - depth][base + i] = side[source[i]] == 1;
+        }
+        route(upper, base, depth + 1, swaps);
+        route(lower, base + half, depth + 1, swaps);
+    }
+
+    // EFFECTS: returns, for every input position i, 0 if its bit goes through the upper half of the network
+    // and 1 if it goes through the lower half
+    private static int[] assignHalves(int[] pi, int[] source) {
+        int half = pi.length / 2;
+        int[] side = new int[pi.length];
+        boolean[] assigned = new boolean[pi.length];
+        for (int start = 0; start < half; start++) {
+            int input = start;
+            while (!assigned[input]) {
+                // the bit at input goes through the upper half and its partner through the lower half, so the
+                // bit bound for the partner of the partner's output must go through the upper half too
+                side[input] = 0;
+                side[input ^ half] = 1;
+                assigned[input] = true;
+                assigned[input ^ half] = true;
+                input = source[pi[input ^ half] ^ half];
+            }
+        }
+        return side;
+    }
+
+    // EFFECTS: returns the network made of stages first to last - 1 of swaps, restricted to the width bits
+    // starting at position from
+    private static BenesNetwork fromStages(boolean[][] swaps, int first, int last, int from, int width) {
+        int bits = 1 << ((swaps.length + 1) / 2);
+        int[] shifts = new int[last - first];
+        long[] masks = new long[last - first];
+        int count = 0;
+        for (int stage = first; stage < last; stage++) {
+            int shift = bits >> (Math.min(stage, swaps.length - 1 - stage) + 1);
+            long mask = 0;
+            for (int i = 0; i < width; i++) {
+                if (swaps[stage][from + i]) {
+                    mask |= 1L << (width - 1 - i - shift);
+                }
+            }
+            if (mask != 0) {
+                shifts[count] = shift;
+                masks[count] = mask;
+                count++;
+            }
+        }
+        return new BenesNetwork(Arrays.copyOf(shifts, count), Arrays.copyOf(masks, count));
+    }
+
+    // EFFECTS: returns the mask of an outer stage of a 128-bit network: bit 63 - i is set if the stage swaps bit i
+    // of the high word with bit i of the low word
+    private static long crossMask(boolean[] swaps) {
+        long mask = 0;
+        for (int i = 0; i < Long.SIZE; i++) {
+            if (swaps[i]) {
+                mask |= 1L << (Long.SIZE - 1 - i);
+            }
+        }
+        return mask;
+    }
+
+    // REQUIRES: the network is on at most 64 bits
+    // EFFECTS: returns word with its bits permuted
+    long permute(long word) {
+        for (int stage = 0; stage < shifts.length; stage++) {
+            long swapped = ((word >>> shifts[stage]) ^ word) & masks[stage];
+            word ^= swapped ^ (swapped << shifts[stage]);
+        }
+        return word;
+    }
+
+    // REQUIRES: the network is on 128 bits, words has length 2
+    // MODIFIES: words
+    // EFFECTS: permutes the bits of the block held in words[0] (high) and words[1] (low)
+    void permute(long[] words) {
+        cross(words, firstCross);
+        words[0] = high.permute(words[0]);
+        words[1] = low.permute(words[1]);
+        cross(words, lastCross);
+    }
+
+    // REQUIRES: the network is on at most 64 bits
+    // EFFECTS: returns word with its bits moved back to where they were before permute
+    long unpermute(long word) {
+        for (int stage = shifts.length - 1; stage >= 0; stage--) {
+            long swapped = ((word >>> shifts[stage]) ^ word) & masks[stage];
+            word ^= swapped ^ (swapped << shifts[stage]);
+        }
+        return word;
+    }
+
+    // REQUIRES: the network is on 128 bits, words has length 2
+    // MODIFIES: words
+    // EFFECTS: moves the bits of the block held in words back to where they were before permute
+    void unpermute(long[] words) {
+        cross(words, lastCross);
+        words[0] = high.unpermute(words[0]);
+        words[1] = low.unpermute(words[1]);
+        cross(words, firstCross);
+    }
+
+    // MODIFIES: words
+    // EFFECTS: swaps the bits that mask selects between words[0] and words[1]
+    private static void cross(long[] words, long mask) {
+        long swapped = (words[0] ^ words[1]) & mask;
+        words[0] ^= swapped;
+        words[1] ^= swapped;
+    }
+
+    // EFFECTS: returns the number of stages that swap at least one pair of bits
+    int getNumberOfStages() {
+        if (high != null) {
+            return (firstCross != 0 ? 1 : 0) + (lastCross != 0 ? 1 : 0) + high.getNumberOfStages()
+                    + low.getNumberOfStages();
+        }
+        return shifts.length;
+    }
+}
@@ -0,0 +1,84 @@
+package model;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+BlockStatistics counts the blocks a Cipher encrypts and decrypts and samples their latency without turning on
+its per-round instrumentation, so the cipher keeps running its fastest paths while they are recorded. Each call
+costs one counter update; only about one call in SAMPLE_INTERVAL is timed, and so is every call of at least
+SAMPLE_INTERVAL blocks, whose latency is recorded per block. Nothing is recorded while the statistics are
+disabled.
+
+The statistics belong to the cipher rather than to one execution plan, so they are kept when rounds are added.
+ */
+public final class BlockStatistics {
+    public static final int SAMPLE_INTERVAL = 64;
+    private static final long NOT_TIMED = Long.MIN_VALUE;
+
+    private volatile boolean enabled;
+    private final LongAdder[] blocks = {new LongAdder(), new LongAdder()};
+    private final LatencyHistogram[] latencies = {new LatencyHistogram(), new LatencyHistogram()};
+
+    // MODIFIES: this
+    // EFFECTS: starts or stops recording blocks; what was recorded so far is kept
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // EFFECTS: returns the time a call running numberOfBlocks blocks starts at if it is to be timed,
+    // and NOT_TIMED otherwise
+    long start(int numberOfBlocks) {
+        if (enabled && (numberOfBlocks >= SAMPLE_INTERVAL
+                || ThreadLocalRandom.current().nextInt(SAMPLE_INTERVAL) == 0)) {
+            return System.nanoTime();
+        }
+        return NOT_TIMED;
+    }
+
+    // REQUIRES: start was returned by start for this call
+    // MODIFIES: this
+    // EFFECTS: counts numberOfBlocks encrypted blocks (decrypted if encrypting is false) and, if the call was
+    // timed, records the time since start divided among its blocks
+    void finish(boolean encrypting, int numberOfBlocks, long start) {
+        if (!enabled || numberOfBlocks <= 0) {
+            return;
+        }
+        int direction = encrypting ? 0 : 1;
+        blocks[direction].add(numberOfBlocks);
+        if (start != NOT_TIMED) {
+            latencies[direction].record((System.nanoTime() - start) / numberOfBlocks);
+        }
+    }
+
+    public long getEncryptedBlocks() {
+        return blocks[0].sum();
+    }
+
+    public long getDecryptedBlocks() {
+        return blocks[1].sum();
+    }
+
+    // EFFECTS: returns the sampled per-block encryption latencies
+    public LatencyHistogram.Snapshot getEncryptLatency() {
+        return latencies[0].snapshot();
+    }
+
+    // EFFECTS: returns the sampled per-block decryption latencies
+    public LatencyHistogram.Snapshot getDecryptLatency() {
+        return latencies[1].snapshot();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: discards every recorded block count and latency
+    public void reset() {
+        for (int i = 0; i < 2; i++) {
+            blocks[i].reset();
+            latencies[i].reset();
+        }
+    }
+}
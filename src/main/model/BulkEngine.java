@@ -0,0 +1,251 @@
+package model;
+
+import model.exceptions.PaddingException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/*
+BulkEngine encrypts and decrypts whole messages with a Cipher and a CipherMode, splitting large messages
+into chunks of blocks that are processed in parallel on an executor (the common ForkJoinPool by default).
+ECB, CTR and CBC decryption run in parallel because their blocks are independent; CBC encryption chains
+every block to the previous one and always runs on the calling thread, as do messages shorter than the
+parallel threshold. Output is identical to ModeOfOperation and keeps the order of the input.
+ */
+public class BulkEngine {
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 64 * 1024;
+    public static final int DEFAULT_CHUNK_SIZE = 32 * 1024;
+
+    private final Cipher cipher;
+    private final CipherMode mode;
+    private final ExecutorService executor;
+    private final int parallelThreshold;
+    private final int chunkBlocks;
+    private final ThreadLocal<byte[]> scratch;
+
+    // EFFECTS: constructs an engine for cipher and mode that runs on the common ForkJoinPool
+    // with the default parallel threshold and chunk size
+    public BulkEngine(Cipher cipher, CipherMode mode) {
+        this(cipher, mode, ForkJoinPool.commonPool(), DEFAULT_PARALLEL_THRESHOLD, DEFAULT_CHUNK_SIZE);
+    }
+
+    // REQUIRES: parallelThreshold >= 0, chunkSize > 0
+    // EFFECTS: constructs an engine for cipher and mode that runs chunks of about chunkSize bytes on executor
+    // for messages of at least parallelThreshold bytes
+    public BulkEngine(Cipher cipher, CipherMode mode, ExecutorService executor, int parallelThreshold,
+                      int chunkSize) {
+        int blockSize = cipher.getBlockSize();
+        if (mode.isPadded() && blockSize > 256) {
+            throw new IllegalArgumentException(mode + " padding supports block sizes of at most 256 bytes");
+        }
+        this.cipher = cipher;
+        this.mode = mode;
+        this.executor = executor;
+        this.parallelThreshold = parallelThreshold;
+        this.chunkBlocks = Math.max(1, chunkSize / blockSize);
+        // per-worker counter and keystream blocks for CTR
+        this.scratch = ThreadLocal.withInitial(() -> new byte[2 * blockSize]);
+    }
+
+    // REQUIRES: iv should have length blockSize, unless the mode is ECB
+    // EFFECTS: returns the encryption of the whole plaintext
+    public byte[] encrypt(byte[] plaintext, KeySchedule keys, byte[] iv) {
+        if (plaintext.length < parallelThreshold || mode == CipherMode.CBC) {
+            try {
+                return ModeOfOperation.forEncryption(cipher, mode, keys, iv).doFinal(plaintext);
+            } catch (PaddingException e) {
+                throw new IllegalStateException("encryption does not check padding", e);
+            }
+        }
+        checkIv(iv);
+        CipherBatchEvent event = CipherBatchEvent.start();
+        int blockSize = cipher.getBlockSize();
+        int fullBlocks = plaintext.length / blockSize;
+        int outputLength = mode.isPadded() ? (fullBlocks + 1) * blockSize : plaintext.length;
+        byte[] output = new byte[outputLength];
+        ExecutionPlan plan = cipher.getPlan();
+
+        runChunks(plan, plaintext, output, fullBlocks, keys, iv, true);
+        finishEncryption(plan, plaintext, output, fullBlocks, keys, iv);
+        EventLog.getInstance().count(EventCategory.ENCRYPTION);
+        CipherBatchEvent.finish(event, true, mode, plan, plaintext.length);
+        return output;
+    }
+
+    // MODIFIES: output
+    // EFFECTS: encrypts the bytes after the last full block: the padded last block for ECB,
+    // or the partial last block for CTR
+    private void finishEncryption(ExecutionPlan plan, byte[] plaintext, byte[] output, int fullBlocks,
+                                  KeySchedule keys, byte[] iv) {
+        int blockSize = cipher.getBlockSize();
+        int offset = fullBlocks * blockSize;
+        int remaining = plaintext.length - offset;
+        if (mode == CipherMode.CTR) {
+            counterTail(plan, plaintext, output, fullBlocks, remaining, keys, iv);
+        } else {
+            System.arraycopy(plaintext, offset, output, offset, remaining);
+            Arrays.fill(output, offset + remaining, offset + blockSize, (byte) (blockSize - remaining));
+            plan.encrypt(output, offset, output, offset, keys);
+        }
+    }
+
+    // REQUIRES: iv should have length blockSize, unless the mode is ECB
+    // EFFECTS: returns the decryption of the whole ciphertext;
+    // throws PaddingException if the decrypted data is not correctly padded
+    public byte[] decrypt(byte[] ciphertext, KeySchedule keys, byte[] iv) throws PaddingException {
+        if (ciphertext.length < parallelThreshold) {
+            return ModeOfOperation.forDecryption(cipher, mode, keys, iv).doFinal(ciphertext);
+        }
+        checkIv(iv);
+        int blockSize = cipher.getBlockSize();
+        int fullBlocks = ciphertext.length / blockSize;
+        if (mode.isPadded() && (ciphertext.length == 0 || ciphertext.length % blockSize != 0)) {
+            throw new PaddingException("ciphertext length is not a multiple of the block size");
+        }
+        byte[] output = new byte[ciphertext.length];
+        ExecutionPlan plan = cipher.getPlan();
+        CipherBatchEvent event = CipherBatchEvent.start();
+
+        runChunks(plan, ciphertext, output, fullBlocks, keys, iv, false);
+        CipherBatchEvent.finish(event, false, mode, plan, ciphertext.length);
+        EventLog.getInstance().count(EventCategory.DECRYPTION);
+        if (mode == CipherMode.CTR) {
+            counterTail(plan, ciphertext, output, fullBlocks, ciphertext.length % blockSize, keys, iv);
+            return output;
+        }
+        int padding = ModeOfOperation.paddingLength(output, output.length - blockSize, blockSize);
+        return Arrays.copyOf(output, output.length - padding);
+    }
+
+    // EFFECTS: throws IllegalArgumentException if the mode needs an IV and iv does not have length blockSize
+    private void checkIv(byte[] iv) {
+        if (mode.usesIv() && (iv == null || iv.length != cipher.getBlockSize())) {
+            throw new IllegalArgumentException(mode + " needs an IV of length " + cipher.getBlockSize());
+        }
+    }
+
+    // MODIFIES: output
+    // EFFECTS: processes blocks [0, blocks) of input into output, in parallel chunks when there is more
+    // than one chunk
+    private void runChunks(ExecutionPlan plan, byte[] input, byte[] output, int blocks, KeySchedule keys,
+                           byte[] iv, boolean encrypting) {
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int first = 0; first < blocks; first += chunkBlocks) {
+            int start = first;
+            int end = Math.min(blocks, first + chunkBlocks);
+            tasks.add(() -> {
+                processRange(plan, input, output, start, end, keys, iv, encrypting);
+                return null;
+            });
+        }
+        if (tasks.size() == 1) {
+            processRange(plan, input, output, 0, blocks, keys, iv, encrypting);
+        } else {
+            invokeAll(tasks);
+        }
+    }
+
+    // EFFECTS: runs every task on the executor and waits for them to finish, rethrowing the first failure
+    private void invokeAll(List<Callable<Void>> tasks) {
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while processing blocks", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // MODIFIES: output
+    // EFFECTS: processes blocks [first, end) of input into output according to the mode
+    private void processRange(ExecutionPlan plan, byte[] input, byte[] output, int first, int end,
+                              KeySchedule keys, byte[] iv, boolean encrypting) {
+        int blockSize = cipher.getBlockSize();
+        if (mode == CipherMode.CTR) {
+            counterRange(plan, input, output, first, end, keys, iv);
+            return;
+        }
+        if (mode == CipherMode.ECB && encrypting) {
+            plan.encryptBlocks(input, first * blockSize, output, first * blockSize, end - first, keys);
+            return;
+        } else if (mode == CipherMode.ECB) {
+            plan.decryptBlocks(input, first * blockSize, output, first * blockSize, end - first, keys);
+            return;
+        }
+        for (int block = first; block < end; block++) {
+            int offset = block * blockSize;
+            if (encrypting) {
+                plan.encrypt(input, offset, output, offset, keys);
+            } else {
+                plan.decrypt(input, offset, output, offset, keys);
+            }
+            if (mode == CipherMode.CBC) {
+                xorPrevious(input, output, offset, iv);
+            }
+        }
+    }
+
+    // MODIFIES: output
+    // EFFECTS: XORs the decrypted block at offset with the previous ciphertext block, or with iv for the first
+    private void xorPrevious(byte[] ciphertext, byte[] output, int offset, byte[] iv) {
+        int blockSize = cipher.getBlockSize();
+        byte[] previous = offset == 0 ? iv : ciphertext;
+        int previousOffset = offset == 0 ? 0 : offset - blockSize;
+        for (int i = 0; i < blockSize; i++) {
+            output[offset + i] ^= previous[previousOffset + i];
+        }
+    }
+
+    // MODIFIES: output
+    // EFFECTS: XORs blocks [first, end) of input with the keystream for counters iv + first to iv + end - 1
+    private void counterRange(ExecutionPlan plan, byte[] input, byte[] output, int first, int end,
+                              KeySchedule keys, byte[] iv) {
+        int blockSize = cipher.getBlockSize();
+        byte[] buffers = scratch.get();
+        System.arraycopy(iv, 0, buffers, 0, blockSize);
+        ModeOfOperation.addToCounter(buffers, blockSize, first);
+        for (int block = first; block < end; block++) {
+            int offset = block * blockSize;
+            plan.encrypt(buffers, 0, buffers, blockSize, keys);
+            for (int i = 0; i < blockSize; i++) {
+                output[offset + i] = (byte) (input[offset + i] ^ buffers[blockSize + i]);
+            }
+            ModeOfOperation.addToCounter(buffers, blockSize, 1);
+        }
+    }
+
+    // MODIFIES: output
+    // EFFECTS: XORs the last length bytes of input, which follow block number block, with its keystream
+    private void counterTail(ExecutionPlan plan, byte[] input, byte[] output, int block, int length,
+                             KeySchedule keys, byte[] iv) {
+        int blockSize = cipher.getBlockSize();
+        byte[] buffers = scratch.get();
+        System.arraycopy(iv, 0, buffers, 0, blockSize);
+        ModeOfOperation.addToCounter(buffers, blockSize, block);
+        plan.encrypt(buffers, 0, buffers, blockSize, keys);
+        int offset = block * blockSize;
+        for (int i = 0; i < length; i++) {
+            output[offset + i] = (byte) (input[offset + i] ^ buffers[blockSize + i]);
+        }
+    }
+
+    public CipherMode getMode() {
+        return mode;
+    }
+
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+}
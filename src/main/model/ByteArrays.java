@@ -0,0 +1,43 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ByteArrays converts between the boxed Byte[] arrays used by the UI and the primitive byte[] arrays
+used by the rounds
+ */
+public final class ByteArrays {
+
+    private ByteArrays() {
+    }
+
+    // REQUIRES: bytes should contain no null elements
+    // EFFECTS: returns a primitive copy of the given boxed bytes
+    public static byte[] unbox(Byte[] bytes) {
+        byte[] output = new byte[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            output[i] = bytes[i];
+        }
+        return output;
+    }
+
+    // EFFECTS: returns a boxed copy of the given primitive bytes
+    public static Byte[] box(byte[] bytes) {
+        Byte[] output = new Byte[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            output[i] = bytes[i];
+        }
+        return output;
+    }
+
+    // REQUIRES: each bytearray in keys should contain no null elements
+    // EFFECTS: returns a list with a primitive copy of each of the given boxed keys
+    public static List<byte[]> unboxAll(List<Byte[]> keys) {
+        List<byte[]> output = new ArrayList<>(keys.size());
+        for (Byte[] key : keys) {
+            output.add(unbox(key));
+        }
+        return output;
+    }
+}
@@ -6,12 +6,21 @@ import persistence.Writeable;
 
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
 
 /*
 Represents the cipher as a sequence of individual Rounds, each with size blockSize
  */
 public class Cipher implements Writeable, Iterable<Round> {
     private ArrayList<Round> rounds;
+    private volatile ExecutionPlan plan;
+    private volatile boolean instrumented;
+    private final LongAdder planHits = new LongAdder();
+    private final LongAdder planMisses = new LongAdder();
+    private final BlockStatistics blockStatistics = new BlockStatistics();
+    // the schedule built for the last list of keys passed in, reused while the same keys are passed
+    private volatile KeySchedule lastSchedule;
     private int blockSize;
 
     // REQUIRES: blockSize should be positive
@@ -25,57 +34,204 @@ public class Cipher implements Writeable, Iterable<Round> {
     // EFFECTS: appends the given round to the current cipher and updates the EventLog
     public void addRound(Round round) {
         rounds.add(round);
+        plan = null;
+        lastSchedule = null;
 
         if (round instanceof MixKeyRound) {
-            EventLog.getInstance().logEvent(new Event("Added Mix Key Round"));
+            EventLog.getInstance().logEvent("Added Mix Key Round");
         } else if (round instanceof SubstitutionRound) {
-            EventLog.getInstance().logEvent(new Event("Added Substitution Round"));
+            EventLog.getInstance().logEvent("Added Substitution Round");
         } else if (round instanceof PermutationRound) {
-            EventLog.getInstance().logEvent(new Event("Added Permutation Round"));
+            EventLog.getInstance().logEvent("Added Permutation Round");
         }
     }
 
     // REQUIRES: plaintext should have length blockSize
     // keys should have length equal to the # of key rounds
     // each bytearray in keys should have length blockSize
-    // MODIFIES: this
     // EFFECTS: returns an encrypted byte-array of plaintext
     public Byte[] encryptByteArray(Byte[] plaintext, ArrayList<Byte[]> keys) {
-        int keyIndex = 0;
-        Byte[] currentBytes = plaintext.clone();
-
-        // encrypt the current bytes at each round (from beginning to end)
-        for (Round round : rounds) {
-            if (round instanceof MixKeyRound) {
-                ((MixKeyRound) round).setKey(keys.get(keyIndex));
-                keyIndex++;
-            }
-            currentBytes = round.encryptRound(currentBytes);
-        }
-        EventLog.getInstance().logEvent(new Event("Encrypted Message"));
-        return currentBytes;
+        return ByteArrays.box(encryptBlock(ByteArrays.unbox(plaintext), ByteArrays.unboxAll(keys)));
     }
 
     // REQUIRES: ciphertext should have length blockSize
     // keys should have length equal to the # of key rounds
     // each bytearray in keys should have length blockSize
-    // MODIFIES: this
     // EFFECTS: returns a decrypted byte-array of plaintext
     public Byte[] decryptByteArray(Byte[] ciphertext, ArrayList<Byte[]> keys) {
-        int keyIndex = keys.size() - 1;
-        Byte[] currentBytes = ciphertext.clone();
+        return ByteArrays.box(decryptBlock(ByteArrays.unbox(ciphertext), ByteArrays.unboxAll(keys)));
+    }
 
-        // decrypt the current bytes at each round (from end to beginning)
-        for (int i = rounds.size() - 1; i >= 0; i--) {
-            Round round = rounds.get(i);
-            if (round instanceof MixKeyRound) {
-                ((MixKeyRound) round).setKey(keys.get(keyIndex));
-                keyIndex--;
+    // REQUIRES: plaintext should have length blockSize
+    // keys should have length equal to the # of key rounds
+    // each bytearray in keys should have length blockSize
+    // EFFECTS: returns a newly allocated encrypted byte-array of plaintext
+    public byte[] encryptBlock(byte[] plaintext, List<byte[]> keys) {
+        return encryptBlock(plaintext, scheduleOf(keys));
+    }
+
+    // REQUIRES: plaintext should have length blockSize
+    // EFFECTS: returns a newly allocated encrypted byte-array of plaintext, using the given key schedule
+    public byte[] encryptBlock(byte[] plaintext, KeySchedule keys) {
+        byte[] output = new byte[blockSize];
+        encryptBlock(plaintext, 0, output, 0, keys);
+        return output;
+    }
+
+    // REQUIRES: src should have at least blockSize bytes starting at srcOffset,
+    // dst should have room for blockSize bytes starting at dstOffset
+    // keys should have length equal to the # of key rounds
+    // each bytearray in keys should have length blockSize
+    // MODIFIES: dst
+    // EFFECTS: encrypts the block of src starting at srcOffset into dst starting at dstOffset;
+    // src and dst may be the same block (same array and offset)
+    public void encryptBlock(byte[] src, int srcOffset, byte[] dst, int dstOffset, List<byte[]> keys) {
+        encryptBlock(src, srcOffset, dst, dstOffset, scheduleOf(keys));
+    }
+
+    // REQUIRES: src should have at least blockSize bytes starting at srcOffset,
+    // dst should have room for blockSize bytes starting at dstOffset
+    // MODIFIES: dst
+    // EFFECTS: encrypts the block of src starting at srcOffset into dst starting at dstOffset with the
+    // given key schedule; src and dst may be the same block (same array and offset).
+    // Does not modify the cipher or its rounds, so it may be called from many threads at once;
+    // throws IllegalArgumentException if keys does not match the cipher's key rounds
+    public void encryptBlock(byte[] src, int srcOffset, byte[] dst, int dstOffset, KeySchedule keys) {
+        getPlan().encrypt(src, srcOffset, dst, dstOffset, keys);
+        EventLog.getInstance().count(EventCategory.ENCRYPTION);
+    }
+
+    // REQUIRES: ciphertext should have length blockSize
+    // keys should have length equal to the # of key rounds
+    // each bytearray in keys should have length blockSize
+    // EFFECTS: returns a newly allocated decrypted byte-array of ciphertext
+    public byte[] decryptBlock(byte[] ciphertext, List<byte[]> keys) {
+        return decryptBlock(ciphertext, scheduleOf(keys));
+    }
+
+    // REQUIRES: ciphertext should have length blockSize
+    // EFFECTS: returns a newly allocated decrypted byte-array of ciphertext, using the given key schedule
+    public byte[] decryptBlock(byte[] ciphertext, KeySchedule keys) {
+        byte[] output = new byte[blockSize];
+        decryptBlock(ciphertext, 0, output, 0, keys);
+        return output;
+    }
+
+    // REQUIRES: src should have at least blockSize bytes starting at srcOffset,
+    // dst should have room for blockSize bytes starting at dstOffset
+    // keys should have length equal to the # of key rounds
+    // each bytearray in keys should have length blockSize
+    // MODIFIES: dst
+    // EFFECTS: decrypts the block of src starting at srcOffset into dst starting at dstOffset;
+    // src and dst may be the same block (same array and offset)
+    public void decryptBlock(byte[] src, int srcOffset, byte[] dst, int dstOffset, List<byte[]> keys) {
+        decryptBlock(src, srcOffset, dst, dstOffset, scheduleOf(keys));
+    }
+
+    // REQUIRES: src should have at least blockSize bytes starting at srcOffset,
+    // dst should have room for blockSize bytes starting at dstOffset
+    // MODIFIES: dst
+    // EFFECTS: decrypts the block of src starting at srcOffset into dst starting at dstOffset with the
+    // given key schedule; src and dst may be the same block (same array and offset).
+    // Does not modify the cipher or its rounds, so it may be called from many threads at once;
+    // throws IllegalArgumentException if keys does not match the cipher's key rounds
+    public void decryptBlock(byte[] src, int srcOffset, byte[] dst, int dstOffset, KeySchedule keys) {
+        getPlan().decrypt(src, srcOffset, dst, dstOffset, keys);
+        EventLog.getInstance().count(EventCategory.DECRYPTION);
+    }
+
+    // EFFECTS: returns a key schedule of the given keys, reusing the last one built if it holds the same keys;
+    // throws IllegalArgumentException if keys do not match the cipher's key rounds
+    private KeySchedule scheduleOf(List<byte[]> keys) {
+        KeySchedule schedule = lastSchedule;
+        if (schedule == null || !schedule.holds(keys)) {
+            schedule = new KeySchedule(this, keys);
+            lastSchedule = schedule;
+        }
+        return schedule;
+    }
+
+    // EFFECTS: returns the execution plan for the cipher's current rounds, building it if needed
+    ExecutionPlan getPlan() {
+        ExecutionPlan current = plan;
+        if (current == null) {
+            current = new ExecutionPlan(rounds, blockSize, instrumented, blockStatistics);
+            plan = current;
+            planMisses.increment();
+        } else {
+            planHits.increment();
+        }
+        return current;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: builds the execution plan and the lookup tables of every round now, so that the first
+    // blocks encrypted or decrypted do not pay for them
+    public void precompile() {
+        getPlan();
+        for (Round round : rounds) {
+            if (round instanceof PermutationRound) {
+                ((PermutationRound) round).compileTables();
             }
-            currentBytes = round.decryptRound(currentBytes);
         }
-        EventLog.getInstance().logEvent(new Event("Decrypted Message"));
-        return currentBytes;
+    }
+
+    // EFFECTS: returns an optimized snapshot of the cipher's current rounds: an equivalent plan in which identity
+    // rounds are dropped and adjacent rounds are merged where possible, checked against this cipher on random
+    // blocks and keys before it is returned. Rounds added or changed afterwards are not seen by the plan
+    public OptimizedPlan optimize() {
+        return PlanOptimizer.optimize(this);
+    }
+
+    // EFFECTS: returns an optimized snapshot of the cipher's current rounds (see optimize) whose steps run as
+    // generated code if it could be generated, and one by one otherwise
+    public OptimizedPlan compile() {
+        OptimizedPlan optimized = optimize();
+        optimized.compile();
+        return optimized;
+    }
+
+    // EFFECTS: returns the number of times the current execution plan was reused since the plan
+    // statistics were last reset
+    public long getPlanCacheHits() {
+        return planHits.sum();
+    }
+
+    // EFFECTS: returns the number of times an execution plan had to be built since the plan statistics
+    // were last reset
+    public long getPlanCacheMisses() {
+        return planMisses.sum();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: resets the plan hit and miss counts to zero
+    public void resetPlanCacheStatistics() {
+        planHits.reset();
+        planMisses.reset();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: turns per-round latency instrumentation on or off; turning it on starts new metrics.
+    // Modes of operation created before the change keep their previous setting
+    public void setInstrumentationEnabled(boolean enabled) {
+        instrumented = enabled;
+        plan = null;
+    }
+
+    public boolean isInstrumentationEnabled() {
+        return instrumented;
+    }
+
+    // EFFECTS: returns the latency metrics recorded since instrumentation was turned on or the last round
+    // was added, or null if instrumentation is off
+    public CipherMetrics getMetrics() {
+        return instrumented ? getPlan().getMetrics() : null;
+    }
+
+    // EFFECTS: returns the block counts and sampled block latencies of the cipher, which are only recorded
+    // while they are enabled and do not need instrumentation to be on
+    public BlockStatistics getBlockStatistics() {
+        return blockStatistics;
     }
 
     // EFFECTS: returns the number of key rounds in the cipher
@@ -111,6 +267,7 @@ public class Cipher implements Writeable, Iterable<Round> {
     }
 
     // getters and setters
+    // EFFECTS: returns the rounds of the cipher; callers should add rounds through addRound
     public ArrayList<Round> getRounds() {
         return rounds;
     }
@@ -0,0 +1,71 @@
+package model;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/*
+CipherBatchEvent is the Flight Recorder event for one batch of blocks encrypted or decrypted by a mode of
+operation or the bulk engine. Like built-in JFR events it can be switched on and given a threshold in a
+recording's settings. When no recording has it enabled, start returns null and no event is allocated, so
+callers on the encryption path pay for one check per call.
+ */
+@Name("blocky.CipherBatch")
+@Label("Cipher Batch")
+@Category({"Blocky", "Cipher"})
+@Description("Blocks encrypted or decrypted in one call")
+@StackTrace(false)
+@Threshold("10 ms")
+final class CipherBatchEvent extends jdk.jfr.Event {
+    private static final EventType TYPE = EventType.getEventType(CipherBatchEvent.class);
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Mode")
+    String mode;
+
+    @Label("Block Size")
+    @DataAmount
+    int blockSize;
+
+    @Label("Round Count")
+    int roundCount;
+
+    @Label("Bytes Processed")
+    @DataAmount
+    long bytesProcessed;
+
+    // EFFECTS: returns a new event that has begun if a recording has this event enabled, and null otherwise
+    static CipherBatchEvent start() {
+        if (!TYPE.isEnabled()) {
+            return null;
+        }
+        CipherBatchEvent event = new CipherBatchEvent();
+        event.begin();
+        return event;
+    }
+
+    // MODIFIES: event
+    // EFFECTS: if event is not null, ends it and, if a recording wants it, fills in its fields and commits it
+    static void finish(CipherBatchEvent event, boolean encrypting, CipherMode cipherMode, ExecutionPlan plan,
+                       long bytes) {
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = encrypting ? "Encrypt" : "Decrypt";
+            event.mode = cipherMode.name();
+            event.blockSize = plan.getBlockSize();
+            event.roundCount = plan.getNumberOfRounds();
+            event.bytesProcessed = bytes;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package model;
+
+import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+CipherCompiler generates a class for the steps of an OptimizedPlan. Its encrypt and decrypt methods are
+straight-line code with one static call per step; the step order, the block size and each step's lookup
+tables (held in static final fields) are built in, so there is no dispatch through Round and no check of
+step types per block, and the JIT compiler can inline the whole cipher.
+
+The classes are defined in this package with MethodHandles.Lookup.defineClass and cannot be unloaded, so one
+class is generated per distinct sequence of steps (its fingerprint) and shared by every plan with the same
+steps; keys are passed in on each call. For the same reason at most maxClasses classes are generated per
+process (DEFAULT_MAX_CLASSES unless the blocky.compiler.maxclasses system property says otherwise); once that
+many have been generated, compile refuses new step sequences and their plans keep running their steps one by
+one. All access to the generated classes goes through methods synchronized on this class, so each class is
+also defined only once.
+ */
+final class CipherCompiler {
+    private static final String KERNELS = "model/CipherKernels";
+    private static final String SUBSTITUTION_TABLE = "model/SubstitutionTable";
+    private static final String PERMUTATION_TABLE = "model/PermutationTable";
+    private static final String CODE_DESCRIPTOR = "([BI[[B)V";
+    private static final int ALOAD_0 = 0x2a;
+    private static final int ALOAD_1 = 0x2b;
+    private static final int ALOAD_3 = 0x2d;
+    private static final int ILOAD_2 = 0x1c;
+    private static final int LDC_W = 0x13;
+    private static final int AALOAD = 0x32;
+    private static final int DUP = 0x59;
+    private static final int POP = 0x57;
+    private static final int RETURN = 0xb1;
+    private static final int GETSTATIC = 0xb2;
+    private static final int PUTSTATIC = 0xb3;
+    private static final int INVOKESPECIAL = 0xb7;
+    private static final int INVOKESTATIC = 0xb8;
+    private static final int CHECKCAST = 0xc0;
+
+    /** number of classes generated unless the blocky.compiler.maxclasses system property says otherwise */
+    static final int DEFAULT_MAX_CLASSES = 256;
+
+    private static final Map<String, CompiledCipher> COMPILED = new HashMap<>();
+    private static int maxClasses = Integer.getInteger("blocky.compiler.maxclasses", DEFAULT_MAX_CLASSES);
+
+    private CipherCompiler() {
+    }
+
+    // REQUIRES: every step is a MixKeyRound, PermutationRound or SubstitutionRound of the given block size
+    // EFFECTS: returns the generated code for steps, generating and loading it unless code for the same steps
+    // was generated before; throws ReflectiveOperationException or LinkageError if the class cannot be
+    // loaded, IllegalArgumentException if there are too many steps for one method, and IllegalStateException
+    // if new code is needed but maxClasses classes have already been generated
+    static synchronized CompiledCipher compile(Round[] steps, int blockSize) throws ReflectiveOperationException {
+        String fingerprint = fingerprint(steps, blockSize);
+        CompiledCipher compiled = COMPILED.get(fingerprint);
+        if (compiled == null) {
+            if (COMPILED.size() >= maxClasses) {
+                throw new IllegalStateException("limit of " + maxClasses + " generated classes reached");
+            }
+            String name = "model/GeneratedCipher_" + fingerprint;
+            List<Object> constants = new ArrayList<>();
+            byte[] classFile = generate(name, steps, blockSize, constants);
+            String binaryName = name.replace('/', '.');
+            CipherKernels.offer(binaryName, constants.toArray());
+            try {
+                Class<?> generated = MethodHandles.lookup().defineClass(classFile);
+                compiled = (CompiledCipher) generated.getDeclaredConstructor().newInstance();
+            } finally {
+                CipherKernels.constants(binaryName);
+            }
+            COMPILED.put(fingerprint, compiled);
+        }
+        return compiled;
+    }
+
+    // EFFECTS: returns the number of classes generated so far
+    static synchronized int getNumberOfClasses() {
+        return COMPILED.size();
+    }
+
+    static synchronized int getMaxClasses() {
+        return maxClasses;
+    }
+
+    // REQUIRES: maxClasses >= 0
+    // MODIFIES: this
+    // EFFECTS: sets the number of classes that may be generated; classes generated already are kept
+    static synchronized void setMaxClasses(int maxClasses) {
+        CipherCompiler.maxClasses = maxClasses;
+    }
+
+    // EFFECTS: returns a hex SHA-256 hash of the block size and the type and mapping of every step
+    static String fingerprint(Round[] steps, int blockSize) {
+        MessageDigest digest = newDigest();
+        digest.update(ByteBuffer.allocate(8).putInt(blockSize).putInt(steps.length).flip());
+        for (Round step : steps) {
+            int[] mapping = new int[0];
+            byte type = 0;
+            if (step instanceof SubstitutionRound) {
+                SubstitutionRound substitution = (SubstitutionRound) step;
+                type = (byte) (substitution.isWideTableEnabled() ? 2 : 1);
+                mapping = substitution.getSubstitutionMapping();
+            } else if (step instanceof PermutationRound) {
+                type = 3;
+                mapping = ((PermutationRound) step).getPermutationMapping();
+            }
+            ByteBuffer description = ByteBuffer.allocate(5 + 4 * mapping.length).put(type).putInt(mapping.length);
+            for (int value : mapping) {
+                description.putInt(value);
+            }
+            digest.update(description.flip());
+        }
+        return hex(digest.digest());
+    }
+
+    // EFFECTS: returns a new SHA-256 message digest
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // EFFECTS: returns bytes as lower-case hex digits
+    private static String hex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder();
+        for (byte b : bytes) {
+            builder.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return builder.toString();
+    }
+
+    // MODIFIES: constants
+    // EFFECTS: returns the class file of the generated cipher called name, adding the values of its static
+    // fields to constants in the order its static initializer expects them
+    private static byte[] generate(String name, Round[] steps, int blockSize, List<Object> constants) {
+        ClassFileWriter writer = new ClassFileWriter(name, "java/lang/Object", "model/CompiledCipher");
+        List<String[]> fields = new ArrayList<>();
+        for (int i = 0; i < steps.length; i++) {
+            if (steps[i] instanceof SubstitutionRound) {
+                SubstitutionRound substitution = (SubstitutionRound) steps[i];
+                addTables(writer, fields, i, SUBSTITUTION_TABLE);
+                constants.add(substitution.getEncryptTable());
+                constants.add(substitution.getDecryptTable());
+            } else if (steps[i] instanceof PermutationRound) {
+                PermutationRound permutation = (PermutationRound) steps[i];
+                addTables(writer, fields, i, PERMUTATION_TABLE);
+                constants.add(permutation.encryptTable());
+                constants.add(permutation.decryptTable());
+            }
+        }
+        int access = ClassFileWriter.ACC_STATIC;
+        writer.addMethod(access, "<clinit>", "()V", 3, 0, initializer(writer, name, fields));
+        writer.addMethod(0, "<init>", "()V", 1, 1, constructor(writer));
+        access = ClassFileWriter.ACC_PUBLIC | ClassFileWriter.ACC_FINAL;
+        writer.addMethod(access, "encrypt", CODE_DESCRIPTOR, 4, 4, body(writer, name, steps, blockSize, true));
+        writer.addMethod(access, "decrypt", CODE_DESCRIPTOR, 4, 4, body(writer, name, steps, blockSize, false));
+        return writer.toByteArray();
+    }
+
+    // MODIFIES: writer, fields
+    // EFFECTS: adds static final fields "e<step>" and "d<step>" of the given table class, for the encryption and
+    // decryption tables of the step, and records their names and types in fields
+    private static void addTables(ClassFileWriter writer, List<String[]> fields, int step, String tableClass) {
+        for (String prefix : new String[]{"e", "d"}) {
+            writer.addField(ClassFileWriter.ACC_STATIC | ClassFileWriter.ACC_FINAL, prefix + step,
+                    "L" + tableClass + ";");
+            fields.add(new String[]{prefix + step, tableClass});
+        }
+    }
+
+    // MODIFIES: writer
+    // EFFECTS: returns the code of a static initializer that collects the class's constants from CipherKernels
+    // and stores them in fields, in order
+    private static byte[] initializer(ClassFileWriter writer, String name, List<String[]> fields) {
+        ClassFileWriter.Buffer code = new ClassFileWriter.Buffer();
+        code.u1(LDC_W).u2(writer.stringRef(name.replace('/', '.')));
+        code.u1(INVOKESTATIC).u2(writer.methodRef(KERNELS, "constants", "(Ljava/lang/String;)[Ljava/lang/Object;"));
+        for (int i = 0; i < fields.size(); i++) {
+            String[] field = fields.get(i);
+            code.u1(DUP).u1(LDC_W).u2(writer.intRef(i)).u1(AALOAD);
+            code.u1(CHECKCAST).u2(writer.classRef(field[1]));
+            code.u1(PUTSTATIC).u2(writer.fieldRef(name, field[0], "L" + field[1] + ";"));
+        }
+        return code.u1(POP).u1(RETURN).toByteArray();
+    }
+
+    // MODIFIES: writer
+    // EFFECTS: returns the code of a constructor that only calls Object's constructor
+    private static byte[] constructor(ClassFileWriter writer) {
+        ClassFileWriter.Buffer code = new ClassFileWriter.Buffer();
+        code.u1(ALOAD_0).u1(INVOKESPECIAL).u2(writer.methodRef("java/lang/Object", "<init>", "()V"));
+        return code.u1(RETURN).toByteArray();
+    }
+
+    // MODIFIES: writer
+    // EFFECTS: returns the code of encrypt(block, offset, keys), or of decrypt if encrypting is false
+    private static byte[] body(ClassFileWriter writer, String name, Round[] steps, int blockSize,
+                               boolean encrypting) {
+        ClassFileWriter.Buffer code = new ClassFileWriter.Buffer();
+        for (int n = 0; n < steps.length; n++) {
+            int i = encrypting ? n : steps.length - 1 - n;
+            String field = (encrypting ? "e" : "d") + i;
+            if (steps[i] instanceof SubstitutionRound) {
+                String table = "L" + SUBSTITUTION_TABLE + ";";
+                code.u1(GETSTATIC).u2(writer.fieldRef(name, field, table));
+                code.u1(ALOAD_1).u1(ILOAD_2).u1(LDC_W).u2(writer.intRef(blockSize));
+                code.u1(INVOKESTATIC).u2(writer.methodRef(KERNELS, "substitute", "(" + table + "[BII)V"));
+            } else if (steps[i] instanceof PermutationRound) {
+                String table = "L" + PERMUTATION_TABLE + ";";
+                code.u1(GETSTATIC).u2(writer.fieldRef(name, field, table));
+                code.u1(ALOAD_1).u1(ILOAD_2);
+                code.u1(INVOKESTATIC).u2(writer.methodRef(KERNELS, "permute", "(" + table + "[BI)V"));
+            } else {
+                code.u1(ALOAD_3).u1(LDC_W).u2(writer.intRef(i)).u1(AALOAD);
+                code.u1(ALOAD_1).u1(ILOAD_2).u1(LDC_W).u2(writer.intRef(blockSize));
+                code.u1(INVOKESTATIC).u2(writer.methodRef(KERNELS, "mix", "([B[BII)V"));
+            }
+        }
+        return code.u1(RETURN).toByteArray();
+    }
+}
@@ -0,0 +1,50 @@
+package model;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+CipherKernels are the static operations that generated ciphers (see CipherCompiler) call for each step. Calls
+from generated code are monomorphic and take their tables from static final fields, so the JIT compiler can
+inline them and treat the tables as constants.
+ */
+final class CipherKernels {
+    // constants handed to generated classes, by class name, until their static initializers collect them
+    private static final Map<String, Object[]> PENDING = new ConcurrentHashMap<>();
+
+    private CipherKernels() {
+    }
+
+    // REQUIRES: block should have at least length bytes starting at offset
+    // MODIFIES: block
+    // EFFECTS: substitutes length bytes of block in place with table
+    static void substitute(SubstitutionTable table, byte[] block, int offset, int length) {
+        table.apply(block, offset, block, offset, length);
+    }
+
+    // REQUIRES: block should have at least the table's block size bytes starting at offset
+    // MODIFIES: block
+    // EFFECTS: permutes the bits of the block in place with table
+    static void permute(PermutationTable table, byte[] block, int offset) {
+        table.apply(block, offset, block, offset);
+    }
+
+    // REQUIRES: key should have at least length bytes, block at least length bytes starting at offset
+    // MODIFIES: block
+    // EFFECTS: XORs key into length bytes of block in place
+    static void mix(byte[] key, byte[] block, int offset, int length) {
+        MixKeyRound.xor(key, block, offset, block, offset, length);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: holds constants until the generated class with the given binary name collects them
+    static void offer(String className, Object[] constants) {
+        PENDING.put(className, constants);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns and forgets the constants offered for the generated class with the given binary name
+    static Object[] constants(String className) {
+        return PENDING.remove(className);
+    }
+}
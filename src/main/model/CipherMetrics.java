@@ -0,0 +1,192 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+CipherMetrics holds the latency histograms of an instrumented Cipher: one per step of its execution plan
+and one per round type, for encryption and decryption separately, plus whole-block latencies from which
+block counts and bytes processed follow. A step is usually a single round, but a run of consecutive
+substitution rounds is fused into one step and timed as a whole.
+
+Metrics belong to one execution plan, so they start over whenever a round is added to the cipher.
+ */
+public final class CipherMetrics {
+    private final int blockSize;
+    private final String[] stepTypes;
+    private final int[] firstRounds;
+    private final int[] lastRounds;
+    private final int[] typeIndexes;
+    private final List<String> types = new ArrayList<>();
+    private final LatencyHistogram[][] stepLatencies;
+    private final LatencyHistogram[][] typeLatencies;
+    private final LatencyHistogram[] blockLatencies = {new LatencyHistogram(), new LatencyHistogram()};
+
+    // REQUIRES: stepTypes, firstRounds and lastRounds should have the same length
+    // EFFECTS: constructs empty metrics for steps of the given round types, where step i runs
+    // rounds firstRounds[i] to lastRounds[i]
+    CipherMetrics(int blockSize, String[] stepTypes, int[] firstRounds, int[] lastRounds) {
+        this.blockSize = blockSize;
+        this.stepTypes = stepTypes;
+        this.firstRounds = firstRounds;
+        this.lastRounds = lastRounds;
+        typeIndexes = new int[stepTypes.length];
+        for (int i = 0; i < stepTypes.length; i++) {
+            if (!types.contains(stepTypes[i])) {
+                types.add(stepTypes[i]);
+            }
+            typeIndexes[i] = types.indexOf(stepTypes[i]);
+        }
+        stepLatencies = newHistograms(stepTypes.length);
+        typeLatencies = newHistograms(types.size());
+    }
+
+    // EFFECTS: returns count pairs of empty histograms, for encryption and decryption
+    private static LatencyHistogram[][] newHistograms(int count) {
+        LatencyHistogram[][] histograms = new LatencyHistogram[count][];
+        for (int i = 0; i < count; i++) {
+            histograms[i] = new LatencyHistogram[]{new LatencyHistogram(), new LatencyHistogram()};
+        }
+        return histograms;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: records that the given step took nanos nanoseconds
+    void recordStep(int step, boolean encrypting, long nanos) {
+        int direction = encrypting ? 0 : 1;
+        stepLatencies[step][direction].record(nanos);
+        typeLatencies[typeIndexes[step]][direction].record(nanos);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: records that a whole block took nanos nanoseconds
+    void recordBlock(boolean encrypting, long nanos) {
+        blockLatencies[encrypting ? 0 : 1].record(nanos);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: discards everything recorded so far
+    public void reset() {
+        for (LatencyHistogram[] pair : stepLatencies) {
+            pair[0].reset();
+            pair[1].reset();
+        }
+        for (LatencyHistogram[] pair : typeLatencies) {
+            pair[0].reset();
+            pair[1].reset();
+        }
+        blockLatencies[0].reset();
+        blockLatencies[1].reset();
+    }
+
+    // EFFECTS: returns a copy of the metrics recorded so far
+    public Snapshot snapshot() {
+        List<RoundStats> steps = new ArrayList<>();
+        for (int i = 0; i < stepTypes.length; i++) {
+            steps.add(new RoundStats(stepTypes[i], firstRounds[i], lastRounds[i],
+                    stepLatencies[i][0].snapshot(), stepLatencies[i][1].snapshot()));
+        }
+        Map<String, RoundStats> byType = new LinkedHashMap<>();
+        for (int i = 0; i < types.size(); i++) {
+            byType.put(types.get(i), new RoundStats(types.get(i), -1, -1, typeLatencies[i][0].snapshot(),
+                    typeLatencies[i][1].snapshot()));
+        }
+        return new Snapshot(blockSize, blockLatencies[0].snapshot(), blockLatencies[1].snapshot(), steps, byType);
+    }
+
+    /*
+    RoundStats is the recorded latencies of one step of the plan (rounds firstRound to lastRound), or of
+    every step of one round type, in which case the round indexes are -1.
+     */
+    public static final class RoundStats {
+        private final String type;
+        private final int firstRound;
+        private final int lastRound;
+        private final LatencyHistogram.Snapshot encryptLatency;
+        private final LatencyHistogram.Snapshot decryptLatency;
+
+        private RoundStats(String type, int firstRound, int lastRound, LatencyHistogram.Snapshot encryptLatency,
+                           LatencyHistogram.Snapshot decryptLatency) {
+            this.type = type;
+            this.firstRound = firstRound;
+            this.lastRound = lastRound;
+            this.encryptLatency = encryptLatency;
+            this.decryptLatency = decryptLatency;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public int getFirstRound() {
+            return firstRound;
+        }
+
+        public int getLastRound() {
+            return lastRound;
+        }
+
+        public LatencyHistogram.Snapshot getEncryptLatency() {
+            return encryptLatency;
+        }
+
+        public LatencyHistogram.Snapshot getDecryptLatency() {
+            return decryptLatency;
+        }
+    }
+
+    /*
+    Snapshot is an immutable copy of a cipher's metrics at some point in time.
+     */
+    public static final class Snapshot {
+        private final int blockSize;
+        private final LatencyHistogram.Snapshot encryptLatency;
+        private final LatencyHistogram.Snapshot decryptLatency;
+        private final List<RoundStats> steps;
+        private final Map<String, RoundStats> roundTypes;
+
+        private Snapshot(int blockSize, LatencyHistogram.Snapshot encryptLatency,
+                         LatencyHistogram.Snapshot decryptLatency, List<RoundStats> steps,
+                         Map<String, RoundStats> roundTypes) {
+            this.blockSize = blockSize;
+            this.encryptLatency = encryptLatency;
+            this.decryptLatency = decryptLatency;
+            this.steps = Collections.unmodifiableList(steps);
+            this.roundTypes = Collections.unmodifiableMap(roundTypes);
+        }
+
+        public long getEncryptedBlocks() {
+            return encryptLatency.getCount();
+        }
+
+        public long getDecryptedBlocks() {
+            return decryptLatency.getCount();
+        }
+
+        // EFFECTS: returns the number of bytes encrypted and decrypted
+        public long getBytesProcessed() {
+            return (getEncryptedBlocks() + getDecryptedBlocks()) * blockSize;
+        }
+
+        public LatencyHistogram.Snapshot getEncryptLatency() {
+            return encryptLatency;
+        }
+
+        public LatencyHistogram.Snapshot getDecryptLatency() {
+            return decryptLatency;
+        }
+
+        // EFFECTS: returns the stats of every step of the plan, in encryption order
+        public List<RoundStats> getSteps() {
+            return steps;
+        }
+
+        // EFFECTS: returns the stats of every round type, keyed by the type's name
+        public Map<String, RoundStats> getRoundTypes() {
+            return roundTypes;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package model;
+
+/*
+CipherMode is a mode of operation for encrypting messages longer than one block:
+ECB encrypts each block independently, CBC XORs each plaintext block with the previous ciphertext block
+(starting from the IV) before encrypting it, and CTR XORs the message with the encryption of successive
+counter blocks (starting from the IV), so it needs no padding.
+ */
+public enum CipherMode {
+    ECB(false, true),
+    CBC(true, true),
+    CTR(true, false);
+
+    private final boolean usesIv;
+    private final boolean padded;
+
+    CipherMode(boolean usesIv, boolean padded) {
+        this.usesIv = usesIv;
+        this.padded = padded;
+    }
+
+    // EFFECTS: returns true if the mode needs a blockSize-length IV (the initial counter block for CTR)
+    public boolean usesIv() {
+        return usesIv;
+    }
+
+    // EFFECTS: returns true if messages are padded to a multiple of the block size
+    public boolean isPadded() {
+        return padded;
+    }
+}
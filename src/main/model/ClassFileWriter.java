@@ -0,0 +1,212 @@
+package model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ClassFileWriter assembles a Java 11 class file from fields and methods whose code is given as raw bytecode.
+It only supports what generated ciphers need: constant pool entries for classes, strings, integers, fields
+and methods, and methods without branches, exception handlers or attributes of their own (code without
+branches needs no stack map frames).
+ */
+final class ClassFileWriter {
+    static final int ACC_STATIC = 0x0008;
+    static final int ACC_FINAL = 0x0010;
+    static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_SUPER = 0x0020;
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final int JAVA_11 = 55;
+    private static final int MAX_CODE_LENGTH = 65535;
+
+    private final Buffer pool = new Buffer();
+    private final Map<String, Integer> poolIndex = new HashMap<>();
+    private int poolCount = 1;
+    private final Buffer fields = new Buffer();
+    private int fieldCount;
+    private final Buffer methods = new Buffer();
+    private int methodCount;
+    private final int thisClass;
+    private final int superClass;
+    private final int[] interfaces;
+
+    /*
+    Buffer is a growable big-endian byte array.
+     */
+    static final class Buffer {
+        private byte[] data = new byte[256];
+        private int length;
+
+        // MODIFIES: this
+        // EFFECTS: appends the low byte of value
+        Buffer u1(int value) {
+            if (length == data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            data[length++] = (byte) value;
+            return this;
+        }
+
+        // MODIFIES: this
+        // EFFECTS: appends the low two bytes of value
+        Buffer u2(int value) {
+            return u1(value >> 8).u1(value);
+        }
+
+        // MODIFIES: this
+        // EFFECTS: appends value
+        Buffer u4(int value) {
+            return u2(value >> 16).u2(value);
+        }
+
+        // MODIFIES: this
+        // EFFECTS: appends bytes
+        Buffer bytes(byte[] bytes) {
+            for (byte b : bytes) {
+                u1(b);
+            }
+            return this;
+        }
+
+        int length() {
+            return length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(data, length);
+        }
+    }
+
+    // EFFECTS: constructs a writer for a final class with the given internal name (e.g. "model/Foo") that
+    // extends superName and implements interfaceNames
+    ClassFileWriter(String name, String superName, String... interfaceNames) {
+        thisClass = classRef(name);
+        superClass = classRef(superName);
+        interfaces = new int[interfaceNames.length];
+        for (int i = 0; i < interfaceNames.length; i++) {
+            interfaces[i] = classRef(interfaceNames[i]);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the index of the UTF-8 constant value, adding it if needed
+    int utf8(String value) {
+        Integer index = poolIndex.get("U" + value);
+        if (index == null) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            index = addConstant("U" + value, new Buffer().u1(1).u2(bytes.length).bytes(bytes));
+        }
+        return index;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the index of the class constant for the given internal name, adding it if needed
+    int classRef(String name) {
+        return reference("C" + name, 7, utf8(name));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the index of the string constant value, adding it if needed
+    int stringRef(String value) {
+        return reference("S" + value, 8, utf8(value));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the index of the integer constant value, adding it if needed
+    int intRef(int value) {
+        Integer index = poolIndex.get("I" + value);
+        if (index == null) {
+            index = addConstant("I" + value, new Buffer().u1(3).u4(value));
+        }
+        return index;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the index of the reference to field name of owner with the given descriptor
+    int fieldRef(String owner, String name, String descriptor) {
+        return memberRef("F", 9, owner, name, descriptor);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the index of the reference to method name of class owner with the given descriptor
+    int methodRef(String owner, String name, String descriptor) {
+        return memberRef("M", 10, owner, name, descriptor);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the index of the field or method reference with the given tag, adding it if needed
+    private int memberRef(String kind, int tag, String owner, String name, String descriptor) {
+        String key = kind + owner + "." + name + descriptor;
+        Integer index = poolIndex.get(key);
+        if (index == null) {
+            int ownerIndex = classRef(owner);
+            int nameAndType = nameAndType(name, descriptor);
+            index = addConstant(key, new Buffer().u1(tag).u2(ownerIndex).u2(nameAndType));
+        }
+        return index;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the index of the name-and-type constant, adding it if needed
+    private int nameAndType(String name, String descriptor) {
+        String key = "N" + name + descriptor;
+        Integer index = poolIndex.get(key);
+        if (index == null) {
+            int nameIndex = utf8(name);
+            int descriptorIndex = utf8(descriptor);
+            index = addConstant(key, new Buffer().u1(12).u2(nameIndex).u2(descriptorIndex));
+        }
+        return index;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the index of the constant with a tag and one constant index, adding it if needed
+    private int reference(String key, int tag, int target) {
+        Integer index = poolIndex.get(key);
+        if (index == null) {
+            index = addConstant(key, new Buffer().u1(tag).u2(target));
+        }
+        return index;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds the encoded constant under key and returns its index
+    private int addConstant(String key, Buffer encoded) {
+        pool.bytes(encoded.toByteArray());
+        poolIndex.put(key, poolCount);
+        return poolCount++;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds a field with the given access flags, name and descriptor
+    void addField(int access, String name, String descriptor) {
+        fields.u2(access).u2(utf8(name)).u2(utf8(descriptor)).u2(0);
+        fieldCount++;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds a method whose body is code; throws IllegalArgumentException if code is too long for a method
+    void addMethod(int access, String name, String descriptor, int maxStack, int maxLocals, byte[] code) {
+        if (code.length > MAX_CODE_LENGTH) {
+            throw new IllegalArgumentException("method " + name + " needs " + code.length + " bytes of code");
+        }
+        methods.u2(access).u2(utf8(name)).u2(utf8(descriptor)).u2(1);
+        methods.u2(utf8("Code")).u4(12 + code.length).u2(maxStack).u2(maxLocals).u4(code.length).bytes(code);
+        methods.u2(0).u2(0);
+        methodCount++;
+    }
+
+    // EFFECTS: returns the class file
+    byte[] toByteArray() {
+        Buffer out = new Buffer();
+        out.u4(MAGIC).u2(0).u2(JAVA_11).u2(poolCount).bytes(pool.toByteArray());
+        out.u2(ACC_FINAL | ACC_SUPER).u2(thisClass).u2(superClass).u2(interfaces.length);
+        for (int index : interfaces) {
+            out.u2(index);
+        }
+        out.u2(fieldCount).bytes(fields.toByteArray());
+        out.u2(methodCount).bytes(methods.toByteArray());
+        return out.u2(0).toByteArray();
+    }
+}
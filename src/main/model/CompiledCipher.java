@@ -0,0 +1,19 @@
+package model;
+
+/*
+CompiledCipher is the code generated by CipherCompiler for the steps of an OptimizedPlan, with the steps,
+block size and lookup tables built in.
+ */
+interface CompiledCipher {
+    // REQUIRES: block should have at least blockSize bytes starting at offset; keys[i] should be the key of step i
+    // if it mixes in a key
+    // MODIFIES: block
+    // EFFECTS: encrypts the block in place by running every step in order
+    void encrypt(byte[] block, int offset, byte[][] keys);
+
+    // REQUIRES: block should have at least blockSize bytes starting at offset; keys[i] should be the key of step i
+    // if it mixes in a key
+    // MODIFIES: block
+    // EFFECTS: decrypts the block in place by running the inverse of every step in reverse order
+    void decrypt(byte[] block, int offset, byte[][] keys);
+}
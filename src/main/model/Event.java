@@ -1,6 +1,5 @@
 package model;
 
-import java.util.Calendar;
 import java.util.Date;
 
 
@@ -19,7 +18,17 @@ public class Event {
      * @param description a description of the event
      */
     public Event(String description) {
-        dateLogged = Calendar.getInstance().getTime();
+        this(description, EventClock.epochNanos());
+    }
+
+    /**
+     * Creates an event with the given description and time stamp.
+     *
+     * @param description a description of the event
+     * @param epochNanos  the time of the event in nanoseconds since the epoch
+     */
+    Event(String description, long epochNanos) {
+        dateLogged = new Date(epochNanos / 1_000_000L);
         this.description = description;
     }
 
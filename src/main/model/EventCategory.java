@@ -0,0 +1,29 @@
+package model;
+
+/*
+EventCategory is the kind of a hot-path operation that the EventLog counts instead of logging structural
+events one by one. Each category can be switched on or off; round execution is off by default since it
+happens several times per block.
+ */
+public enum EventCategory {
+    ENCRYPTION("Encrypted Message", true),
+    DECRYPTION("Decrypted Message", true),
+    ROUND("Executed Round", false);
+
+    private final String description;
+    private final boolean enabledByDefault;
+
+    EventCategory(String description, boolean enabledByDefault) {
+        this.description = description;
+        this.enabledByDefault = enabledByDefault;
+    }
+
+    // EFFECTS: returns the description of amount occurrences of this category
+    public String describe(long amount) {
+        return EventLog.describe(description, amount);
+    }
+
+    public boolean isEnabledByDefault() {
+        return enabledByDefault;
+    }
+}
@@ -0,0 +1,19 @@
+package model;
+
+/*
+EventClock timestamps events cheaply: it reads the wall clock once, when the class is loaded, and measures
+the time since then with the monotonic System.nanoTime, so taking a timestamp never allocates or consults
+the calendar and time zone.
+ */
+final class EventClock {
+    private static final long BASE_EPOCH_NANOS = System.currentTimeMillis() * 1_000_000L;
+    private static final long BASE_NANO_TIME = System.nanoTime();
+
+    private EventClock() {
+    }
+
+    // EFFECTS: returns the current time in nanoseconds since the epoch
+    static long epochNanos() {
+        return BASE_EPOCH_NANOS + (System.nanoTime() - BASE_NANO_TIME);
+    }
+}
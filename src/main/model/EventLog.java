@@ -1,26 +1,95 @@
 package model;
 
-import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Represents a log of cipher events.
  * We use the Singleton Design Pattern to ensure that there is only
  * one EventLog in the system and that the system has global access
  * to the single instance of the EventLog.
+ *
+ * The log keeps only the most recent events in a fixed-capacity ring
+ * buffer: once it is full, every new event replaces the oldest one.
+ * Logging is lock-free, so many encrypting threads can log at once
+ * without contending, and iterators are weakly consistent: they never
+ * throw ConcurrentModificationException and skip events that were
+ * replaced while iterating.
+ *
+ * Hot-path operations (encryption, decryption, round execution) are
+ * recorded with count rather than logEvent. Depending on the hot-path
+ * mode they are logged one Event at a time, added to striped per-category
+ * counters that are summarised into one Event per category every summary
+ * interval, or dropped; each category can also be switched off on its own.
+ *
+ * Events are stored in compact columns (a timestamp, a reference to
+ * the description and a count per event) and only turned back into
+ * Event objects while iterating. Descriptions are not interned, so
+ * descriptions built at runtime are freed once their events leave
+ * the log.
  */
 public class EventLog implements Iterable<Event> {
-    /** the only EventLog in the system (Singleton Design Pattern) */
-    private static EventLog theLog;
-    private Collection<Event> events;
+    /** number of events kept unless the blocky.eventlog.capacity system property says otherwise */
+    public static final int DEFAULT_CAPACITY = 4096;
+    /** milliseconds between summaries of the hot-path counters */
+    public static final long DEFAULT_SUMMARY_INTERVAL_MILLIS = 1000;
+
+    /**
+     * How hot-path operations are recorded.
+     */
+    public enum HotPathMode {
+        /** one Event per operation */
+        DETAILED,
+        /** per-category counters, summarised into Events every summary interval */
+        AGGREGATED,
+        /** not recorded at all */
+        OFF
+    }
+
+    /** the current ring; replaced as a whole by clear and setCapacity */
+    private volatile EventRing ring;
+    /** descriptions of single hot-path operations, indexed by category ordinal */
+    private final String[] categoryDescriptions = new String[EventCategory.values().length];
+    /** hot-path counters, indexed by category ordinal */
+    private final LongAdder[] counters = new LongAdder[EventCategory.values().length];
+    /** bit i is set if the category with ordinal i is recorded */
+    private volatile int enabledCategories;
+    private volatile HotPathMode hotPathMode;
+    private long summaryIntervalMillis = DEFAULT_SUMMARY_INTERVAL_MILLIS;
+    private ScheduledExecutorService summaries;
+    private ScheduledFuture<?> summaryTask;
+    /** events dropped from rings that have since been replaced, and drops of the current ring not counted */
+    private long retiredDrops;
+    private long ignoredDrops;
+
+    /**
+     * Holds the only EventLog in the system; the JVM initialises it
+     * safely on first use (Singleton Design Pattern).
+     */
+    private static class Holder {
+        private static final EventLog THE_LOG = new EventLog(Integer.getInteger("blocky.eventlog.capacity",
+                DEFAULT_CAPACITY), HotPathMode.valueOf(System.getProperty("blocky.eventlog.hotpath", "DETAILED")));
+    }
 
     /**
      * Prevent external construction.
      * (Singleton Design Pattern).
      */
-    private EventLog() {
-        events = new ArrayList<Event>();
+    private EventLog(int capacity, HotPathMode hotPathMode) {
+        ring = new EventRing(checkCapacity(capacity));
+        for (EventCategory category : EventCategory.values()) {
+            counters[category.ordinal()] = new LongAdder();
+            categoryDescriptions[category.ordinal()] = category.describe(1);
+            if (category.isEnabledByDefault()) {
+                enabledCategories |= 1 << category.ordinal();
+            }
+        }
+        setHotPathMode(hotPathMode);
     }
 
     /**
@@ -30,30 +99,250 @@ public class EventLog implements Iterable<Event> {
      * @return  instance of EventLog
      */
     public static EventLog getInstance() {
-        if (theLog == null) {
-            theLog = new EventLog();
-        }
-        return theLog;
+        return Holder.THE_LOG;
     }
 
     /**
-     * Adds an event to the event log.
+     * Adds an event to the event log, replacing the oldest
+     * event if the log is full.
      * @param e the event to be added
      */
     public void logEvent(Event e) {
-        events.add(e);
+        ring.add(e.getDate().getTime() * 1_000_000L, e.getDescription(), 1);
+    }
+
+    /**
+     * Adds an event with the given description and the current time
+     * to the event log, without creating an Event.
+     * @param description a description of the event
+     */
+    public void logEvent(String description) {
+        ring.add(EventClock.epochNanos(), description, 1);
+    }
+
+    /**
+     * Records one hot-path operation of the given category.
+     * @param category the category of the operation
+     */
+    public void count(EventCategory category) {
+        count(category, 1);
     }
 
     /**
-     * Clears the event log and logs the event.
+     * Records amount hot-path operations of the given category, unless
+     * the category or hot-path recording is switched off.
+     * @param category the category of the operations
+     * @param amount the number of operations
+     */
+    public void count(EventCategory category, long amount) {
+        if ((enabledCategories & (1 << category.ordinal())) == 0) {
+            return;
+        }
+        HotPathMode mode = hotPathMode;
+        if (mode == HotPathMode.AGGREGATED) {
+            counters[category.ordinal()].add(amount);
+        } else if (mode == HotPathMode.DETAILED) {
+            ring.add(EventClock.epochNanos(), categoryDescriptions[category.ordinal()], amount);
+        }
+    }
+
+    /**
+     * Logs one summary Event for every category counted since the
+     * last summary, and resets the counters.
+     */
+    public void flushCounters() {
+        for (EventCategory category : EventCategory.values()) {
+            long amount = counters[category.ordinal()].sumThenReset();
+            if (amount > 0) {
+                ring.add(EventClock.epochNanos(), categoryDescriptions[category.ordinal()], amount);
+            }
+        }
+    }
+
+    /**
+     * Clears the event log and the hot-path counters, and logs the event.
      */
     public void clear() {
-        events.clear();
+        replaceRing(new EventRing(ring.capacity()));
+        for (LongAdder counter : counters) {
+            counter.reset();
+        }
         logEvent(new Event("Event log cleared."));
     }
 
+    /**
+     * Changes how hot-path operations are recorded. Leaving aggregated
+     * mode logs a final summary of the counters.
+     * @param mode the new hot-path mode
+     */
+    public synchronized void setHotPathMode(HotPathMode mode) {
+        hotPathMode = mode;
+        if (mode != HotPathMode.AGGREGATED) {
+            flushCounters();
+        }
+        scheduleSummaries();
+    }
+
+    public HotPathMode getHotPathMode() {
+        return hotPathMode;
+    }
+
+    /**
+     * Switches recording of a hot-path category on or off.
+     * @param category the category
+     * @param enabled whether operations of the category are recorded
+     */
+    public synchronized void setCategoryEnabled(EventCategory category, boolean enabled) {
+        if (enabled) {
+            enabledCategories |= 1 << category.ordinal();
+        } else {
+            enabledCategories &= ~(1 << category.ordinal());
+        }
+    }
+
+    public boolean isCategoryEnabled(EventCategory category) {
+        return (enabledCategories & (1 << category.ordinal())) != 0;
+    }
+
+    /**
+     * Changes how often the hot-path counters are summarised in aggregated mode.
+     * @param millis the interval between summaries, at least 1 millisecond
+     * @throws IllegalArgumentException if millis is less than 1
+     */
+    public synchronized void setSummaryInterval(long millis) {
+        if (millis < 1) {
+            throw new IllegalArgumentException("summary interval must be at least 1 millisecond");
+        }
+        summaryIntervalMillis = millis;
+        scheduleSummaries();
+    }
+
+    public synchronized long getSummaryInterval() {
+        return summaryIntervalMillis;
+    }
+
+    /**
+     * Cancels the current summary task and, in aggregated mode, schedules
+     * a new one on a daemon thread at the current interval.
+     */
+    private synchronized void scheduleSummaries() {
+        if (summaryTask != null) {
+            summaryTask.cancel(false);
+            summaryTask = null;
+        }
+        if (hotPathMode != HotPathMode.AGGREGATED) {
+            return;
+        }
+        if (summaries == null) {
+            summaries = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "event-log-summaries");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        summaryTask = summaries.scheduleAtFixedRate(this::flushCounters, summaryIntervalMillis,
+                summaryIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Changes the number of events the log keeps, keeping the most
+     * recent ones. Events logged while the capacity changes may be lost.
+     * @param capacity the new capacity, at least 1
+     * @throws IllegalArgumentException if capacity is less than 1
+     */
+    public void setCapacity(int capacity) {
+        EventRing resized = new EventRing(checkCapacity(capacity));
+        resized.addAll(ring);
+        replaceRing(resized);
+    }
+
+    /**
+     * Makes the given ring the current one, remembering how many events
+     * the old ring dropped.
+     */
+    private synchronized void replaceRing(EventRing replacement) {
+        retiredDrops += ring.dropped() - ignoredDrops;
+        ignoredDrops = 0;
+        ring = replacement;
+    }
+
+    /**
+     * Gets the number of events that were replaced by newer ones because
+     * the log was full, since the drop count was last reset. Events
+     * discarded by clear are not counted as dropped.
+     * @return the number of dropped events
+     */
+    public synchronized long getDroppedCount() {
+        return retiredDrops + ring.dropped() - ignoredDrops;
+    }
+
+    /**
+     * Resets the drop count to zero.
+     */
+    public synchronized void resetDroppedCount() {
+        retiredDrops = 0;
+        ignoredDrops = ring.dropped();
+    }
+
+    /**
+     * Gets the number of events the log keeps.
+     * @return the capacity of the log
+     */
+    public int getCapacity() {
+        return ring.capacity();
+    }
+
+    /**
+     * Gets the number of events currently in the log.
+     * @return the number of events, at most the capacity
+     */
+    public int size() {
+        return ring.size();
+    }
+
+    /**
+     * Returns an iterator over the events in the log, oldest first. It is
+     * weakly consistent: it covers the events logged before it was created
+     * and skips any that are replaced while iterating.
+     */
     @Override
     public Iterator<Event> iterator() {
-        return events.iterator();
+        EventRing.Cursor cursor = ring.cursor();
+        return new Iterator<Event>() {
+            private boolean advanced;
+            private boolean available;
+
+            @Override
+            public boolean hasNext() {
+                if (!advanced) {
+                    available = cursor.advance();
+                    advanced = true;
+                }
+                return available;
+            }
+
+            @Override
+            public Event next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                advanced = false;
+                return new Event(describe(cursor.description(), cursor.payload()), cursor.timestamp());
+            }
+        };
+    }
+
+    /**
+     * Returns the description of an event that happened count times.
+     */
+    static String describe(String description, long count) {
+        return count == 1 ? description : description + " (" + count + " times)";
+    }
+
+    private static int checkCapacity(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("event log capacity must be at least 1");
+        }
+        return capacity;
     }
 }
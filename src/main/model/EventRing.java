@@ -0,0 +1,128 @@
+package model;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/*
+EventRing is the storage behind EventLog: a fixed-capacity ring of event records kept in parallel columns
+(timestamp, description and payload) instead of one object per event. Descriptions are stored by reference,
+so the memory the ring holds on to is bounded by its capacity however many different descriptions are logged.
+Writers claim a sequence number and fill slot sequence % capacity, so once the ring is full each new record
+replaces the oldest one.
+
+A slot's sequence column is set to -1 while the slot is being written and to the record's sequence number
+once it is complete. Readers check that column before and after reading the other columns, and skip records
+that were incomplete or replaced in between.
+ */
+final class EventRing {
+    private static final long WRITING = -1;
+
+    private final AtomicLongArray sequences;
+    private final AtomicLongArray timestamps;
+    private final AtomicReferenceArray<String> descriptions;
+    private final AtomicLongArray payloads;
+    private final AtomicLong next = new AtomicLong();
+
+    // REQUIRES: capacity > 0
+    // EFFECTS: constructs an empty ring that keeps the last capacity records
+    EventRing(int capacity) {
+        sequences = new AtomicLongArray(capacity);
+        timestamps = new AtomicLongArray(capacity);
+        descriptions = new AtomicReferenceArray<>(capacity);
+        payloads = new AtomicLongArray(capacity);
+        for (int slot = 0; slot < capacity; slot++) {
+            sequences.set(slot, WRITING);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds a record, replacing the oldest one if the ring is full
+    void add(long epochNanos, String description, long payload) {
+        long sequence = next.getAndIncrement();
+        int slot = (int) (sequence % sequences.length());
+        // ordered stores keep the columns from becoming visible before the slot is marked as being written
+        sequences.lazySet(slot, WRITING);
+        timestamps.lazySet(slot, epochNanos);
+        descriptions.lazySet(slot, description);
+        payloads.lazySet(slot, payload);
+        sequences.lazySet(slot, sequence);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds every record of other, oldest first
+    void addAll(EventRing other) {
+        Cursor cursor = other.cursor();
+        while (cursor.advance()) {
+            add(cursor.timestamp, cursor.description, cursor.payload);
+        }
+    }
+
+    int capacity() {
+        return sequences.length();
+    }
+
+    // EFFECTS: returns the number of records in the ring
+    int size() {
+        return (int) Math.min(next.get(), sequences.length());
+    }
+
+    // EFFECTS: returns the number of records that have been replaced by newer ones
+    long dropped() {
+        return Math.max(0, next.get() - sequences.length());
+    }
+
+    // EFFECTS: returns a cursor over the records added before it was created, oldest first
+    Cursor cursor() {
+        long end = next.get();
+        return new Cursor(Math.max(0, end - sequences.length()), end);
+    }
+
+    /*
+    Cursor reads the records with sequence numbers in [start, end) one at a time, skipping records
+    that are not complete or have been replaced.
+     */
+    final class Cursor {
+        private final long end;
+        private long sequence;
+        private long timestamp;
+        private String description;
+        private long payload;
+
+        private Cursor(long start, long end) {
+            this.sequence = start;
+            this.end = end;
+        }
+
+        // MODIFIES: this
+        // EFFECTS: moves to the next complete record and returns true, or returns false if there is none
+        boolean advance() {
+            for (; sequence < end; sequence++) {
+                int slot = (int) (sequence % sequences.length());
+                if (sequences.get(slot) != sequence) {
+                    continue;
+                }
+                timestamp = timestamps.get(slot);
+                description = descriptions.get(slot);
+                payload = payloads.get(slot);
+                if (sequences.get(slot) == sequence) {
+                    sequence++;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        long timestamp() {
+            return timestamp;
+        }
+
+        String description() {
+            return description;
+        }
+
+        long payload() {
+            return payload;
+        }
+    }
+}
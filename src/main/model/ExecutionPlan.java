@@ -0,0 +1,288 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ExecutionPlan is the immutable sequence of steps a Cipher runs for each block. Each run of two or more
+consecutive substitution rounds is collapsed into a single fused round, and every mix-key round is bound
+to its key slot so keys are taken from the KeySchedule of each call instead of being stored in the round.
+An instrumented plan also times every step and block into its CipherMetrics; an uninstrumented plan only
+pays for checking that it has no metrics. Either kind counts its blocks into the cipher's BlockStatistics,
+if it has any, and times a sample of its calls. Uninstrumented plans for 4-, 8- and 16-byte blocks run their steps
+on the block held in registers (see WordKernel) when every step is a built-in round. Other uninstrumented
+plans can also run many independent blocks step by step, so that key mixes and substitutions each make one
+pass over a batch of blocks instead of one call per block.
+ */
+final class ExecutionPlan {
+    // the most bytes of blocks run step by step at once, small enough to stay in the CPU's cache
+    private static final int BATCH_BYTES = 4096;
+
+    private final Round[] steps;
+    // keySlots[i] is the key slot of steps[i] if it is a mix-key round, and -1 otherwise
+    private final int[] keySlots;
+    private final int numberOfKeySlots;
+    private final int numberOfRounds;
+    private final int blockSize;
+    private final CipherMetrics metrics;
+    private final WordKernel kernel;
+    private final BlockStatistics statistics;
+    // false if the rounds run are not counted in the EventLog
+    private final boolean counted;
+
+    // EFFECTS: builds an uncounted execution plan of the given rounds, which records nothing anywhere: no
+    // metrics, no block statistics and no rounds in the EventLog
+    ExecutionPlan(List<Round> rounds, int blockSize) {
+        this(rounds, blockSize, false, null, false);
+    }
+
+    // EFFECTS: builds the execution plan of the given rounds, recording latencies into new metrics
+    // if instrumented is true and counting blocks into statistics unless it is null
+    ExecutionPlan(List<Round> rounds, int blockSize, boolean instrumented, BlockStatistics statistics) {
+        this(rounds, blockSize, instrumented, statistics, true);
+    }
+
+    private ExecutionPlan(List<Round> rounds, int blockSize, boolean instrumented, BlockStatistics statistics,
+                          boolean counted) {
+        this.blockSize = blockSize;
+        this.statistics = statistics;
+        this.counted = counted;
+        numberOfRounds = rounds.size();
+        steps = buildSteps(rounds);
+        keySlots = new int[steps.length];
+        int slot = 0;
+        for (int i = 0; i < steps.length; i++) {
+            if (steps[i] instanceof MixKeyRound) {
+                keySlots[i] = slot;
+                slot++;
+            } else {
+                keySlots[i] = -1;
+            }
+        }
+        numberOfKeySlots = slot;
+        metrics = instrumented ? buildMetrics() : null;
+        kernel = instrumented ? null : WordKernel.of(steps, keySlots, blockSize);
+    }
+
+    // EFFECTS: returns empty metrics for the steps of this plan
+    private CipherMetrics buildMetrics() {
+        String[] types = new String[steps.length];
+        int[] firstRounds = new int[steps.length];
+        int[] lastRounds = new int[steps.length];
+        int round = 0;
+        for (int i = 0; i < steps.length; i++) {
+            int length = 1;
+            if (steps[i] instanceof FusedSubstitutionRound) {
+                length = ((FusedSubstitutionRound) steps[i]).getNumberOfMembers();
+            }
+            types[i] = typeOf(steps[i]);
+            firstRounds[i] = round;
+            lastRounds[i] = round + length - 1;
+            round += length;
+        }
+        return new CipherMetrics(blockSize, types, firstRounds, lastRounds);
+    }
+
+    // EFFECTS: returns the name of the type of round that step is, as used in saved ciphers
+    private static String typeOf(Round step) {
+        if (step instanceof MixKeyRound) {
+            return "MixKey";
+        } else if (step instanceof PermutationRound) {
+            return "Permutation";
+        } else if (step instanceof SubstitutionRound || step instanceof FusedSubstitutionRound) {
+            return "Substitution";
+        }
+        return step.getClass().getSimpleName();
+    }
+
+    // EFFECTS: returns the rounds with each run of consecutive substitution rounds fused together
+    private static Round[] buildSteps(List<Round> rounds) {
+        ArrayList<Round> steps = new ArrayList<>();
+        int start = 0;
+        while (start < rounds.size()) {
+            int end = start;
+            ArrayList<SubstitutionRound> run = new ArrayList<>();
+            while (end < rounds.size() && rounds.get(end) instanceof SubstitutionRound) {
+                run.add((SubstitutionRound) rounds.get(end));
+                end++;
+            }
+            if (run.size() >= 2) {
+                steps.add(new FusedSubstitutionRound(run));
+                start = end;
+            } else {
+                steps.add(rounds.get(start));
+                start++;
+            }
+        }
+        return steps.toArray(new Round[0]);
+    }
+
+    // REQUIRES: src should have at least blockSize bytes starting at srcOffset,
+    // dst should have room for blockSize bytes starting at dstOffset
+    // MODIFIES: dst
+    // EFFECTS: encrypts the block of src into dst with the given keys; src and dst may be the same block;
+    // throws IllegalArgumentException if keys does not cover every key slot of the plan
+    void encrypt(byte[] src, int srcOffset, byte[] dst, int dstOffset, KeySchedule keys) {
+        runBlocks(src, srcOffset, dst, dstOffset, 1, keys, true);
+    }
+
+    // REQUIRES: src should have at least blockSize bytes starting at srcOffset,
+    // dst should have room for blockSize bytes starting at dstOffset
+    // MODIFIES: dst
+    // EFFECTS: decrypts the block of src into dst with the given keys; src and dst may be the same block;
+    // throws IllegalArgumentException if keys does not cover every key slot of the plan
+    void decrypt(byte[] src, int srcOffset, byte[] dst, int dstOffset, KeySchedule keys) {
+        runBlocks(src, srcOffset, dst, dstOffset, 1, keys, false);
+    }
+
+    // REQUIRES: src should have at least numberOfBlocks * blockSize bytes starting at srcOffset,
+    // dst should have room for as many bytes starting at dstOffset
+    // MODIFIES: dst
+    // EFFECTS: encrypts numberOfBlocks consecutive blocks of src independently (as in ECB mode) into dst with the
+    // given keys; src and dst may overlap. Throws IllegalArgumentException if keys does not cover every key slot
+    void encryptBlocks(byte[] src, int srcOffset, byte[] dst, int dstOffset, int numberOfBlocks, KeySchedule keys) {
+        runBlocks(src, srcOffset, dst, dstOffset, numberOfBlocks, keys, true);
+    }
+
+    // REQUIRES: src should have at least numberOfBlocks * blockSize bytes starting at srcOffset,
+    // dst should have room for as many bytes starting at dstOffset
+    // MODIFIES: dst
+    // EFFECTS: decrypts numberOfBlocks consecutive blocks of src independently (as in ECB mode) into dst with the
+    // given keys; src and dst may overlap. Throws IllegalArgumentException if keys does not cover every key slot
+    void decryptBlocks(byte[] src, int srcOffset, byte[] dst, int dstOffset, int numberOfBlocks, KeySchedule keys) {
+        runBlocks(src, srcOffset, dst, dstOffset, numberOfBlocks, keys, false);
+    }
+
+    // MODIFIES: dst, metrics, statistics
+    // EFFECTS: copies the blocks of src into dst and encrypts or decrypts them there, one block at a time if the
+    // plan is instrumented or has a word kernel, and otherwise one batch of blocks at a time
+    private void runBlocks(byte[] src, int srcOffset, byte[] dst, int dstOffset, int numberOfBlocks,
+                           KeySchedule keys, boolean encrypting) {
+        checkKeys(keys);
+        if (counted) {
+            EventLog.getInstance().count(EventCategory.ROUND, (long) numberOfRounds * numberOfBlocks);
+        }
+        System.arraycopy(src, srcOffset, dst, dstOffset, numberOfBlocks * blockSize);
+        long start = statistics == null ? 0 : statistics.start(numberOfBlocks);
+        if (metrics != null || kernel != null || numberOfBlocks == 1) {
+            for (int block = dstOffset; block < dstOffset + numberOfBlocks * blockSize; block += blockSize) {
+                runBlock(dst, block, keys, encrypting);
+            }
+        } else {
+            int batch = Math.max(1, BATCH_BYTES / blockSize);
+            for (int first = 0; first < numberOfBlocks; first += batch) {
+                runBatch(dst, dstOffset + first * blockSize, Math.min(batch, numberOfBlocks - first), keys,
+                        encrypting);
+            }
+        }
+        if (statistics != null) {
+            statistics.finish(encrypting, numberOfBlocks, start);
+        }
+    }
+
+    // MODIFIES: block, metrics
+    // EFFECTS: encrypts or decrypts the block in place, with the word kernel if the plan has one
+    private void runBlock(byte[] block, int offset, KeySchedule keys, boolean encrypting) {
+        if (metrics != null) {
+            runInstrumented(block, offset, keys, encrypting);
+        } else if (kernel != null) {
+            kernel.run(block, offset, keys, encrypting);
+        } else {
+            for (int n = 0; n < steps.length; n++) {
+                int i = encrypting ? n : steps.length - 1 - n;
+                if (keySlots[i] >= 0) {
+                    ((MixKeyRound) steps[i]).mixBlock(keys.getKey(keySlots[i]), block, offset, block, offset);
+                } else if (encrypting) {
+                    steps[i].encryptBlock(block, offset, block, offset);
+                } else {
+                    steps[i].decryptBlock(block, offset, block, offset);
+                }
+            }
+        }
+    }
+
+    // MODIFIES: buffer
+    // EFFECTS: encrypts or decrypts count consecutive blocks of buffer in place, running each step on every
+    // block before the next step
+    private void runBatch(byte[] buffer, int offset, int count, KeySchedule keys, boolean encrypting) {
+        for (int n = 0; n < steps.length; n++) {
+            int i = encrypting ? n : steps.length - 1 - n;
+            SubstitutionTable table = substitutionTable(steps[i], encrypting);
+            if (keySlots[i] >= 0) {
+                int slot = keySlots[i];
+                ((MixKeyRound) steps[i]).mixBlocks(keys.getKey(slot), keys.getRepeatedKey(slot), buffer, offset, count);
+            } else if (table != null) {
+                table.apply(buffer, offset, buffer, offset, count * blockSize);
+            } else {
+                for (int block = offset; block < offset + count * blockSize; block += blockSize) {
+                    if (encrypting) {
+                        steps[i].encryptBlock(buffer, block, buffer, block);
+                    } else {
+                        steps[i].decryptBlock(buffer, block, buffer, block);
+                    }
+                }
+            }
+        }
+    }
+
+    // EFFECTS: returns the table that substitutes every byte of a block for step (its inverse if encrypting is
+    // false), or null if step is not a substitution
+    private static SubstitutionTable substitutionTable(Round step, boolean encrypting) {
+        if (step instanceof SubstitutionRound) {
+            SubstitutionRound round = (SubstitutionRound) step;
+            return encrypting ? round.getEncryptTable() : round.getDecryptTable();
+        } else if (step instanceof FusedSubstitutionRound) {
+            FusedSubstitutionRound round = (FusedSubstitutionRound) step;
+            return encrypting ? round.getEncryptTable() : round.getDecryptTable();
+        }
+        return null;
+    }
+
+    // MODIFIES: block, metrics
+    // EFFECTS: encrypts or decrypts the block in place, recording the latency of every step and of the block
+    private void runInstrumented(byte[] block, int offset, KeySchedule keys, boolean encrypting) {
+        long blockStart = System.nanoTime();
+        for (int n = 0; n < steps.length; n++) {
+            int i = encrypting ? n : steps.length - 1 - n;
+            long start = System.nanoTime();
+            if (keySlots[i] >= 0) {
+                ((MixKeyRound) steps[i]).mixBlock(keys.getKey(keySlots[i]), block, offset, block, offset);
+            } else if (encrypting) {
+                steps[i].encryptBlock(block, offset, block, offset);
+            } else {
+                steps[i].decryptBlock(block, offset, block, offset);
+            }
+            metrics.recordStep(i, encrypting, System.nanoTime() - start);
+        }
+        metrics.recordBlock(encrypting, System.nanoTime() - blockStart);
+    }
+
+    // EFFECTS: throws IllegalArgumentException if keys does not match the key slots of this plan
+    private void checkKeys(KeySchedule keys) {
+        if (keys.getNumberOfKeys() != numberOfKeySlots || keys.getBlockSize() != blockSize) {
+            throw new IllegalArgumentException("key schedule does not match the cipher's key rounds");
+        }
+    }
+
+    int getNumberOfKeySlots() {
+        return numberOfKeySlots;
+    }
+
+    int getNumberOfRounds() {
+        return numberOfRounds;
+    }
+
+    int getBlockSize() {
+        return blockSize;
+    }
+
+    // EFFECTS: returns true if blocks are run by a WordKernel
+    boolean usesWordKernel() {
+        return kernel != null;
+    }
+
+    // EFFECTS: returns the metrics of this plan, or null if it is not instrumented
+    CipherMetrics getMetrics() {
+        return metrics;
+    }
+}
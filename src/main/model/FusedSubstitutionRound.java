@@ -0,0 +1,100 @@
+package model;
+
+import org.json.JSONObject;
+
+import java.util.List;
+
+/*
+FusedSubstitutionRound runs a sequence of consecutive SubstitutionRounds with a single composed byte table,
+so stacking substitution layers costs one lookup per byte. It is only used inside a Cipher's execution plan
+and recomposes its tables whenever one of the underlying rounds changes its mapping.
+ */
+final class FusedSubstitutionRound implements Round {
+    private final SubstitutionRound[] members;
+    private final int[] versions;
+    private final int blockSize;
+    private volatile SubstitutionTable[] tables;
+
+    // REQUIRES: members should be non-empty and all have the same block size
+    // EFFECTS: constructs a round equivalent to applying members in order
+    FusedSubstitutionRound(List<SubstitutionRound> members) {
+        this.members = members.toArray(new SubstitutionRound[0]);
+        this.versions = new int[this.members.length];
+        this.blockSize = this.members[0].getBlockSize();
+        compose();
+    }
+
+    @Override
+    // MODIFIES: dst
+    // EFFECTS: writes the block of src into dst, substituted by every member round in order
+    public void encryptBlock(byte[] src, int srcOffset, byte[] dst, int dstOffset) {
+        currentTables()[0].apply(src, srcOffset, dst, dstOffset, blockSize);
+    }
+
+    @Override
+    // MODIFIES: dst
+    // EFFECTS: writes the block of src into dst, un-substituted by every member round in reverse order
+    public void decryptBlock(byte[] src, int srcOffset, byte[] dst, int dstOffset) {
+        currentTables()[1].apply(src, srcOffset, dst, dstOffset, blockSize);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the composed encryption and decryption tables, recomposing them first
+    // if any member round has changed since they were built
+    private SubstitutionTable[] currentTables() {
+        for (int i = 0; i < members.length; i++) {
+            if (members[i].getVersion() != versions[i]) {
+                compose();
+                break;
+            }
+        }
+        return tables;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: composes the member rounds' tables into one encryption and one decryption table
+    private void compose() {
+        SubstitutionTable encrypt = members[0].getEncryptTable();
+        SubstitutionTable decrypt = members[members.length - 1].getDecryptTable();
+        boolean wide = members[0].isWideTableEnabled();
+        for (int i = 1; i < members.length; i++) {
+            encrypt = encrypt.then(members[i].getEncryptTable());
+            decrypt = decrypt.then(members[members.length - 1 - i].getDecryptTable());
+            wide |= members[i].isWideTableEnabled();
+        }
+        if (wide) {
+            encrypt.enableWideTable();
+            decrypt.enableWideTable();
+        }
+        for (int i = 0; i < members.length; i++) {
+            versions[i] = members[i].getVersion();
+        }
+        tables = new SubstitutionTable[]{encrypt, decrypt};
+    }
+
+    // EFFECTS: returns the composed encryption table, recomposing it first if a member round has changed
+    SubstitutionTable getEncryptTable() {
+        return currentTables()[0];
+    }
+
+    // EFFECTS: returns the composed decryption table, recomposing it first if a member round has changed
+    SubstitutionTable getDecryptTable() {
+        return currentTables()[1];
+    }
+
+    int getNumberOfMembers() {
+        return members.length;
+    }
+
+    @Override
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    @Override
+    // EFFECTS: throws UnsupportedOperationException; fused rounds only exist inside an execution plan,
+    // the member rounds are serialized instead
+    public JSONObject toJson() {
+        throw new UnsupportedOperationException("fused rounds are not serialized");
+    }
+}
@@ -0,0 +1,70 @@
+package model;
+
+import java.util.Arrays;
+import java.util.List;
+
+/*
+KeySchedule holds the key material for one use of a cipher: one key per mix-key round (key slot),
+in the order the mix-key rounds appear in the cipher. It is immutable, so a single Cipher can be used
+by many threads at once, each passing its own KeySchedule.
+ */
+public final class KeySchedule {
+    private final byte[][] keys;
+    // repeatedKeys[slot] is keys[slot] repeated for key mixes over many blocks (see MixKeyRound.repeat)
+    private final byte[][] repeatedKeys;
+    private final int blockSize;
+
+    // EFFECTS: constructs a key schedule for the key slots of cipher from copies of the given keys;
+    // throws IllegalArgumentException if the number of keys differs from the number of key rounds,
+    // or if any key's length differs from the cipher's block size
+    public KeySchedule(Cipher cipher, List<byte[]> keys) {
+        if (keys.size() != cipher.getNumberOfKeyRounds()) {
+            throw new IllegalArgumentException("expected " + cipher.getNumberOfKeyRounds()
+                    + " keys but got " + keys.size());
+        }
+        this.blockSize = cipher.getBlockSize();
+        this.keys = new byte[keys.size()][];
+        repeatedKeys = new byte[keys.size()][];
+        for (int i = 0; i < keys.size(); i++) {
+            if (keys.get(i).length != blockSize) {
+                throw new IllegalArgumentException("key " + i + " should have length " + blockSize);
+            }
+            this.keys[i] = keys.get(i).clone();
+            repeatedKeys[i] = MixKeyRound.repeat(this.keys[i], blockSize);
+        }
+    }
+
+    // REQUIRES: 0 <= slot < getNumberOfKeys()
+    // EFFECTS: returns the key for the given key slot; callers should not modify the returned array
+    byte[] getKey(int slot) {
+        return keys[slot];
+    }
+
+    // REQUIRES: 0 <= slot < getNumberOfKeys()
+    // EFFECTS: returns the key for the given key slot repeated as by MixKeyRound.repeat, which is null if the
+    // block size does not divide 8; callers should not modify the returned array
+    byte[] getRepeatedKey(int slot) {
+        return repeatedKeys[slot];
+    }
+
+    // EFFECTS: returns true if keys has exactly the keys of this schedule, in the same order
+    boolean holds(List<byte[]> keys) {
+        if (keys.size() != this.keys.length) {
+            return false;
+        }
+        for (int i = 0; i < this.keys.length; i++) {
+            if (!Arrays.equals(keys.get(i), this.keys[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int getNumberOfKeys() {
+        return keys.length;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+}
@@ -0,0 +1,127 @@
+package model;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+LatencyHistogram counts latencies in nanoseconds in logarithmic buckets: every power of two is split into
+SUB_BUCKETS equal sub-buckets, so any recorded value is known to within 25% while the whole range of a long
+fits in a fixed array. Recording never allocates and is safe from many threads at once.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = 64 * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    // MODIFIES: this
+    // EFFECTS: records one latency of the given number of nanoseconds (negative values count as 0)
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        count.incrementAndGet();
+        total.addAndGet(value);
+        long currentMax = max.get();
+        while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+            currentMax = max.get();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: discards every recorded latency
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.set(0);
+        total.set(0);
+        max.set(0);
+    }
+
+    // EFFECTS: returns a copy of the recorded latencies; latencies recorded while copying may or may not
+    // be included
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+        }
+        return new Snapshot(copy, count.get(), total.get(), max.get());
+    }
+
+    // EFFECTS: returns the bucket that value falls in
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return exponent * SUB_BUCKETS + subBucket;
+    }
+
+    // EFFECTS: returns the largest value that falls in the given bucket
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS;
+        long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+        return lower + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    /*
+    Snapshot is an immutable copy of a LatencyHistogram at some point in time.
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long total;
+        private final long max;
+
+        private Snapshot(long[] counts, long count, long total, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.total = total;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getTotalNanos() {
+            return total;
+        }
+
+        public long getMaxNanos() {
+            return max;
+        }
+
+        // EFFECTS: returns the mean latency in nanoseconds, or 0 if nothing was recorded
+        public double getMeanNanos() {
+            return count == 0 ? 0 : (double) total / count;
+        }
+
+        // REQUIRES: 0 <= percentile <= 100
+        // EFFECTS: returns an upper bound (within 25%) of the latency below which the given percentage of
+        // recorded latencies fall, never more than the maximum; returns 0 if nothing was recorded
+        public long getPercentileNanos(double percentile) {
+            long bucketTotal = 0;
+            for (long bucketCount : counts) {
+                bucketTotal += bucketCount;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * bucketTotal));
+            long seen = 0;
+            for (int bucket = 0; bucket < counts.length; bucket++) {
+                seen += counts[bucket];
+                if (seen >= rank) {
+                    return Math.min(upperBoundOf(bucket), max);
+                }
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package model;
+
+/*
+Mappings holds checks on the integer mappings that substitution and permutation rounds are built from.
+ */
+public final class Mappings {
+    private Mappings() {
+    }
+
+    // EFFECTS: returns true if mapping has the given length and contains each of the numbers 0 to length - 1
+    // exactly once
+    public static boolean isPermutation(int[] mapping, int length) {
+        if (mapping == null || mapping.length != length) {
+            return false;
+        }
+        boolean[] seen = new boolean[length];
+        for (int value : mapping) {
+            if (value < 0 || value >= length || seen[value]) {
+                return false;
+            }
+            seen[value] = true;
+        }
+        return true;
+    }
+}
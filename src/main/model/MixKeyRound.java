@@ -3,11 +3,20 @@ package model;
 import org.json.JSONObject;
 import persistence.Writeable;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
 /*
-MixKeyRound represents a round for mixing in the key using XOR on each bit
+MixKeyRound represents a round for mixing in the key using XOR on each bit.
+Keys are XOR-ed into blocks in place a vector at a time if there is a VectorBackend, then 8 bytes at a time,
+through a long view of the byte arrays, with a byte-by-byte tail.
  */
 public class MixKeyRound implements Round {
-    private Byte[] key;
+    // XOR does not depend on byte order, so the platform's own order avoids byte swaps
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private byte[] key;
     private int blockSize;
 
     // REQUIRES: blockSize should be the same as the cipher's block size (in bytes)
@@ -15,29 +24,103 @@ public class MixKeyRound implements Round {
     // initialized with null bytes
     public MixKeyRound(int blockSize) {
         this.blockSize = blockSize;
-        key = new Byte[blockSize];
-        for (int i = 0; i < blockSize; i++) {
-            key[i] = 0;
-        }
+        key = new byte[blockSize];
     }
 
     @Override
-    // REQUIRES: inputBytes should have length equal to blockSize of the cipher
-    // EFFECTS: returns an encrypted bytearray by XOR-ing with each bit of the key
-    public Byte[] encryptRound(Byte[] inputBytes) {
-        Byte[] output = new Byte[blockSize];
-        for (int i = 0; i < blockSize; i++) {
-            output[i] = (byte) (inputBytes[i] ^ key[i]);
-        }
-        return output;
+    // MODIFIES: dst
+    // EFFECTS: writes the block of src XOR-ed with each bit of the key into dst
+    public void encryptBlock(byte[] src, int srcOffset, byte[] dst, int dstOffset) {
+        mixBlock(key, src, srcOffset, dst, dstOffset);
     }
 
     @Override
-    // REQUIRES: inputBytes should have length equal to blockSize of the cipher
-    // EFFECTS: returns a decrypted bytearray by XOR-ing with each bit of the key
-    public Byte[] decryptRound(Byte[] inputBytes) {
+    // MODIFIES: dst
+    // EFFECTS: writes the block of src XOR-ed with each bit of the key into dst
+    public void decryptBlock(byte[] src, int srcOffset, byte[] dst, int dstOffset) {
         // decryption and encryption are equivalent for XOR
-        return encryptRound(inputBytes);
+        encryptBlock(src, srcOffset, dst, dstOffset);
+    }
+
+    // REQUIRES: key should have length blockSize, src should have at least blockSize bytes
+    // starting at srcOffset, dst should have room for blockSize bytes starting at dstOffset
+    // MODIFIES: dst
+    // EFFECTS: writes the block of src XOR-ed with the given key into dst, without using or changing
+    // the round's own key; src and dst may be the same block (same array and offset)
+    public void mixBlock(byte[] key, byte[] src, int srcOffset, byte[] dst, int dstOffset) {
+        xor(key, src, srcOffset, dst, dstOffset, blockSize);
+    }
+
+    // REQUIRES: key should have length blockSize, buffer should have at least numberOfBlocks * blockSize bytes
+    // starting at offset
+    // MODIFIES: buffer
+    // EFFECTS: XORs the given key into each of numberOfBlocks consecutive blocks of buffer in one pass, as if
+    // mixBlock were called on each block in place
+    public void mixBlocks(byte[] key, byte[] buffer, int offset, int numberOfBlocks) {
+        mixBlocks(key, repeat(key, blockSize), buffer, offset, numberOfBlocks);
+    }
+
+    // REQUIRES: key should have length blockSize, repeated should be repeat(key, blockSize), buffer should have
+    // at least numberOfBlocks * blockSize bytes starting at offset
+    // MODIFIES: buffer
+    // EFFECTS: XORs the given key into each of numberOfBlocks consecutive blocks of buffer as in mixBlocks, using
+    // the key already repeated so that nothing is allocated
+    void mixBlocks(byte[] key, byte[] repeated, byte[] buffer, int offset, int numberOfBlocks) {
+        int length = numberOfBlocks * blockSize;
+        if (repeated == null) {
+            for (int block = offset; block < offset + length; block += blockSize) {
+                xor(key, buffer, block, buffer, block, blockSize);
+            }
+            return;
+        }
+        // blocks of 1, 2, 4 or 8 bytes tile a long, so the whole buffer is XOR-ed with the key repeated
+        VectorBackend vector = VectorSupport.backend();
+        int i = vector == null ? 0 : vector.xorPattern(repeated, buffer, offset, length);
+        long pattern = (long) LONGS.get(repeated, 0);
+        for (; i + Long.BYTES <= length; i += Long.BYTES) {
+            LONGS.set(buffer, offset + i, (long) LONGS.get(buffer, offset + i) ^ pattern);
+        }
+        for (; i < length; i++) {
+            buffer[offset + i] ^= key[i % blockSize];
+        }
+    }
+
+    // REQUIRES: key should have length blockSize
+    // EFFECTS: returns key repeated over VectorBackend.MAX_VECTOR_BYTES bytes if blocks of blockSize bytes tile
+    // a long, and null otherwise
+    static byte[] repeat(byte[] key, int blockSize) {
+        if (Long.BYTES % blockSize != 0) {
+            return null;
+        }
+        byte[] repeated = new byte[VectorBackend.MAX_VECTOR_BYTES];
+        for (int i = 0; i < repeated.length; i++) {
+            repeated[i] = key[i % blockSize];
+        }
+        return repeated;
+    }
+
+    // REQUIRES: key should have at least length bytes, src should have at least length bytes starting at
+    // srcOffset, dst should have room for length bytes starting at dstOffset
+    // MODIFIES: dst
+    // EFFECTS: writes length bytes of src XOR-ed with the start of key into dst, 8 bytes at a time when src and
+    // dst are the same array; src and dst may be the same bytes (same array and offset) but must not otherwise
+    // overlap
+    static void xor(byte[] key, byte[] src, int srcOffset, byte[] dst, int dstOffset, int length) {
+        if (src != dst) {
+            // the JIT compiler vectorizes this loop by itself, but only when it can tell src and dst apart
+            for (int i = 0; i < length; i++) {
+                dst[dstOffset + i] = (byte) (src[srcOffset + i] ^ key[i]);
+            }
+            return;
+        }
+        VectorBackend vector = VectorSupport.backend();
+        int i = vector == null || srcOffset != dstOffset ? 0 : vector.xor(key, dst, dstOffset, length);
+        for (; i + Long.BYTES <= length; i += Long.BYTES) {
+            LONGS.set(dst, dstOffset + i, (long) LONGS.get(src, srcOffset + i) ^ (long) LONGS.get(key, i));
+        }
+        for (; i < length; i++) {
+            dst[dstOffset + i] = (byte) (src[srcOffset + i] ^ key[i]);
+        }
     }
 
     @Override
@@ -59,14 +142,26 @@ public class MixKeyRound implements Round {
     }
 
     // getters and setters
+    // REQUIRES: key should have length blockSize and contain no null elements
+    // MODIFIES: this
+    // EFFECTS: copies the *values* from given key into the round's key
     public void setKey(Byte[] key) {
+        this.key = ByteArrays.unbox(key);
+    }
+
+    // REQUIRES: key should have length blockSize
+    // MODIFIES: this
+    // EFFECTS: copies the *values* from given key into the round's key
+    public void setKey(byte[] key) {
         this.key = key.clone();
     }
 
+    // EFFECTS: returns a boxed copy of the round's key
     public Byte[] getKey() {
-        return key;
+        return ByteArrays.box(key);
     }
 
+    @Override
     public int getBlockSize() {
         return blockSize;
     }
@@ -0,0 +1,385 @@
+package model;
+
+import model.exceptions.PaddingException;
+
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+/*
+ModeOfOperation encrypts or decrypts a message of any length with a Cipher, one block at a time,
+using the given CipherMode. Data is passed in with any number of update calls followed by one doFinal
+call, which handles the padding (PKCS#7 style) or the partial last block of CTR, then resets the object
+so it can process another message with the same IV.
+
+Partial blocks are buffered internally; processing does not allocate. The rounds of the cipher are
+captured when the object is created, so rounds added to the cipher later are not used.
+ */
+public class ModeOfOperation {
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final ExecutionPlan plan;
+    private final CipherMode mode;
+    private final boolean encrypting;
+    private final KeySchedule keys;
+    private final int blockSize;
+    private final byte[] iv;
+    // previous ciphertext block for CBC, current counter block for CTR
+    private final byte[] chain;
+    // saved ciphertext block for CBC decryption, keystream block for CTR
+    private final byte[] scratch;
+    private final byte[] pending;
+    private int pendingLength;
+
+    // EFFECTS: constructs a mode of operation over cipher; throws IllegalArgumentException if the mode
+    // needs an IV and iv does not have length blockSize, or if the mode is padded and blockSize exceeds 256
+    private ModeOfOperation(Cipher cipher, CipherMode mode, boolean encrypting, KeySchedule keys, byte[] iv) {
+        this.blockSize = cipher.getBlockSize();
+        if (mode.usesIv() && (iv == null || iv.length != blockSize)) {
+            throw new IllegalArgumentException(mode + " needs an IV of length " + blockSize);
+        }
+        if (mode.isPadded() && blockSize > 256) {
+            throw new IllegalArgumentException(mode + " padding supports block sizes of at most 256 bytes");
+        }
+        this.plan = cipher.getPlan();
+        this.mode = mode;
+        this.encrypting = encrypting;
+        this.keys = keys;
+        this.iv = mode.usesIv() ? iv.clone() : new byte[blockSize];
+        this.chain = this.iv.clone();
+        this.scratch = new byte[blockSize];
+        this.pending = new byte[blockSize];
+    }
+
+    // EFFECTS: returns a mode of operation that encrypts messages with cipher, keys and iv
+    // (iv may be null for ECB)
+    public static ModeOfOperation forEncryption(Cipher cipher, CipherMode mode, KeySchedule keys, byte[] iv) {
+        return new ModeOfOperation(cipher, mode, true, keys, iv);
+    }
+
+    // EFFECTS: returns a mode of operation that decrypts messages with cipher, keys and iv
+    // (iv may be null for ECB)
+    public static ModeOfOperation forDecryption(Cipher cipher, CipherMode mode, KeySchedule keys, byte[] iv) {
+        return new ModeOfOperation(cipher, mode, false, keys, iv);
+    }
+
+    // EFFECTS: returns a new random IV of length blockSize
+    public static byte[] randomIv(int blockSize) {
+        byte[] iv = new byte[blockSize];
+        RANDOM.nextBytes(iv);
+        return iv;
+    }
+
+    // EFFECTS: returns the largest number of bytes the next update followed by doFinal can produce
+    // for an input of the given length
+    public int getOutputSize(int inputLength) {
+        int total = pendingLength + inputLength;
+        if (encrypting && mode.isPadded()) {
+            return (total / blockSize + 1) * blockSize;
+        }
+        return total;
+    }
+
+    // REQUIRES: out should have room for getOutputSize(length) bytes starting at outOffset,
+    // and should not overlap in
+    // MODIFIES: this, out
+    // EFFECTS: processes every complete block available from the buffered bytes and the length bytes of in
+    // starting at inOffset, writes the result into out starting at outOffset and buffers the rest;
+    // returns the number of bytes written
+    public int update(byte[] in, int inOffset, int length, byte[] out, int outOffset) {
+        CipherBatchEvent event = CipherBatchEvent.start();
+        int written = updateArray(in, inOffset, length, out, outOffset);
+        CipherBatchEvent.finish(event, encrypting, mode, plan, length);
+        return written;
+    }
+
+    // REQUIRES: out should have at least getOutputSize(in.remaining()) bytes remaining,
+    // and should not share content with in
+    // MODIFIES: this, in, out
+    // EFFECTS: processes every complete block available from the buffered bytes and the remaining bytes
+    // of in, puts the result into out and buffers the rest; returns the number of bytes written
+    public int update(ByteBuffer in, ByteBuffer out) {
+        if (in.hasArray() && out.hasArray()) {
+            int written = update(in.array(), in.arrayOffset() + in.position(), in.remaining(),
+                    out.array(), out.arrayOffset() + out.position());
+            in.position(in.limit());
+            out.position(out.position() + written);
+            return written;
+        }
+        CipherBatchEvent event = CipherBatchEvent.start();
+        int length = in.remaining();
+        int written = updateBuffer(in, out);
+        CipherBatchEvent.finish(event, encrypting, mode, plan, length);
+        return written;
+    }
+
+    // MODIFIES: this, out
+    // EFFECTS: does the work of update on arrays
+    private int updateArray(byte[] in, int inOffset, int length, byte[] out, int outOffset) {
+        int written = 0;
+        if (pendingLength > 0) {
+            int take = Math.min(length, blockSize - pendingLength);
+            System.arraycopy(in, inOffset, pending, pendingLength, take);
+            pendingLength += take;
+            inOffset += take;
+            length -= take;
+            if (pendingLength == blockSize && (length > 0 || !holdsBackLastBlock())) {
+                processBlock(pending, 0, out, outOffset);
+                written = blockSize;
+                pendingLength = 0;
+            }
+        }
+        int processed = processBlocks(in, inOffset, length, out, outOffset + written);
+        written += processed;
+        inOffset += processed;
+        length -= processed;
+        System.arraycopy(in, inOffset, pending, pendingLength, length);
+        pendingLength += length;
+        return written;
+    }
+
+    // MODIFIES: this, in, out
+    // EFFECTS: does the work of update on buffers that are not backed by arrays
+    private int updateBuffer(ByteBuffer in, ByteBuffer out) {
+        int written = 0;
+        while (in.hasRemaining()) {
+            if (pendingLength == blockSize) {
+                written += flushPending(out);
+            }
+            int take = Math.min(in.remaining(), blockSize - pendingLength);
+            in.get(pending, pendingLength, take);
+            pendingLength += take;
+            if (pendingLength == blockSize && !holdsBackLastBlock()) {
+                written += flushPending(out);
+            }
+        }
+        return written;
+    }
+
+    // MODIFIES: this, out
+    // EFFECTS: processes the full pending block in place and puts it into out; returns blockSize
+    private int flushPending(ByteBuffer out) {
+        processBlock(pending, 0, pending, 0);
+        out.put(pending, 0, blockSize);
+        pendingLength = 0;
+        return blockSize;
+    }
+
+    // REQUIRES: out should have room for getOutputSize(0) bytes starting at outOffset
+    // MODIFIES: this, out
+    // EFFECTS: processes the buffered bytes as the end of the message, writes the result into out
+    // starting at outOffset and resets for a new message; returns the number of bytes written.
+    // Throws PaddingException if decrypted data is not correctly padded
+    public int doFinal(byte[] out, int outOffset) throws PaddingException {
+        try {
+            int length = finish();
+            System.arraycopy(pending, 0, out, outOffset, length);
+            return length;
+        } finally {
+            reset();
+        }
+    }
+
+    // REQUIRES: out should have at least getOutputSize(0) bytes remaining
+    // MODIFIES: this, out
+    // EFFECTS: processes the buffered bytes as the end of the message, puts the result into out and
+    // resets for a new message; returns the number of bytes written.
+    // Throws PaddingException if decrypted data is not correctly padded
+    public int doFinal(ByteBuffer out) throws PaddingException {
+        try {
+            int length = finish();
+            out.put(pending, 0, length);
+            return length;
+        } finally {
+            reset();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the encryption or decryption of the whole given message, then resets for
+    // a new message. Throws PaddingException if decrypted data is not correctly padded
+    public byte[] doFinal(byte[] input) throws PaddingException {
+        byte[] output = new byte[getOutputSize(input.length)];
+        int written = update(input, 0, input.length, output, 0);
+        written += doFinal(output, written);
+        return written == output.length ? output : Arrays.copyOf(output, written);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: processes the buffered bytes in place as the end of the message and returns how many bytes
+    // of pending are output; throws PaddingException if decrypted data is not correctly padded
+    private int finish() throws PaddingException {
+        CipherBatchEvent event = CipherBatchEvent.start();
+        int length = pendingLength;
+        try {
+            return finishBlock();
+        } finally {
+            CipherBatchEvent.finish(event, encrypting, mode, plan, length);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: does the work of finish
+    private int finishBlock() throws PaddingException {
+        if (mode == CipherMode.CTR) {
+            counterBlock(pending, 0, pending, 0, pendingLength);
+            return pendingLength;
+        }
+        if (encrypting) {
+            int padding = blockSize - pendingLength;
+            Arrays.fill(pending, pendingLength, blockSize, (byte) padding);
+            processBlock(pending, 0, pending, 0);
+            return blockSize;
+        }
+        if (pendingLength != blockSize) {
+            throw new PaddingException("ciphertext length is not a multiple of the block size");
+        }
+        processBlock(pending, 0, pending, 0);
+        return blockSize - paddingLength(pending, 0, blockSize);
+    }
+
+    // EFFECTS: returns the number of padding bytes at the end of the block of length blockSize starting
+    // at offset; throws PaddingException if they are not valid padding
+    static int paddingLength(byte[] block, int offset, int blockSize) throws PaddingException {
+        byte last = block[offset + blockSize - 1];
+        int padding = last & 0xff;
+        if (padding == 0) {
+            // a full 256-byte block of padding wraps around to 0
+            padding = 256;
+        }
+        if (padding > blockSize) {
+            throw new PaddingException("invalid padding");
+        }
+        for (int i = offset + blockSize - padding; i < offset + blockSize; i++) {
+            if (block[i] != last) {
+                throw new PaddingException("invalid padding");
+            }
+        }
+        return padding;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: discards buffered bytes, restores the IV and logs the finished message
+    private void reset() {
+        pendingLength = 0;
+        System.arraycopy(iv, 0, chain, 0, blockSize);
+        EventLog.getInstance().count(encrypting ? EventCategory.ENCRYPTION : EventCategory.DECRYPTION);
+    }
+
+    // EFFECTS: returns true if the last full block must be kept until doFinal because it holds padding
+    private boolean holdsBackLastBlock() {
+        return !encrypting && mode.isPadded();
+    }
+
+    // MODIFIES: this, out
+    // EFFECTS: processes one full block of in according to the mode, writing it into out;
+    // in and out may be the same block
+    private void processBlock(byte[] in, int inOffset, byte[] out, int outOffset) {
+        if (mode == CipherMode.CTR) {
+            counterBlock(in, inOffset, out, outOffset, blockSize);
+        } else if (mode == CipherMode.ECB && encrypting) {
+            plan.encrypt(in, inOffset, out, outOffset, keys);
+        } else if (mode == CipherMode.ECB) {
+            plan.decrypt(in, inOffset, out, outOffset, keys);
+        } else if (encrypting) {
+            chainedEncrypt(in, inOffset, out, outOffset);
+        } else {
+            chainedDecrypt(in, inOffset, out, outOffset);
+        }
+    }
+
+    // MODIFIES: this, out
+    // EFFECTS: processes every full block of the length bytes of in, except one held back for doFinal, writing
+    // them into out; ECB blocks are processed in one batch. Returns the number of bytes processed
+    private int processBlocks(byte[] in, int inOffset, int length, byte[] out, int outOffset) {
+        int blocks = (holdsBackLastBlock() ? length - 1 : length) / blockSize;
+        if (blocks <= 0) {
+            return 0;
+        }
+        if (mode == CipherMode.ECB && encrypting) {
+            plan.encryptBlocks(in, inOffset, out, outOffset, blocks, keys);
+        } else if (mode == CipherMode.ECB) {
+            plan.decryptBlocks(in, inOffset, out, outOffset, blocks, keys);
+        } else {
+            for (int block = 0; block < blocks * blockSize; block += blockSize) {
+                processBlock(in, inOffset + block, out, outOffset + block);
+            }
+        }
+        return blocks * blockSize;
+    }
+
+    // MODIFIES: this, out
+    // EFFECTS: CBC-encrypts one block of in into out
+    private void chainedEncrypt(byte[] in, int inOffset, byte[] out, int outOffset) {
+        for (int i = 0; i < blockSize; i++) {
+            out[outOffset + i] = (byte) (in[inOffset + i] ^ chain[i]);
+        }
+        plan.encrypt(out, outOffset, out, outOffset, keys);
+        System.arraycopy(out, outOffset, chain, 0, blockSize);
+    }
+
+    // MODIFIES: this, out
+    // EFFECTS: CBC-decrypts one block of in into out
+    private void chainedDecrypt(byte[] in, int inOffset, byte[] out, int outOffset) {
+        System.arraycopy(in, inOffset, scratch, 0, blockSize);
+        plan.decrypt(in, inOffset, out, outOffset, keys);
+        for (int i = 0; i < blockSize; i++) {
+            out[outOffset + i] ^= chain[i];
+        }
+        System.arraycopy(scratch, 0, chain, 0, blockSize);
+    }
+
+    // MODIFIES: this, out
+    // EFFECTS: XORs length bytes of in with the encryption of the counter block, writing them into out,
+    // then increments the counter
+    private void counterBlock(byte[] in, int inOffset, byte[] out, int outOffset, int length) {
+        plan.encrypt(chain, 0, scratch, 0, keys);
+        for (int i = 0; i < length; i++) {
+            out[outOffset + i] = (byte) (in[inOffset + i] ^ scratch[i]);
+        }
+        incrementCounter(chain);
+    }
+
+    // MODIFIES: counter
+    // EFFECTS: adds one to counter as a big-endian number, wrapping around on overflow
+    static void incrementCounter(byte[] counter) {
+        for (int i = counter.length - 1; i >= 0; i--) {
+            counter[i]++;
+            if (counter[i] != 0) {
+                return;
+            }
+        }
+    }
+
+    // EFFECTS: returns the CTR counter block used for block number block of a message that starts with iv,
+    // so a message can be split into parts that are processed independently
+    public static byte[] counterForBlock(byte[] iv, long block) {
+        byte[] counter = iv.clone();
+        addToCounter(counter, counter.length, block);
+        return counter;
+    }
+
+    // MODIFIES: counter
+    // EFFECTS: adds amount to the first length bytes of counter as a big-endian number,
+    // wrapping around on overflow
+    static void addToCounter(byte[] counter, int length, long amount) {
+        long carry = amount;
+        for (int i = length - 1; i >= 0 && carry != 0; i--) {
+            long sum = (counter[i] & 0xff) + (carry & 0xff);
+            counter[i] = (byte) sum;
+            carry = (carry >>> 8) + (sum >>> 8);
+        }
+    }
+
+    public CipherMode getMode() {
+        return mode;
+    }
+
+    public boolean isEncrypting() {
+        return encrypting;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+}
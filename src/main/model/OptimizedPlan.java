@@ -0,0 +1,295 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/*
+OptimizedPlan is an immutable, shortened equivalent of the rounds a Cipher had when it was optimized (see
+Cipher.optimize). Its steps are permutation, substitution and key-mix steps in which several of the
+original rounds have been merged. A merged key-mix step XORs in a derived key: the XOR of the keys of the
+key slots it stands for, each moved through the permutations the original cipher applied after mixing it
+in. Derived keys are computed once per KeySchedule and reused for as long as the same schedule is passed
+in. Decryption runs the inverse of every step in reverse order. Once compiled, the steps run as generated
+straight-line code instead of one by one.
+
+The plan is a snapshot: rounds changed after optimizing are not seen by it.
+ */
+public final class OptimizedPlan {
+    private final Round[] steps;
+    // keyTerms[i] lists the key slots whose derived key steps[i] mixes in, or is null if steps[i] mixes no key
+    private final KeyTerm[][] keyTerms;
+    private final int blockSize;
+    private final int numberOfRounds;
+    private final int numberOfKeySlots;
+    private volatile DerivedKeys derived;
+    private volatile CompiledCipher compiled;
+
+    /*
+    KeyTerm is one key slot's contribution to a merged key-mix step: the slot's key, with bit i moved to
+    bit mapping[i] (from left to right), or unmoved if mapping is null.
+     */
+    static final class KeyTerm {
+        private final int slot;
+        private final int[] mapping;
+
+        KeyTerm(int slot, int[] mapping) {
+            this.slot = slot;
+            this.mapping = mapping;
+        }
+
+        // EFFECTS: returns this term as seen after the bit permutation next
+        KeyTerm permuted(int[] next) {
+            return new KeyTerm(slot, PlanOptimizer.compose(mapping, next));
+        }
+    }
+
+    /*
+    DerivedKeys are the keys of the merged key-mix steps for one KeySchedule.
+     */
+    private static final class DerivedKeys {
+        private final KeySchedule schedule;
+        private final byte[][] keys;
+
+        private DerivedKeys(KeySchedule schedule, byte[][] keys) {
+            this.schedule = schedule;
+            this.keys = keys;
+        }
+    }
+
+    // REQUIRES: steps and keyTerms have the same length; keyTerms[i] is non-null only if steps[i] is a
+    // MixKeyRound, and refers only to key slots below numberOfKeySlots
+    // EFFECTS: constructs a plan that runs steps, standing for numberOfRounds original rounds
+    OptimizedPlan(List<Round> steps, List<KeyTerm[]> keyTerms, int blockSize, int numberOfRounds,
+                  int numberOfKeySlots) {
+        this.steps = steps.toArray(new Round[0]);
+        this.keyTerms = keyTerms.toArray(new KeyTerm[0][]);
+        this.blockSize = blockSize;
+        this.numberOfRounds = numberOfRounds;
+        this.numberOfKeySlots = numberOfKeySlots;
+    }
+
+    // REQUIRES: plaintext should have length blockSize
+    // EFFECTS: returns a newly allocated encrypted byte-array of plaintext, using the given key schedule
+    public byte[] encryptBlock(byte[] plaintext, KeySchedule keys) {
+        byte[] output = new byte[blockSize];
+        encryptBlock(plaintext, 0, output, 0, keys);
+        return output;
+    }
+
+    // REQUIRES: src should have at least blockSize bytes starting at srcOffset,
+    // dst should have room for blockSize bytes starting at dstOffset
+    // MODIFIES: dst
+    // EFFECTS: encrypts the block of src into dst with the given key schedule, exactly as the original cipher
+    // would have; src and dst may be the same block. May be called from many threads at once;
+    // throws IllegalArgumentException if keys does not match the original cipher's key rounds
+    public void encryptBlock(byte[] src, int srcOffset, byte[] dst, int dstOffset, KeySchedule keys) {
+        transform(src, srcOffset, dst, dstOffset, keys, true);
+        EventLog.getInstance().count(EventCategory.ROUND, numberOfRounds);
+        EventLog.getInstance().count(EventCategory.ENCRYPTION);
+    }
+
+    // REQUIRES: ciphertext should have length blockSize
+    // EFFECTS: returns a newly allocated decrypted byte-array of ciphertext, using the given key schedule
+    public byte[] decryptBlock(byte[] ciphertext, KeySchedule keys) {
+        byte[] output = new byte[blockSize];
+        decryptBlock(ciphertext, 0, output, 0, keys);
+        return output;
+    }
+
+    // REQUIRES: src should have at least blockSize bytes starting at srcOffset,
+    // dst should have room for blockSize bytes starting at dstOffset
+    // MODIFIES: dst
+    // EFFECTS: decrypts the block of src into dst with the given key schedule, exactly as the original cipher
+    // would have; src and dst may be the same block. May be called from many threads at once;
+    // throws IllegalArgumentException if keys does not match the original cipher's key rounds
+    public void decryptBlock(byte[] src, int srcOffset, byte[] dst, int dstOffset, KeySchedule keys) {
+        transform(src, srcOffset, dst, dstOffset, keys, false);
+        EventLog.getInstance().count(EventCategory.ROUND, numberOfRounds);
+        EventLog.getInstance().count(EventCategory.DECRYPTION);
+    }
+
+    // MODIFIES: block
+    // EFFECTS: encrypts the block in place by running every step in order with the given step keys, or
+    // decrypts it by running their inverses in reverse order if encrypting is false
+    private void run(byte[] block, int offset, byte[][] stepKeys, boolean encrypting) {
+        for (int n = 0; n < steps.length; n++) {
+            int i = encrypting ? n : steps.length - 1 - n;
+            if (stepKeys[i] != null) {
+                ((MixKeyRound) steps[i]).mixBlock(stepKeys[i], block, offset, block, offset);
+            } else if (encrypting) {
+                steps[i].encryptBlock(block, offset, block, offset);
+            } else {
+                steps[i].decryptBlock(block, offset, block, offset);
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: generates a class that runs the steps of this plan as straight-line code (see CipherCompiler), and
+    // uses it from now on if it encrypts and decrypts random blocks exactly as the steps do; returns true if
+    // generated code is in use. If the class cannot be generated or does not match, the failure is recorded in
+    // the EventLog and the plan keeps running its steps one by one
+    public synchronized boolean compile() {
+        if (compiled != null) {
+            return true;
+        }
+        try {
+            CompiledCipher code = CipherCompiler.compile(steps, blockSize);
+            if (agrees(code, PlanOptimizer.CHECK_SAMPLES, new Random(steps.length))) {
+                compiled = code;
+                return true;
+            }
+            EventLog.getInstance().logEvent("Generated cipher failed its differential check; running steps");
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            EventLog.getInstance().logEvent("Could not generate cipher (" + e + "); running steps");
+        }
+        return false;
+    }
+
+    // EFFECTS: returns true if code encrypts and decrypts each of samples random blocks, under fresh random
+    // step keys for each, exactly as the steps of this plan do
+    private boolean agrees(CompiledCipher code, int samples, Random random) {
+        for (int sample = 0; sample < samples; sample++) {
+            byte[][] stepKeys = new byte[steps.length][];
+            for (int i = 0; i < steps.length; i++) {
+                stepKeys[i] = keyTerms[i] == null ? null : randomBytes(random);
+            }
+            byte[] block = randomBytes(random);
+            byte[] expected = block.clone();
+            byte[] actual = block.clone();
+            run(expected, 0, stepKeys, true);
+            code.encrypt(actual, 0, stepKeys);
+            if (!Arrays.equals(expected, actual)) {
+                return false;
+            }
+            run(expected, 0, stepKeys, false);
+            code.decrypt(actual, 0, stepKeys);
+            if (!Arrays.equals(block, expected) || !Arrays.equals(block, actual)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // EFFECTS: returns true if blocks are encrypted and decrypted by generated code
+    public boolean isCompiled() {
+        return compiled != null;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the derived key of every step (null for steps that mix no key) for the given schedule,
+    // deriving them unless they were derived for the same schedule last time; throws IllegalArgumentException
+    // if keys does not match the original cipher's key rounds
+    private byte[][] keysFor(KeySchedule keys) {
+        DerivedKeys current = derived;
+        if (current != null && current.schedule == keys) {
+            return current.keys;
+        }
+        if (keys.getNumberOfKeys() != numberOfKeySlots || keys.getBlockSize() != blockSize) {
+            throw new IllegalArgumentException("key schedule does not match the cipher's key rounds");
+        }
+        byte[][] stepKeys = new byte[steps.length][];
+        for (int i = 0; i < steps.length; i++) {
+            if (keyTerms[i] != null) {
+                stepKeys[i] = deriveKey(keyTerms[i], keys);
+            }
+        }
+        derived = new DerivedKeys(keys, stepKeys);
+        return stepKeys;
+    }
+
+    // EFFECTS: returns the XOR of the keys of every term, each moved by its term's bit mapping
+    private byte[] deriveKey(KeyTerm[] terms, KeySchedule keys) {
+        byte[] key = new byte[blockSize];
+        for (KeyTerm term : terms) {
+            byte[] slotKey = keys.getKey(term.slot);
+            for (int bit = 0; bit < blockSize * 8; bit++) {
+                if ((slotKey[bit >> 3] & (0x80 >> (bit & 7))) != 0) {
+                    int target = term.mapping == null ? bit : term.mapping[bit];
+                    key[target >> 3] ^= (byte) (0x80 >> (target & 7));
+                }
+            }
+        }
+        return key;
+    }
+
+    // MODIFIES: dst
+    // EFFECTS: encrypts (or decrypts, if encrypting is false) the block of src into dst with the given key
+    // schedule, without counting it in the EventLog
+    private void transform(byte[] src, int srcOffset, byte[] dst, int dstOffset, KeySchedule keys,
+                           boolean encrypting) {
+        byte[][] stepKeys = keysFor(keys);
+        System.arraycopy(src, srcOffset, dst, dstOffset, blockSize);
+        CompiledCipher code = compiled;
+        if (code == null) {
+            run(dst, dstOffset, stepKeys, encrypting);
+        } else if (encrypting) {
+            code.encrypt(dst, dstOffset, stepKeys);
+        } else {
+            code.decrypt(dst, dstOffset, stepKeys);
+        }
+    }
+
+    // EFFECTS: returns true if this plan encrypts and decrypts each of samples random blocks, under a fresh
+    // random key schedule for each, exactly as original does. The check runs an uncounted plan of original's
+    // rounds and counts nothing, so original's plan cache, metrics and block statistics and the EventLog are
+    // left untouched
+    boolean matches(Cipher original, int samples, Random random) {
+        if (original.getBlockSize() != blockSize || original.getNumberOfKeyRounds() != numberOfKeySlots) {
+            return false;
+        }
+        ExecutionPlan reference = new ExecutionPlan(original.getRounds(), blockSize);
+        for (int sample = 0; sample < samples; sample++) {
+            List<byte[]> keys = new ArrayList<>();
+            for (int slot = 0; slot < numberOfKeySlots; slot++) {
+                keys.add(randomBytes(random));
+            }
+            KeySchedule schedule = new KeySchedule(original, keys);
+            byte[] block = randomBytes(random);
+            if (!matches(reference, block, schedule, true) || !matches(reference, block, schedule, false)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // EFFECTS: returns true if this plan encrypts (or decrypts, if encrypting is false) block exactly as reference
+    private boolean matches(ExecutionPlan reference, byte[] block, KeySchedule keys, boolean encrypting) {
+        byte[] expected = new byte[blockSize];
+        byte[] actual = new byte[blockSize];
+        if (encrypting) {
+            reference.encrypt(block, 0, expected, 0, keys);
+        } else {
+            reference.decrypt(block, 0, expected, 0, keys);
+        }
+        transform(block, 0, actual, 0, keys, encrypting);
+        return Arrays.equals(expected, actual);
+    }
+
+    // EFFECTS: returns blockSize random bytes
+    private byte[] randomBytes(Random random) {
+        byte[] bytes = new byte[blockSize];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    // EFFECTS: returns the number of steps the plan runs for each block
+    public int getNumberOfSteps() {
+        return steps.length;
+    }
+
+    // EFFECTS: returns the number of rounds the original cipher had
+    public int getNumberOfRounds() {
+        return numberOfRounds;
+    }
+
+    public int getNumberOfKeySlots() {
+        return numberOfKeySlots;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+}
@@ -14,6 +14,12 @@ according to a certain mapping
  */
 public class PermutationRound implements Round {
     private int[] mapping;
+    private int[] inverseMapping;
+    // compiled on first use, so that constructing and loading rounds stays cheap
+    private volatile PermutationTable encryptTable;
+    private volatile PermutationTable decryptTable;
+    private volatile BenesNetwork network;
+    private boolean bijective;
     private int blockSize;
 
     // REQUIRES: blockSize should be the same as the cipher's block size (in bytes)
@@ -25,64 +31,23 @@ public class PermutationRound implements Round {
         for (int i = 0; i < mapping.length; i++) {
             mapping[i] = i;
         }
+        updateTables();
     }
 
     @Override
-    // REQUIRES: inputBytes should have length equal to blockSize of the cipher
-    // EFFECTS: returns an encrypted bytearray by rearranging all plaintext bits
+    // MODIFIES: dst
+    // EFFECTS: writes the block of src into dst by rearranging all plaintext bits
     // according to the mapping
-    public Byte[] encryptRound(Byte[] inputBytes) {
-        String originalBits = "";
-        int[] permutedBits = new int[blockSize * 8];
-        Byte[] output = new Byte[blockSize];
-
-        for (int i = 0; i < blockSize; i++) {
-            originalBits += convertByteToBits(inputBytes[i]);
-        }
-        for (int i = 0; i < originalBits.length(); i++) {
-            permutedBits[mapping[i]] = originalBits.charAt(i) - '0';
-        }
-
-        // go through each byte, convert to a string
-        for (int i = 0; i < blockSize; i++) {
-            String currentByte = "";
-            for (int j = 0; j < 8; j++) {
-                currentByte += permutedBits[8 * i + j];
-            }
-            output[i] = (byte) Integer.parseInt(currentByte, 2);
-        }
-        return output;
+    public void encryptBlock(byte[] src, int srcOffset, byte[] dst, int dstOffset) {
+        encryptTable().apply(src, srcOffset, dst, dstOffset);
     }
 
     @Override
-    // REQUIRES: inputBytes should have length equal to blockSize of the cipher
-    // EFFECTS: returns a decrypted bytearray by rearranging all plaintext bits
+    // MODIFIES: dst
+    // EFFECTS: writes the block of src into dst by rearranging all ciphertext bits
     // according to the inverse mapping
-    public Byte[] decryptRound(Byte[] inputBytes) {
-        int[] inverseMapping = new int[blockSize * 8];
-        for (int i = 0; i < blockSize * 8; i++) {
-            inverseMapping[mapping[i]] = i;
-        }
-        String originalBits = "";
-        int[] permutedBits = new int[blockSize * 8];
-        Byte[] output = new Byte[blockSize];
-
-        for (int i = 0; i < blockSize; i++) {
-            originalBits += convertByteToBits(inputBytes[i]);
-        }
-        for (int i = 0; i < originalBits.length(); i++) {
-            permutedBits[inverseMapping[i]] = originalBits.charAt(i) - '0';
-        }
-
-        // go through each byte, convert to a string
-        for (int i = 0; i < blockSize; i++) {
-            String currentByte = "";
-            for (int j = 0; j < 8; j++) {
-                currentByte += permutedBits[8 * i + j];
-            }
-            output[i] = (byte) Integer.parseInt(currentByte, 2);
-        }
-        return output;
+    public void decryptBlock(byte[] src, int srcOffset, byte[] dst, int dstOffset) {
+        decryptTable().apply(src, srcOffset, dst, dstOffset);
     }
 
     // MODIFIES: this
@@ -96,6 +61,72 @@ public class PermutationRound implements Round {
         for (int i = 0; i < blockSize * 8; i++) {
             mapping[i] = mappingAsList.get(i);
         }
+        updateTables();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: recomputes the inverse mapping so that inverseMapping[mapping[i]] = i (for the last such i),
+    // and discards the encryption and decryption lookup tables so they are recompiled on next use
+    private void updateTables() {
+        inverseMapping = new int[mapping.length];
+        for (int i = 0; i < mapping.length; i++) {
+            inverseMapping[mapping[i]] = i;
+        }
+        bijective = Mappings.isPermutation(mapping, blockSize * 8);
+        encryptTable = null;
+        decryptTable = null;
+        network = null;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: compiles the encryption and decryption lookup tables, and the Benes network of 16-byte rounds,
+    // now instead of on first use
+    void compileTables() {
+        encryptTable();
+        decryptTable();
+        if (blockSize == 16 && bijective) {
+            network();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the encryption lookup table, compiling it if needed; threads racing to compile
+    // it each build an identical table
+    PermutationTable encryptTable() {
+        PermutationTable table = encryptTable;
+        if (table == null) {
+            table = new PermutationTable(mapping, blockSize);
+            encryptTable = table;
+        }
+        return table;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the decryption lookup table, compiling it if needed
+    PermutationTable decryptTable() {
+        PermutationTable table = decryptTable;
+        if (table == null) {
+            table = new PermutationTable(inverseMapping, blockSize);
+            decryptTable = table;
+        }
+        return table;
+    }
+
+    // EFFECTS: returns true if the mapping sends every bit of the block to a different bit
+    boolean isBijective() {
+        return bijective;
+    }
+
+    // REQUIRES: blockSize should be 16 and the mapping should be bijective
+    // MODIFIES: this
+    // EFFECTS: returns the mapping compiled into a Benes network of delta swaps, compiling it if needed
+    BenesNetwork network() {
+        BenesNetwork compiled = network;
+        if (compiled == null) {
+            compiled = BenesNetwork.of(mapping);
+            network = compiled;
+        }
+        return compiled;
     }
 
     // EFFECTS: return the bit of number at index (from left to right)
@@ -138,15 +169,20 @@ public class PermutationRound implements Round {
 
     // getters and setters
     // REQUIRES: mapping should have length blockSize * 8
-    // EFFECTS: copies the *values* from given mapping into the round's mapping
+    // MODIFIES: this
+    // EFFECTS: copies the *values* from given mapping into the round's mapping; a mapping that sends several
+    // bits to the same bit keeps the last of them, and bits nothing is sent to become 0
     public void setPermutationMapping(int[] mapping) {
         this.mapping = mapping.clone();
+        updateTables();
     }
 
+    // EFFECTS: returns the round's mapping; callers should not modify the returned array
     public int[] getPermutationMapping() {
         return mapping;
     }
 
+    @Override
     public int getBlockSize() {
         return blockSize;
     }
@@ -0,0 +1,176 @@
+package model;
+
+/*
+PermutationTable is a precompiled form of a bit permutation mapping. For every input byte position and
+every possible byte value, it stores the bits that byte contributes to the output block, so a block is
+permuted with table lookups and ORs instead of moving one bit at a time.
+
+Blocks of up to 8 bytes are accumulated in a single long (one lookup and OR per input byte); larger blocks
+store, for each input byte position, a 256-entry mask for every output byte its bits land in (at most 8).
+
+A mapping that sends several input bits to the same output bit keeps only the last of them, as if the bits
+were written out one by one in order, and output bits that no input bit is sent to are 0.
+ */
+final class PermutationTable {
+    private static final int WORD_BYTES = 8;
+
+    private final int blockSize;
+    // blocks of up to WORD_BYTES bytes: wordMasks[(position << 8) | value]
+    private long[] wordMasks;
+    // larger blocks: input byte position p contributes to output bytes targets[targetStart[p]..targetStart[p + 1])
+    private int[] targetStart;
+    private int[] targets;
+    private byte[] byteMasks;
+    private ThreadLocal<byte[]> scratch;
+
+    // REQUIRES: mapping should have at least blockSize * 8 entries, each between 0 and blockSize * 8 - 1
+    // EFFECTS: compiles mapping into lookup tables such that bit i of the input (from left to right)
+    // becomes bit mapping[i] of the output, unless a later input bit also maps there
+    PermutationTable(int[] mapping, int blockSize) {
+        this.blockSize = blockSize;
+        int[] targets = lastWrites(mapping, blockSize * 8);
+        if (blockSize <= WORD_BYTES) {
+            buildWordMasks(targets);
+        } else {
+            buildByteMasks(targets);
+            scratch = ThreadLocal.withInitial(() -> new byte[blockSize]);
+        }
+    }
+
+    // EFFECTS: returns the first bits entries of mapping, with -1 in place of every input bit whose output bit
+    // is overwritten by a later input bit
+    private static int[] lastWrites(int[] mapping, int bits) {
+        int[] targets = new int[bits];
+        boolean[] written = new boolean[bits];
+        for (int i = bits - 1; i >= 0; i--) {
+            targets[i] = written[mapping[i]] ? -1 : mapping[i];
+            written[mapping[i]] = true;
+        }
+        return targets;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: builds one long mask per input byte position and value, with output byte i stored
+    // in bits 63 - 8i down to 56 - 8i
+    private void buildWordMasks(int[] mapping) {
+        wordMasks = new long[blockSize << 8];
+        for (int position = 0; position < blockSize; position++) {
+            for (int value = 1; value < 256; value++) {
+                long mask = 0;
+                for (int bit = 0; bit < 8; bit++) {
+                    int target = mapping[8 * position + bit];
+                    if (target >= 0 && (value & (0x80 >> bit)) != 0) {
+                        mask |= 1L << (63 - target);
+                    }
+                }
+                wordMasks[(position << 8) | value] = mask;
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: builds, for each input byte position, a 256-entry mask for each output byte it contributes to
+    private void buildByteMasks(int[] mapping) {
+        targetStart = new int[blockSize + 1];
+        targets = new int[blockSize * 8];
+        int entries = 0;
+        for (int position = 0; position < blockSize; position++) {
+            targetStart[position] = entries;
+            for (int bit = 0; bit < 8; bit++) {
+                int target = mapping[8 * position + bit] >> 3;
+                if (target >= 0 && indexOf(targets, targetStart[position], entries, target) < 0) {
+                    targets[entries] = target;
+                    entries++;
+                }
+            }
+        }
+        targetStart[blockSize] = entries;
+
+        byteMasks = new byte[entries << 8];
+        for (int position = 0; position < blockSize; position++) {
+            fillByteMasks(mapping, position);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: fills in the 256-entry masks of every output byte that the given input byte position contributes to
+    private void fillByteMasks(int[] mapping, int position) {
+        for (int bit = 0; bit < 8; bit++) {
+            int target = mapping[8 * position + bit];
+            if (target < 0) {
+                continue;
+            }
+            int entry = indexOf(targets, targetStart[position], targetStart[position + 1], target >> 3);
+            int targetBit = 0x80 >> (target & 7);
+            for (int value = 0; value < 256; value++) {
+                if ((value & (0x80 >> bit)) != 0) {
+                    byteMasks[(entry << 8) | value] |= targetBit;
+                }
+            }
+        }
+    }
+
+    // EFFECTS: returns the index of value in array between from (inclusive) and to (exclusive), or -1 if absent
+    private static int indexOf(int[] array, int from, int to, int value) {
+        for (int i = from; i < to; i++) {
+            if (array[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // REQUIRES: src should have at least blockSize bytes starting at srcOffset,
+    // dst should have room for blockSize bytes starting at dstOffset
+    // MODIFIES: dst
+    // EFFECTS: writes the permutation of the block of src into dst; src and dst may be the same array
+    void apply(byte[] src, int srcOffset, byte[] dst, int dstOffset) {
+        if (wordMasks != null) {
+            applyWord(src, srcOffset, dst, dstOffset);
+        } else {
+            applyBytes(src, srcOffset, dst, dstOffset);
+        }
+    }
+
+    // MODIFIES: dst
+    // EFFECTS: permutes a block of at most 8 bytes by accumulating it in a single long
+    private void applyWord(byte[] src, int srcOffset, byte[] dst, int dstOffset) {
+        long output = 0;
+        for (int position = 0; position < blockSize; position++) {
+            output |= wordMasks[(position << 8) | (src[srcOffset + position] & 0xff)];
+        }
+        for (int i = 0; i < blockSize; i++) {
+            dst[dstOffset + i] = (byte) (output >>> (56 - 8 * i));
+        }
+    }
+
+    // REQUIRES: the block size is at most 8
+    // EFFECTS: returns the permutation of the block held in the top blockSize bytes of word, in the same bytes
+    long permute(long word) {
+        long output = 0;
+        for (int position = 0; position < blockSize; position++) {
+            output |= wordMasks[(position << 8) | (int) (word >>> (56 - 8 * position)) & 0xff];
+        }
+        return output;
+    }
+
+    // MODIFIES: dst
+    // EFFECTS: permutes a block of more than 8 bytes by OR-ing each input byte's masks into dst
+    private void applyBytes(byte[] src, int srcOffset, byte[] dst, int dstOffset) {
+        if (src == dst && Math.abs(srcOffset - dstOffset) < blockSize) {
+            byte[] copy = scratch.get();
+            System.arraycopy(src, srcOffset, copy, 0, blockSize);
+            src = copy;
+            srcOffset = 0;
+        }
+        for (int i = 0; i < blockSize; i++) {
+            dst[dstOffset + i] = 0;
+        }
+        for (int position = 0; position < blockSize; position++) {
+            int value = src[srcOffset + position] & 0xff;
+            for (int entry = targetStart[position]; entry < targetStart[position + 1]; entry++) {
+                dst[dstOffset + targets[entry]] |= byteMasks[(entry << 8) | value];
+            }
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/*
+PlanOptimizer turns the rounds of a Cipher into an equivalent OptimizedPlan with fewer steps:
+- identity permutation and substitution rounds are dropped;
+- a run of substitution rounds is composed into a single substitution, and dropped if that is the identity;
+- the key-mix and permutation rounds between two substitutions are merged into at most one permutation
+  followed by one key mix. This relies on permuting bits commuting with XOR: permuting x XOR k is the same as
+  XOR-ing the permuted x with the permuted k, so a key mixed in before a permutation can be mixed in after it
+  instead, moved through the permutation. When a substitution run is dropped, the linear rounds on either
+  side of it are merged in the same way.
+
+Every optimized plan is checked against the original cipher on random blocks and keys before it is returned;
+if it does not match, the rounds are run as written instead and the failure is recorded in the EventLog.
+ */
+final class PlanOptimizer {
+    // number of random blocks the differential check encrypts and decrypts
+    static final int CHECK_SAMPLES = 32;
+
+    private final int blockSize;
+    private final List<Round> steps = new ArrayList<>();
+    private final List<OptimizedPlan.KeyTerm[]> keyTerms = new ArrayList<>();
+    // the rounds not yet emitted: linear rounds, then a composed substitution run (null if none), then
+    // the linear rounds after it (always empty if there is no substitution run)
+    private Segment before = new Segment();
+    private int[] substitution;
+    private boolean wideSubstitution;
+    private Segment after = new Segment();
+
+    /*
+    Segment is a run of key-mix and permutation rounds in normal form: the permutation (null if the identity)
+    followed by the XOR of the keys of terms.
+     */
+    private static final class Segment {
+        private int[] permutation;
+        private final List<OptimizedPlan.KeyTerm> terms = new ArrayList<>();
+
+        // MODIFIES: this
+        // EFFECTS: appends the bit permutation mapping to the segment
+        void permute(int[] mapping) {
+            permutation = compose(permutation, mapping);
+            if (isIdentity(permutation)) {
+                permutation = null;
+            }
+            terms.replaceAll(term -> term.permuted(mapping));
+        }
+
+        // MODIFIES: this
+        // EFFECTS: appends the segment other to this segment
+        void append(Segment other) {
+            if (other.permutation != null) {
+                permute(other.permutation);
+            }
+            terms.addAll(other.terms);
+        }
+
+        boolean isEmpty() {
+            return permutation == null && terms.isEmpty();
+        }
+    }
+
+    private PlanOptimizer(int blockSize) {
+        this.blockSize = blockSize;
+    }
+
+    // EFFECTS: returns the optimized plan of cipher's current rounds, or a plan that runs its rounds as written
+    // if a permutation round is not bijective or the optimized plan fails the differential check; throws
+    // IllegalArgumentException if cipher has rounds of a type the optimizer does not know
+    static OptimizedPlan optimize(Cipher cipher) {
+        if (!permutationsAreBijective(cipher)) {
+            return literal(cipher);
+        }
+        OptimizedPlan plan = build(cipher);
+        if (plan.matches(cipher, CHECK_SAMPLES, new Random(cipher.getNumberOfRounds()))) {
+            return plan;
+        }
+        EventLog.getInstance().logEvent("Optimized plan failed its differential check; running rounds as written");
+        return literal(cipher);
+    }
+
+    // REQUIRES: every permutation round of cipher is bijective
+    // EFFECTS: returns the optimized plan of cipher's current rounds, without checking it
+    static OptimizedPlan build(Cipher cipher) {
+        PlanOptimizer optimizer = new PlanOptimizer(cipher.getBlockSize());
+        int slot = 0;
+        for (Round round : cipher) {
+            if (round instanceof MixKeyRound) {
+                optimizer.tail().terms.add(new OptimizedPlan.KeyTerm(slot, null));
+                slot++;
+            } else if (round instanceof PermutationRound) {
+                int[] mapping = ((PermutationRound) round).getPermutationMapping();
+                if (!isIdentity(mapping)) {
+                    optimizer.tail().permute(mapping);
+                }
+            } else if (round instanceof SubstitutionRound) {
+                SubstitutionRound substitutionRound = (SubstitutionRound) round;
+                optimizer.addSubstitution(substitutionRound.getSubstitutionMapping(),
+                        substitutionRound.isWideTableEnabled());
+            } else {
+                throw new IllegalArgumentException("cannot optimize " + round.getClass().getSimpleName());
+            }
+        }
+        optimizer.emitPending();
+        return new OptimizedPlan(optimizer.steps, optimizer.keyTerms, cipher.getBlockSize(),
+                cipher.getNumberOfRounds(), slot);
+    }
+
+    // EFFECTS: returns true if every permutation round of cipher is bijective; bits that a round overwrites do not
+    // move through it, so nothing can be merged across such a round
+    private static boolean permutationsAreBijective(Cipher cipher) {
+        for (Round round : cipher) {
+            if (round instanceof PermutationRound && !((PermutationRound) round).isBijective()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // EFFECTS: returns a plan that runs copies of cipher's current rounds one by one, as written
+    static OptimizedPlan literal(Cipher cipher) {
+        PlanOptimizer optimizer = new PlanOptimizer(cipher.getBlockSize());
+        int slot = 0;
+        for (Round round : cipher) {
+            if (round instanceof MixKeyRound) {
+                optimizer.emitKeyMix(List.of(new OptimizedPlan.KeyTerm(slot, null)));
+                slot++;
+            } else if (round instanceof PermutationRound) {
+                optimizer.emitPermutation(((PermutationRound) round).getPermutationMapping());
+            } else if (round instanceof SubstitutionRound) {
+                SubstitutionRound substitutionRound = (SubstitutionRound) round;
+                optimizer.emitSubstitution(substitutionRound.getSubstitutionMapping(),
+                        substitutionRound.isWideTableEnabled());
+            } else {
+                throw new IllegalArgumentException("cannot optimize " + round.getClass().getSimpleName());
+            }
+        }
+        return new OptimizedPlan(optimizer.steps, optimizer.keyTerms, cipher.getBlockSize(),
+                cipher.getNumberOfRounds(), slot);
+    }
+
+    // EFFECTS: returns the segment that linear rounds added now belong to
+    private Segment tail() {
+        return substitution == null ? before : after;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds a substitution round with the given nibble mapping after the pending rounds
+    private void addSubstitution(int[] mapping, boolean wide) {
+        if (isIdentity(mapping)) {
+            return;
+        }
+        if (substitution != null && !after.isEmpty()) {
+            emitSegment(before);
+            emitSubstitution(substitution, wideSubstitution);
+            before = after;
+            after = new Segment();
+            substitution = null;
+            wideSubstitution = false;
+        }
+        substitution = compose(substitution, mapping);
+        wideSubstitution |= wide;
+        if (isIdentity(substitution)) {
+            // the run cancelled out, so the linear rounds around it become one segment
+            substitution = null;
+            wideSubstitution = false;
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: emits the steps of every pending round
+    private void emitPending() {
+        emitSegment(before);
+        if (substitution != null) {
+            emitSubstitution(substitution, wideSubstitution);
+        }
+        emitSegment(after);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: emits the steps of segment: its permutation, then its key mix
+    private void emitSegment(Segment segment) {
+        if (segment.permutation != null) {
+            emitPermutation(segment.permutation);
+        }
+        if (!segment.terms.isEmpty()) {
+            emitKeyMix(segment.terms);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: emits a permutation step with the given mapping
+    private void emitPermutation(int[] mapping) {
+        PermutationRound step = new PermutationRound(blockSize);
+        step.setPermutationMapping(mapping);
+        step.compileTables();
+        steps.add(step);
+        keyTerms.add(null);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: emits a substitution step with the given nibble mapping
+    private void emitSubstitution(int[] mapping, boolean wide) {
+        SubstitutionRound step = new SubstitutionRound(blockSize);
+        step.setSubstitutionMapping(mapping);
+        if (wide) {
+            step.enableWideTable();
+        }
+        steps.add(step);
+        keyTerms.add(null);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: emits a key-mix step that XORs in the derived key of terms
+    private void emitKeyMix(List<OptimizedPlan.KeyTerm> terms) {
+        steps.add(new MixKeyRound(blockSize));
+        keyTerms.add(terms.toArray(new OptimizedPlan.KeyTerm[0]));
+    }
+
+    // EFFECTS: returns the mapping equivalent to first followed by next, treating a null first as the identity
+    static int[] compose(int[] first, int[] next) {
+        if (first == null) {
+            return next.clone();
+        }
+        int[] composed = new int[first.length];
+        for (int i = 0; i < first.length; i++) {
+            composed[i] = next[first[i]];
+        }
+        return composed;
+    }
+
+    // EFFECTS: returns true if mapping maps every index to itself
+    static boolean isIdentity(int[] mapping) {
+        for (int i = 0; i < mapping.length; i++) {
+            if (mapping[i] != i) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
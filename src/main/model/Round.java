@@ -4,11 +4,48 @@ import org.json.JSONObject;
 import persistence.Writeable;
 
 public interface Round extends Writeable {
+    // REQUIRES: src should have at least blockSize bytes starting at srcOffset,
+    // dst should have room for blockSize bytes starting at dstOffset
+    // MODIFIES: dst
+    // EFFECTS: encrypts the block of src starting at srcOffset and writes it into dst starting at dstOffset;
+    // src and dst may be the same block (same array and offset)
+    void encryptBlock(byte[] src, int srcOffset, byte[] dst, int dstOffset);
+
+    // REQUIRES: inputBytes should have length equal to blockSize of the cipher
+    // EFFECTS: returns a newly allocated encrypted bytearray, depending on the Round type
+    default byte[] encryptBlock(byte[] inputBytes) {
+        byte[] output = new byte[getBlockSize()];
+        encryptBlock(inputBytes, 0, output, 0);
+        return output;
+    }
+
+    // REQUIRES: src should have at least blockSize bytes starting at srcOffset,
+    // dst should have room for blockSize bytes starting at dstOffset
+    // MODIFIES: dst
+    // EFFECTS: decrypts the block of src starting at srcOffset and writes it into dst starting at dstOffset;
+    // src and dst may be the same block (same array and offset)
+    void decryptBlock(byte[] src, int srcOffset, byte[] dst, int dstOffset);
+
+    // REQUIRES: inputBytes should have length equal to blockSize of the cipher
+    // EFFECTS: returns a newly allocated decrypted bytearray, depending on the Round type
+    default byte[] decryptBlock(byte[] inputBytes) {
+        byte[] output = new byte[getBlockSize()];
+        decryptBlock(inputBytes, 0, output, 0);
+        return output;
+    }
+
     // REQUIRES: inputBytes should have length equal to blockSize of the cipher
     // EFFECTS: returns an encrypted bytearray, depending on the Round type
-    Byte[] encryptRound(Byte[] plaintextBytes);
+    default Byte[] encryptRound(Byte[] plaintextBytes) {
+        return ByteArrays.box(encryptBlock(ByteArrays.unbox(plaintextBytes)));
+    }
 
     // REQUIRES: inputBytes should have length equal to blockSize of the cipher
     // EFFECTS: returns a decrypted bytearray, depending on the Round type
-    Byte[] decryptRound(Byte[] ciphertextBytes);
+    default Byte[] decryptRound(Byte[] ciphertextBytes) {
+        return ByteArrays.box(decryptBlock(ByteArrays.unbox(ciphertextBytes)));
+    }
+
+    // EFFECTS: returns the block size (in bytes) this round operates on
+    int getBlockSize();
 }
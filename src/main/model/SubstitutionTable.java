@@ -0,0 +1,116 @@
+package model;
+
+/*
+SubstitutionTable is a precompiled form of a substitution mapping that replaces a whole byte with a single
+lookup into a 256-entry table. It can optionally build a 65536-entry table that replaces two bytes per
+lookup, which pays off for large blocks. Tables that substitute both halves of each byte with the same
+4-bit mapping also keep that mapping, so that a VectorBackend can substitute many bytes at once.
+ */
+final class SubstitutionTable {
+    private final byte[] table;
+    private char[] wideTable;
+    // the 4-bit mapping, padded to VectorBackend.MAX_VECTOR_BYTES, or null if the table has none
+    private final byte[] nibbles;
+
+    // REQUIRES: table should have length 256
+    // EFFECTS: constructs a substitution that replaces each byte b with table[b & 0xff]
+    SubstitutionTable(byte[] table) {
+        this(table, null);
+    }
+
+    private SubstitutionTable(byte[] table, byte[] nibbles) {
+        this.table = table;
+        this.nibbles = nibbles;
+    }
+
+    // EFFECTS: returns a table that substitutes both 4-bit halves of each byte according to mapping
+    static SubstitutionTable fromNibbleMapping(int[] mapping) {
+        byte[] table = new byte[256];
+        for (int value = 0; value < 256; value++) {
+            int upperBits = mapping[(value >> 4) & 0xf];
+            int lowerBits = mapping[value & 0xf];
+            table[value] = (byte) ((upperBits << 4) + lowerBits);
+        }
+        byte[] nibbles = new byte[VectorBackend.MAX_VECTOR_BYTES];
+        for (int value = 0; value < 16; value++) {
+            if (mapping[value] < 0 || mapping[value] > 0xf) {
+                return new SubstitutionTable(table);
+            }
+            nibbles[value] = (byte) mapping[value];
+        }
+        return new SubstitutionTable(table, nibbles);
+    }
+
+    // EFFECTS: returns a table equivalent to applying this substitution followed by next
+    SubstitutionTable then(SubstitutionTable next) {
+        byte[] composed = new byte[256];
+        for (int value = 0; value < 256; value++) {
+            composed[value] = next.table[table[value] & 0xff];
+        }
+        if (nibbles == null || next.nibbles == null) {
+            return new SubstitutionTable(composed);
+        }
+        byte[] composedNibbles = new byte[VectorBackend.MAX_VECTOR_BYTES];
+        for (int value = 0; value < 16; value++) {
+            composedNibbles[value] = next.nibbles[nibbles[value]];
+        }
+        return new SubstitutionTable(composed, composedNibbles);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: builds the 65536-entry table so that apply substitutes two bytes per lookup
+    void enableWideTable() {
+        if (wideTable != null) {
+            return;
+        }
+        char[] wide = new char[1 << 16];
+        for (int value = 0; value < wide.length; value++) {
+            wide[value] = (char) (((table[value >> 8] & 0xff) << 8) | (table[value & 0xff] & 0xff));
+        }
+        wideTable = wide;
+    }
+
+    // EFFECTS: returns word with each of its 8 bytes substituted, two bytes per lookup if the wide table is built
+    long substitute(long word) {
+        char[] wide = wideTable;
+        if (wide != null) {
+            return (long) wide[(int) (word >>> 48)] << 48 | (long) wide[(int) (word >>> 32) & 0xffff] << 32
+                    | (long) wide[(int) (word >>> 16) & 0xffff] << 16 | wide[(int) word & 0xffff];
+        }
+        return (long) substitute((int) (word >>> 32)) << 32 | substitute((int) word) & 0xffffffffL;
+    }
+
+    // EFFECTS: returns word with each of its 4 bytes substituted, two bytes per lookup if the wide table is built
+    int substitute(int word) {
+        char[] wide = wideTable;
+        if (wide != null) {
+            return wide[word >>> 16] << 16 | wide[word & 0xffff];
+        }
+        return (table[word >>> 24] & 0xff) << 24 | (table[(word >>> 16) & 0xff] & 0xff) << 16
+                | (table[(word >>> 8) & 0xff] & 0xff) << 8 | (table[word & 0xff] & 0xff);
+    }
+
+    // REQUIRES: src should have at least length bytes starting at srcOffset,
+    // dst should have room for length bytes starting at dstOffset
+    // MODIFIES: dst
+    // EFFECTS: writes the substitution of length bytes of src into dst;
+    // src and dst may be the same block (same array and offset)
+    void apply(byte[] src, int srcOffset, byte[] dst, int dstOffset, int length) {
+        int i = 0;
+        VectorBackend vector = VectorSupport.backend();
+        if (vector != null && nibbles != null) {
+            i = vector.substitute(nibbles, src, srcOffset, dst, dstOffset, length);
+        }
+        char[] wide = wideTable;
+        if (wide != null) {
+            for (; i + 1 < length; i += 2) {
+                int value = wide[((src[srcOffset + i] & 0xff) << 8) | (src[srcOffset + i + 1] & 0xff)];
+                dst[dstOffset + i] = (byte) (value >> 8);
+                dst[dstOffset + i + 1] = (byte) value;
+            }
+        }
+        for (; i < length; i++) {
+            dst[dstOffset + i] = table[src[srcOffset + i] & 0xff];
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package model;
+
+/*
+VectorBackend runs key mixes and nibble substitutions over many bytes at once with SIMD instructions. Each
+method processes the longest leading run of whole vectors that fits in length bytes and returns its length;
+callers finish the remaining bytes with their own loops, so results are identical with or without a backend.
+See VectorSupport for how the backend is found.
+ */
+interface VectorBackend {
+    // the most bytes a backend may process per vector, and the length of the tables and patterns it is given
+    int MAX_VECTOR_BYTES = 64;
+
+    // REQUIRES: key should have at least length bytes, block at least length bytes starting at offset
+    // MODIFIES: block
+    // EFFECTS: XORs key[i] into block[offset + i] for each i below the returned length, which is at most length
+    int xor(byte[] key, byte[] block, int offset, int length);
+
+    // REQUIRES: pattern should have length MAX_VECTOR_BYTES and repeat with a period that divides 8,
+    // block should have at least length bytes starting at offset
+    // MODIFIES: block
+    // EFFECTS: XORs pattern[i % 8] into block[offset + i] for each i below the returned length, which is a
+    // multiple of 8 and at most length
+    int xorPattern(byte[] pattern, byte[] block, int offset, int length);
+
+    // REQUIRES: nibbles should have length MAX_VECTOR_BYTES with entries 0 to 15 only in its first 16 places,
+    // src should have at least length bytes starting at srcOffset, dst room for length bytes at dstOffset;
+    // src and dst may be the same bytes (same array and offset) but must not otherwise overlap
+    // MODIFIES: dst
+    // EFFECTS: writes each byte of src below the returned length into dst with both its 4-bit halves replaced
+    // by their entries in nibbles; the returned length is at most length
+    int substitute(byte[] nibbles, byte[] src, int srcOffset, byte[] dst, int dstOffset, int length);
+}
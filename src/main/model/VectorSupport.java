@@ -0,0 +1,39 @@
+package model;
+
+/*
+VectorSupport holds the VectorBackend used by the rounds, or null if they run their scalar loops only.
+
+The backend, VectorKernels, is written against the incubating Vector API (jdk.incubator.vector). This code
+base targets Java 11 and cannot compile against it, so VectorKernels lives in src/vector, is compiled for
+Java 17 or later with --add-modules jdk.incubator.vector, and is loaded by name on first use. It is used
+only if it is on the class path, the JVM was started with --add-modules jdk.incubator.vector, and the
+platform's preferred vectors are at least 16 bytes wide. Setting the system property blocky.vector to false
+keeps the scalar loops regardless.
+ */
+final class VectorSupport {
+    static final String BACKEND_CLASS = "model.VectorKernels";
+
+    private static final VectorBackend BACKEND = load(BACKEND_CLASS,
+            Boolean.parseBoolean(System.getProperty("blocky.vector", "true")));
+
+    private VectorSupport() {
+    }
+
+    // EFFECTS: returns the backend, or null if there is none
+    static VectorBackend backend() {
+        return BACKEND;
+    }
+
+    // EFFECTS: returns a new instance of the backend class with the given name, or null if enabled is false or the
+    // class cannot be loaded, needs a module the JVM was not started with, or does not support this platform
+    static VectorBackend load(String className, boolean enabled) {
+        if (!enabled) {
+            return null;
+        }
+        try {
+            return (VectorBackend) Class.forName(className).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError | ClassCastException e) {
+            return null;
+        }
+    }
+}
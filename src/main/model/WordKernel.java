@@ -0,0 +1,152 @@
+package model;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/*
+WordKernel runs the steps of an ExecutionPlan on a 4-, 8- or 16-byte block held in one or two longs instead
+of in a byte array. The block and each key are loaded as whole words (big-endian, so bit 0 of the block is the
+top bit), a key mix is one XOR per word, and a substitution replaces the bytes of a word with independent
+table lookups and shifts. A 16-byte block is permuted by the round's Benes network (see BenesNetwork), or by
+its table if the mapping is not bijective; smaller blocks are permuted by ORing the round's per-byte masks
+(see PermutationTable) in a register, which takes fewer dependent steps than a network's 9 or 11 stages.
+The block is only written back once every step has run.
+
+Tables and networks are taken from the rounds on every call, so rounds changed after the plan was built are
+seen, just as when the plan runs the rounds themselves.
+ */
+final class WordKernel {
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle INTS = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    private static final int MIX = 0;
+    private static final int SUBSTITUTE = 1;
+    private static final int SUBSTITUTE_FUSED = 2;
+    private static final int PERMUTE = 3;
+
+    private final Round[] steps;
+    private final int[] kinds;
+    private final int[] keySlots;
+    private final int blockSize;
+
+    private WordKernel(Round[] steps, int[] kinds, int[] keySlots, int blockSize) {
+        this.steps = steps;
+        this.kinds = kinds;
+        this.keySlots = keySlots;
+        this.blockSize = blockSize;
+    }
+
+    // REQUIRES: keySlots[i] is the key slot of steps[i] if it is a mix-key round
+    // EFFECTS: returns a kernel for the steps, or null if blockSize is not 4, 8 or 16 or a step is not a
+    // mix-key, substitution, fused substitution or permutation round
+    static WordKernel of(Round[] steps, int[] keySlots, int blockSize) {
+        if (blockSize != 4 && blockSize != 8 && blockSize != 16) {
+            return null;
+        }
+        int[] kinds = new int[steps.length];
+        for (int i = 0; i < steps.length; i++) {
+            if (steps[i] instanceof MixKeyRound) {
+                kinds[i] = MIX;
+            } else if (steps[i] instanceof SubstitutionRound) {
+                kinds[i] = SUBSTITUTE;
+            } else if (steps[i] instanceof FusedSubstitutionRound) {
+                kinds[i] = SUBSTITUTE_FUSED;
+            } else if (steps[i] instanceof PermutationRound) {
+                kinds[i] = PERMUTE;
+            } else {
+                return null;
+            }
+        }
+        return new WordKernel(steps, kinds, keySlots, blockSize);
+    }
+
+    // REQUIRES: block should have at least blockSize bytes starting at offset, keys should cover every key slot
+    // MODIFIES: block
+    // EFFECTS: encrypts the block in place by running every step in order, or decrypts it by running their
+    // inverses in reverse order if encrypting is false
+    void run(byte[] block, int offset, KeySchedule keys, boolean encrypting) {
+        if (blockSize == 16) {
+            runWide(block, offset, keys, encrypting);
+            return;
+        }
+        long word = load(block, offset);
+        for (int n = 0; n < steps.length; n++) {
+            int i = encrypting ? n : steps.length - 1 - n;
+            if (kinds[i] == PERMUTE) {
+                PermutationRound round = (PermutationRound) steps[i];
+                PermutationTable table = encrypting ? round.encryptTable() : round.decryptTable();
+                word = blockSize == 4 ? table.permute(word << 32) >>> 32 : table.permute(word);
+            } else {
+                word = step(i, encrypting, word, keys, 0);
+            }
+        }
+        if (blockSize == 4) {
+            INTS.set(block, offset, (int) word);
+        } else {
+            LONGS.set(block, offset, word);
+        }
+    }
+
+    // REQUIRES: the block size is 16
+    // MODIFIES: block
+    // EFFECTS: runs the steps as in run, holding the block in two words
+    private void runWide(byte[] block, int offset, KeySchedule keys, boolean encrypting) {
+        long[] words = {(long) LONGS.get(block, offset), (long) LONGS.get(block, offset + 8)};
+        for (int n = 0; n < steps.length; n++) {
+            int i = encrypting ? n : steps.length - 1 - n;
+            if (kinds[i] == PERMUTE) {
+                permuteWide((PermutationRound) steps[i], encrypting, words, block, offset);
+            } else {
+                words[0] = step(i, encrypting, words[0], keys, 0);
+                words[1] = step(i, encrypting, words[1], keys, 8);
+            }
+        }
+        LONGS.set(block, offset, words[0]);
+        LONGS.set(block, offset + 8, words[1]);
+    }
+
+    // MODIFIES: words, block
+    // EFFECTS: permutes the 16-byte block held in words by round (or its inverse if encrypting is false), through
+    // the block's bytes if the mapping is not bijective
+    private static void permuteWide(PermutationRound round, boolean encrypting, long[] words, byte[] block,
+                                    int offset) {
+        if (!round.isBijective()) {
+            LONGS.set(block, offset, words[0]);
+            LONGS.set(block, offset + 8, words[1]);
+            PermutationTable table = encrypting ? round.encryptTable() : round.decryptTable();
+            table.apply(block, offset, block, offset);
+            words[0] = (long) LONGS.get(block, offset);
+            words[1] = (long) LONGS.get(block, offset + 8);
+        } else if (encrypting) {
+            round.network().permute(words);
+        } else {
+            round.network().unpermute(words);
+        }
+    }
+
+    // REQUIRES: steps[i] is not a permutation round
+    // EFFECTS: returns word after the key mix or substitution of steps[i] (or its inverse if encrypting is false),
+    // where word holds the block's bytes from position from on (all 4 of them in its low half for 4-byte blocks)
+    private long step(int i, boolean encrypting, long word, KeySchedule keys, int from) {
+        if (kinds[i] == MIX) {
+            return word ^ load(keys.getKey(keySlots[i]), from);
+        }
+        SubstitutionTable table;
+        if (kinds[i] == SUBSTITUTE) {
+            SubstitutionRound round = (SubstitutionRound) steps[i];
+            table = encrypting ? round.getEncryptTable() : round.getDecryptTable();
+        } else {
+            FusedSubstitutionRound round = (FusedSubstitutionRound) steps[i];
+            table = encrypting ? round.getEncryptTable() : round.getDecryptTable();
+        }
+        return blockSize == 4 ? table.substitute((int) word) & 0xffffffffL : table.substitute(word);
+    }
+
+    // EFFECTS: returns the word of bytes starting at offset: 8 bytes, or 4 bytes in the low half for 4-byte blocks
+    private long load(byte[] bytes, int offset) {
+        if (blockSize == 4) {
+            return (int) INTS.get(bytes, offset) & 0xffffffffL;
+        }
+        return (long) LONGS.get(bytes, offset);
+    }
+}
@@ -0,0 +1,11 @@
+package model.exceptions;
+
+// Thrown when decrypted data does not end with valid padding, usually because the ciphertext,
+// keys or IV are wrong
+public class PaddingException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    public PaddingException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,112 @@
+package model.io;
+
+import model.ModeOfOperation;
+import model.exceptions.PaddingException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/*
+CipherInputStream reads data from the underlying stream and returns it encrypted (or decrypted) with a
+ModeOfOperation. Data is processed through fixed-size buffers, so streams of any length use constant memory;
+the final block (with its padding) is processed when the underlying stream reaches its end.
+ */
+public class CipherInputStream extends FilterInputStream {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final ModeOfOperation mode;
+    private final byte[] inputBuffer;
+    private final byte[] outputBuffer;
+    private final byte[] singleByte = new byte[1];
+    private int outputPosition;
+    private int outputLimit;
+    private boolean finished;
+
+    // EFFECTS: constructs a stream that returns the data of in processed with mode
+    public CipherInputStream(InputStream in, ModeOfOperation mode) {
+        super(in);
+        this.mode = mode;
+        this.inputBuffer = new byte[BUFFER_SIZE];
+        this.outputBuffer = new byte[BUFFER_SIZE + 2 * mode.getBlockSize()];
+    }
+
+    @Override
+    // MODIFIES: this
+    // EFFECTS: returns the next processed byte as an int from 0 to 255, or -1 at the end of the stream
+    public int read() throws IOException {
+        int read = read(singleByte, 0, 1);
+        return read == -1 ? -1 : singleByte[0] & 0xff;
+    }
+
+    @Override
+    // MODIFIES: this, b
+    // EFFECTS: reads up to len processed bytes into b starting at off and returns how many were read,
+    // or -1 at the end of the stream; throws IOException if decrypted data is not correctly padded
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!refill()) {
+            return -1;
+        }
+        int read = Math.min(len, outputLimit - outputPosition);
+        System.arraycopy(outputBuffer, outputPosition, b, off, read);
+        outputPosition += read;
+        return read;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads the next chunk of the underlying stream and processes it into the output buffer,
+    // processing the final block if the underlying stream has ended
+    private void fillOutput() throws IOException {
+        int read = in.read(inputBuffer, 0, BUFFER_SIZE);
+        outputPosition = 0;
+        if (read == -1) {
+            finished = true;
+            try {
+                outputLimit = mode.doFinal(outputBuffer, 0);
+            } catch (PaddingException e) {
+                throw new IOException(e);
+            }
+        } else {
+            outputLimit = mode.update(inputBuffer, 0, read, outputBuffer, 0);
+        }
+    }
+
+    @Override
+    // MODIFIES: this
+    // EFFECTS: reads and discards up to n processed bytes, returning how many were skipped
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n && refill()) {
+            int step = (int) Math.min(n - skipped, outputLimit - outputPosition);
+            outputPosition += step;
+            skipped += step;
+        }
+        return skipped;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: fills the output buffer if it is empty; returns false if the end of the stream is reached
+    private boolean refill() throws IOException {
+        while (outputPosition == outputLimit) {
+            if (finished) {
+                return false;
+            }
+            fillOutput();
+        }
+        return true;
+    }
+
+    @Override
+    // EFFECTS: returns the number of processed bytes that can be read without blocking
+    public int available() {
+        return outputLimit - outputPosition;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+}
@@ -0,0 +1,74 @@
+package model.io;
+
+import model.ModeOfOperation;
+import model.exceptions.PaddingException;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/*
+CipherOutputStream encrypts (or decrypts) everything written to it with a ModeOfOperation and writes the
+result to the underlying stream. Data is processed through fixed-size buffers, so streams of any length
+use constant memory; the final block (with its padding) is written when the stream is closed.
+ */
+public class CipherOutputStream extends FilterOutputStream {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final ModeOfOperation mode;
+    private final byte[] outputBuffer;
+    private final byte[] singleByte = new byte[1];
+    private boolean closed;
+
+    // EFFECTS: constructs a stream that processes written data with mode and writes it to out
+    public CipherOutputStream(OutputStream out, ModeOfOperation mode) {
+        super(out);
+        this.mode = mode;
+        this.outputBuffer = new byte[BUFFER_SIZE + 2 * mode.getBlockSize()];
+    }
+
+    @Override
+    // MODIFIES: this
+    // EFFECTS: processes the given byte
+    public void write(int b) throws IOException {
+        singleByte[0] = (byte) b;
+        write(singleByte, 0, 1);
+    }
+
+    @Override
+    // MODIFIES: this
+    // EFFECTS: processes len bytes of b starting at off, writing every completed block to the underlying stream;
+    // throws IOException if the stream is closed or the underlying stream fails
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("stream closed");
+        }
+        while (len > 0) {
+            int chunk = Math.min(len, BUFFER_SIZE);
+            int written = mode.update(b, off, chunk, outputBuffer, 0);
+            out.write(outputBuffer, 0, written);
+            off += chunk;
+            len -= chunk;
+        }
+    }
+
+    @Override
+    // MODIFIES: this
+    // EFFECTS: processes the final block, writes it and closes the underlying stream; does nothing if
+    // already closed. Throws IOException if decrypted data is not correctly padded
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            int written = mode.doFinal(outputBuffer, 0);
+            out.write(outputBuffer, 0, written);
+            out.flush();
+        } catch (PaddingException e) {
+            throw new IOException(e);
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package model.io;
+
+import model.ModeOfOperation;
+import model.exceptions.PaddingException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+
+/*
+CipherReadableChannel reads data from the underlying channel and returns it encrypted (or decrypted) with a
+ModeOfOperation. Data is processed through fixed-size buffers, so channels of any length use constant memory;
+the final block (with its padding) is processed when the underlying channel reaches its end.
+ */
+public class CipherReadableChannel implements ReadableByteChannel {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final ReadableByteChannel channel;
+    private final ModeOfOperation mode;
+    private final ByteBuffer inputBuffer;
+    private final ByteBuffer outputBuffer;
+    private boolean finished;
+    private boolean open = true;
+
+    // EFFECTS: constructs a channel that returns the data of channel processed with mode
+    public CipherReadableChannel(ReadableByteChannel channel, ModeOfOperation mode) {
+        this.channel = channel;
+        this.mode = mode;
+        this.inputBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+        this.outputBuffer = ByteBuffer.allocate(BUFFER_SIZE + 2 * mode.getBlockSize());
+        outputBuffer.flip();
+    }
+
+    @Override
+    // MODIFIES: this, dst
+    // EFFECTS: puts as many processed bytes into dst as are available (reading from the underlying channel
+    // if none are) and returns how many were put, or -1 at the end of the stream;
+    // throws IOException if the channel is closed or decrypted data is not correctly padded
+    public int read(ByteBuffer dst) throws IOException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+        while (!outputBuffer.hasRemaining()) {
+            if (finished) {
+                return -1;
+            }
+            if (!fillOutput()) {
+                return 0;
+            }
+        }
+        int read = Math.min(dst.remaining(), outputBuffer.remaining());
+        int limit = outputBuffer.limit();
+        outputBuffer.limit(outputBuffer.position() + read);
+        dst.put(outputBuffer);
+        outputBuffer.limit(limit);
+        return read;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads from the underlying channel and processes what was read into the output buffer,
+    // processing the final block if the underlying channel has ended; returns false if a non-blocking
+    // underlying channel had no data available
+    private boolean fillOutput() throws IOException {
+        inputBuffer.clear();
+        int read = channel.read(inputBuffer);
+        inputBuffer.flip();
+        outputBuffer.clear();
+        try {
+            if (read == -1) {
+                finished = true;
+                mode.doFinal(outputBuffer);
+            } else {
+                mode.update(inputBuffer, outputBuffer);
+            }
+        } catch (PaddingException e) {
+            throw new IOException(e);
+        } finally {
+            outputBuffer.flip();
+        }
+        return read != 0;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    // MODIFIES: this
+    // EFFECTS: closes the underlying channel
+    public void close() throws IOException {
+        open = false;
+        channel.close();
+    }
+}
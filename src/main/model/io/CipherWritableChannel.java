@@ -0,0 +1,84 @@
+package model.io;
+
+import model.ModeOfOperation;
+import model.exceptions.PaddingException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+
+/*
+CipherWritableChannel encrypts (or decrypts) everything written to it with a ModeOfOperation and writes
+the result to the underlying channel. Data is processed through a fixed-size buffer, so channels of any
+length use constant memory; the final block (with its padding) is written when the channel is closed.
+ */
+public class CipherWritableChannel implements WritableByteChannel {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final WritableByteChannel channel;
+    private final ModeOfOperation mode;
+    private final ByteBuffer outputBuffer;
+    private boolean open = true;
+
+    // EFFECTS: constructs a channel that processes written data with mode and writes it to channel
+    public CipherWritableChannel(WritableByteChannel channel, ModeOfOperation mode) {
+        this.channel = channel;
+        this.mode = mode;
+        this.outputBuffer = ByteBuffer.allocate(BUFFER_SIZE + 2 * mode.getBlockSize());
+    }
+
+    @Override
+    // MODIFIES: this, src
+    // EFFECTS: processes all remaining bytes of src, writing every completed block to the underlying channel,
+    // and returns the number of bytes consumed; throws ClosedChannelException if the channel is closed
+    public int write(ByteBuffer src) throws IOException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+        int consumed = src.remaining();
+        int limit = src.limit();
+        while (src.hasRemaining()) {
+            src.limit(src.position() + Math.min(src.remaining(), BUFFER_SIZE));
+            outputBuffer.clear();
+            mode.update(src, outputBuffer);
+            src.limit(limit);
+            drain();
+        }
+        return consumed;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the whole output buffer to the underlying channel
+    private void drain() throws IOException {
+        outputBuffer.flip();
+        while (outputBuffer.hasRemaining()) {
+            channel.write(outputBuffer);
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    // MODIFIES: this
+    // EFFECTS: processes the final block, writes it and closes the underlying channel; does nothing if
+    // already closed. Throws IOException if decrypted data is not correctly padded
+    public void close() throws IOException {
+        if (!open) {
+            return;
+        }
+        open = false;
+        try {
+            outputBuffer.clear();
+            mode.doFinal(outputBuffer);
+            drain();
+        } catch (PaddingException e) {
+            throw new IOException(e);
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package model.io;
+
+import model.Cipher;
+import model.CipherMode;
+import model.KeySchedule;
+import model.ModeOfOperation;
+import model.exceptions.PaddingException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/*
+FileCipher encrypts and decrypts files on disk by memory-mapping the input and output with FileChannel.map
+and running a ModeOfOperation directly over the mapped regions, one window at a time, so files of any size
+(including files over 2 GB) are processed without reading them into the heap.
+
+Windows are independent for ECB, CTR and CBC decryption, so each gets its own ModeOfOperation (starting at
+the right counter, or with the previous ciphertext block as its IV) and windows run in parallel on an
+executor. CBC encryption chains every block to the previous one, so its windows run in order on the calling
+thread. The final window adds or removes the padding, writing the last block through the channel.
+ */
+public class FileCipher {
+    public static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private final Cipher cipher;
+    private final CipherMode mode;
+    private final ExecutorService executor;
+    private final int windowSize;
+
+    // EFFECTS: constructs a file cipher for cipher and mode that maps windows of the default size
+    // and runs them on the common ForkJoinPool
+    public FileCipher(Cipher cipher, CipherMode mode) {
+        this(cipher, mode, ForkJoinPool.commonPool(), DEFAULT_WINDOW_SIZE);
+    }
+
+    // REQUIRES: windowSize > 0
+    // EFFECTS: constructs a file cipher for cipher and mode that maps windows of about windowSize bytes
+    // (rounded down to whole blocks) and runs independent windows on executor
+    public FileCipher(Cipher cipher, CipherMode mode, ExecutorService executor, int windowSize) {
+        int blockSize = cipher.getBlockSize();
+        if (mode.isPadded() && blockSize > 256) {
+            throw new IllegalArgumentException(mode + " padding supports block sizes of at most 256 bytes");
+        }
+        this.cipher = cipher;
+        this.mode = mode;
+        this.executor = executor;
+        // a window plus one look-ahead block must still fit in a single mapping
+        int limited = Math.min(windowSize, Integer.MAX_VALUE - blockSize);
+        this.windowSize = Math.max(1, limited / blockSize) * blockSize;
+    }
+
+    // REQUIRES: iv should have length blockSize, unless the mode is ECB
+    // MODIFIES: destination
+    // EFFECTS: writes the encryption of source into destination, replacing its contents, and returns
+    // the number of bytes written; throws IllegalArgumentException if destination is the same file as source
+    public long encryptFile(Path source, Path destination, KeySchedule keys, byte[] iv) throws IOException {
+        try {
+            return process(source, destination, keys, iv, true);
+        } catch (PaddingException e) {
+            throw new IllegalStateException("encryption does not check padding", e);
+        }
+    }
+
+    // REQUIRES: iv should have length blockSize, unless the mode is ECB
+    // MODIFIES: destination
+    // EFFECTS: writes the decryption of source into destination, replacing its contents, and returns
+    // the number of bytes written; throws PaddingException if the decrypted data is not correctly padded, and
+    // IllegalArgumentException if destination is the same file as source
+    public long decryptFile(Path source, Path destination, KeySchedule keys, byte[] iv)
+            throws IOException, PaddingException {
+        return process(source, destination, keys, iv, false);
+    }
+
+    // MODIFIES: destination
+    // EFFECTS: encrypts or decrypts source into destination window by window and returns the number of
+    // bytes written; throws PaddingException if decrypted data is not correctly padded
+    private long process(Path source, Path destination, KeySchedule keys, byte[] iv, boolean encrypting)
+            throws IOException, PaddingException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+                FileChannel out = openDestination(source, destination)) {
+            long size = in.size();
+            int blockSize = cipher.getBlockSize();
+            if (!encrypting && mode.isPadded() && (size == 0 || size % blockSize != 0)) {
+                throw new PaddingException("ciphertext length is not a multiple of the block size");
+            }
+            long windows = Math.max(1, (size + windowSize - 1) / windowSize);
+            reserve(out, size - size % blockSize - (!encrypting && mode.isPadded() ? blockSize : 0));
+            if (encrypting && mode == CipherMode.CBC) {
+                ModeOfOperation chain = ModeOfOperation.forEncryption(cipher, mode, keys, iv);
+                long written = 0;
+                for (long window = 0; window < windows; window++) {
+                    written += processWindow(chain, in, out, window, windows, size);
+                }
+                return written;
+            }
+            return processInParallel(in, out, windows, size, keys, iv, encrypting);
+        }
+    }
+
+    // EFFECTS: opens destination for reading and writing, creating it or discarding its contents; throws
+    // IllegalArgumentException if destination is the same file as source, whose contents would be lost
+    private static FileChannel openDestination(Path source, Path destination) throws IOException {
+        if (Files.exists(destination) && Files.isSameFile(source, destination)) {
+            throw new IllegalArgumentException("destination " + destination + " is the source file");
+        }
+        return FileChannel.open(destination, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    // MODIFIES: out
+    // EFFECTS: extends out to length bytes up front, so windows can be mapped from several threads
+    private void reserve(FileChannel out, long length) throws IOException {
+        if (length > 0) {
+            out.write(ByteBuffer.allocate(1), length - 1);
+        }
+    }
+
+    // MODIFIES: out
+    // EFFECTS: processes every window on the executor, each with its own ModeOfOperation, and returns the
+    // number of bytes written; throws PaddingException if decrypted data is not correctly padded
+    private long processInParallel(FileChannel in, FileChannel out, long windows, long size, KeySchedule keys,
+                                   byte[] iv, boolean encrypting) throws IOException, PaddingException {
+        List<Callable<Long>> tasks = new ArrayList<>();
+        for (long window = 0; window < windows; window++) {
+            long current = window;
+            tasks.add(() -> {
+                ModeOfOperation windowMode = windowMode(in, current, keys, iv, encrypting);
+                return processWindow(windowMode, in, out, current, windows, size);
+            });
+        }
+        long written = 0;
+        try {
+            for (Future<Long> future : executor.invokeAll(tasks)) {
+                written += future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while processing windows", e);
+        } catch (ExecutionException e) {
+            rethrow(e.getCause());
+        }
+        return written;
+    }
+
+    // EFFECTS: rethrows cause as the checked or unchecked exception it is
+    private static void rethrow(Throwable cause) throws IOException, PaddingException {
+        if (cause instanceof IOException) {
+            throw (IOException) cause;
+        } else if (cause instanceof PaddingException) {
+            throw (PaddingException) cause;
+        } else if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        throw new IllegalStateException(cause);
+    }
+
+    // EFFECTS: returns a ModeOfOperation that processes the given window as if the whole file before it
+    // had already been processed: CTR starts at the window's first counter, and CBC decryption uses the
+    // ciphertext block before the window as its IV
+    private ModeOfOperation windowMode(FileChannel in, long window, KeySchedule keys, byte[] iv,
+                                       boolean encrypting) throws IOException {
+        long start = window * windowSize;
+        int blockSize = cipher.getBlockSize();
+        byte[] windowIv = iv;
+        if (mode == CipherMode.CTR && iv != null) {
+            windowIv = ModeOfOperation.counterForBlock(iv, start / blockSize);
+        } else if (mode == CipherMode.CBC && start > 0) {
+            ByteBuffer previous = ByteBuffer.allocate(blockSize);
+            while (previous.hasRemaining()) {
+                in.read(previous, start - blockSize + previous.position());
+            }
+            windowIv = previous.array();
+        }
+        return encrypting ? ModeOfOperation.forEncryption(cipher, mode, keys, windowIv)
+                : ModeOfOperation.forDecryption(cipher, mode, keys, windowIv);
+    }
+
+    // MODIFIES: windowMode, out
+    // EFFECTS: maps the given window of in and the matching region of out, runs windowMode over them and,
+    // for the last window, writes the final (padded or unpadded) block; returns the number of bytes written.
+    // Decrypting a padded mode holds back the last block it sees, so earlier windows also map the first
+    // block of the next window, which is left unprocessed in windowMode
+    private long processWindow(ModeOfOperation windowMode, FileChannel in, FileChannel out, long window,
+                               long windows, long size) throws IOException, PaddingException {
+        long start = window * windowSize;
+        long length = Math.min(windowSize, size - start);
+        int blockSize = cipher.getBlockSize();
+        boolean last = window == windows - 1;
+        boolean holdsBack = !windowMode.isEncrypting() && mode.isPadded();
+        long outputLength = last ? length - length % blockSize - (holdsBack ? blockSize : 0) : length;
+
+        MappedByteBuffer input = in.map(FileChannel.MapMode.READ_ONLY, start,
+                length + (!last && holdsBack ? blockSize : 0));
+        MappedByteBuffer output = out.map(FileChannel.MapMode.READ_WRITE, start, outputLength);
+        long written = windowMode.update(input, output);
+        if (last) {
+            ByteBuffer finalBlock = ByteBuffer.allocate(windowMode.getOutputSize(0));
+            windowMode.doFinal(finalBlock);
+            finalBlock.flip();
+            while (finalBlock.hasRemaining()) {
+                written += out.write(finalBlock, start + written);
+            }
+        }
+        return written;
+    }
+
+    public CipherMode getMode() {
+        return mode;
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+}
@@ -0,0 +1,31 @@
+package model.management;
+
+/*
+CacheStatistics is the hit and miss counts of a cache, such as a cache of compiled ciphers, that Monitoring
+reports next to the execution plan caches of monitored ciphers.
+ */
+public interface CacheStatistics {
+    // EFFECTS: returns the name under which the cache's hit ratio is reported
+    String getName();
+
+    // EFFECTS: returns the number of lookups answered from the cache since the last reset
+    long getHitCount();
+
+    // EFFECTS: returns the number of lookups that missed the cache since the last reset
+    long getMissCount();
+
+    // MODIFIES: this
+    // EFFECTS: resets the hit and miss counts to zero
+    void resetStatistics();
+
+    // EFFECTS: returns the fraction of lookups answered from the cache, or NaN if there were none
+    default double getHitRatio() {
+        return hitRatio(getHitCount(), getMissCount());
+    }
+
+    // EFFECTS: returns hits / (hits + misses), or NaN if both are zero
+    static double hitRatio(long hits, long misses) {
+        long lookups = hits + misses;
+        return lookups == 0 ? Double.NaN : (double) hits / lookups;
+    }
+}
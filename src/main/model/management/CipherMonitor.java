@@ -0,0 +1,105 @@
+package model.management;
+
+import model.BlockStatistics;
+import model.Cipher;
+
+/*
+CipherMonitor publishes the throughput and block latency of one cipher, read from the cipher's block statistics,
+which stay enabled while it is monitored. The cipher's per-round instrumentation is left as it is, so a
+monitored cipher keeps running its fastest paths.
+ */
+final class CipherMonitor implements CipherMonitorMXBean {
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private final Cipher cipher;
+    private final BlockStatistics statistics;
+    private final boolean wasEnabled;
+    private volatile long since = System.nanoTime();
+
+    // MODIFIES: cipher
+    // EFFECTS: constructs a monitor of cipher and enables its block statistics
+    CipherMonitor(Cipher cipher) {
+        this.cipher = cipher;
+        statistics = cipher.getBlockStatistics();
+        wasEnabled = statistics.isEnabled();
+        statistics.setEnabled(true);
+    }
+
+    // MODIFIES: cipher
+    // EFFECTS: restores the cipher's block statistics to what they were before it was monitored
+    void close() {
+        statistics.setEnabled(wasEnabled);
+    }
+
+    Cipher getCipher() {
+        return cipher;
+    }
+
+    @Override
+    public int getBlockSize() {
+        return cipher.getBlockSize();
+    }
+
+    @Override
+    public int getNumberOfRounds() {
+        return cipher.getNumberOfRounds();
+    }
+
+    @Override
+    public long getEncryptedBlocks() {
+        return statistics.getEncryptedBlocks();
+    }
+
+    @Override
+    public long getDecryptedBlocks() {
+        return statistics.getDecryptedBlocks();
+    }
+
+    @Override
+    public double getEncryptedBlocksPerSecond() {
+        return perSecond(getEncryptedBlocks());
+    }
+
+    @Override
+    public double getDecryptedBlocksPerSecond() {
+        return perSecond(getDecryptedBlocks());
+    }
+
+    @Override
+    public double getMeanEncryptLatencyNanos() {
+        return statistics.getEncryptLatency().getMeanNanos();
+    }
+
+    @Override
+    public long getP99EncryptLatencyNanos() {
+        return statistics.getEncryptLatency().getPercentileNanos(99);
+    }
+
+    @Override
+    public double getMeanDecryptLatencyNanos() {
+        return statistics.getDecryptLatency().getMeanNanos();
+    }
+
+    @Override
+    public long getP99DecryptLatencyNanos() {
+        return statistics.getDecryptLatency().getPercentileNanos(99);
+    }
+
+    @Override
+    public double getPlanCacheHitRatio() {
+        return CacheStatistics.hitRatio(cipher.getPlanCacheHits(), cipher.getPlanCacheMisses());
+    }
+
+    @Override
+    public void resetCounters() {
+        statistics.reset();
+        cipher.resetPlanCacheStatistics();
+        since = System.nanoTime();
+    }
+
+    // EFFECTS: returns count divided by the seconds since the counters were last reset
+    private double perSecond(long count) {
+        long elapsed = System.nanoTime() - since;
+        return elapsed <= 0 ? 0 : count * NANOS_PER_SECOND / elapsed;
+    }
+}
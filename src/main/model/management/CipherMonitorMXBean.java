@@ -0,0 +1,35 @@
+package model.management;
+
+/*
+CipherMonitorMXBean is the management interface of one monitored cipher, published as
+blocky:type=Cipher,name=<name>. Counts and rates cover the time since the counters were last reset.
+Latencies are whole-block latencies in nanoseconds, sampled from the blocks run (see BlockStatistics).
+ */
+public interface CipherMonitorMXBean {
+    int getBlockSize();
+
+    int getNumberOfRounds();
+
+    long getEncryptedBlocks();
+
+    long getDecryptedBlocks();
+
+    double getEncryptedBlocksPerSecond();
+
+    double getDecryptedBlocksPerSecond();
+
+    double getMeanEncryptLatencyNanos();
+
+    long getP99EncryptLatencyNanos();
+
+    double getMeanDecryptLatencyNanos();
+
+    long getP99DecryptLatencyNanos();
+
+    // EFFECTS: returns the fraction of block operations that reused the cipher's execution plan
+    double getPlanCacheHitRatio();
+
+    // MODIFIES: this
+    // EFFECTS: resets the block counts, latencies and plan cache statistics of the cipher
+    void resetCounters();
+}
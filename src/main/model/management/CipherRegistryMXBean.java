@@ -0,0 +1,25 @@
+package model.management;
+
+import java.util.Map;
+
+/*
+CipherRegistryMXBean is the management interface of the set of monitored ciphers and caches, published as
+blocky:type=CipherRegistry.
+ */
+public interface CipherRegistryMXBean {
+    int getActiveCiphers();
+
+    String[] getCipherNames();
+
+    // EFFECTS: returns the hit ratio of every execution plan cache (keyed plan:<cipher name>) and of every
+    // registered cache (keyed by its name); ratios are NaN for caches that have not been used
+    Map<String, Double> getCacheHitRatios();
+
+    // MODIFIES: every monitored cipher and cache, EventLog
+    // EFFECTS: resets the counters of every monitored cipher and cache, and the EventLog's drop count
+    void resetCounters();
+
+    // MODIFIES: EventLog
+    // EFFECTS: clears the EventLog
+    void clearEventLog();
+}
@@ -0,0 +1,38 @@
+package model.management;
+
+import model.EventLog;
+
+/*
+EventLogMonitor publishes the statistics of the EventLog.
+ */
+final class EventLogMonitor implements EventLogMonitorMXBean {
+    @Override
+    public int getSize() {
+        return EventLog.getInstance().size();
+    }
+
+    @Override
+    public int getCapacity() {
+        return EventLog.getInstance().getCapacity();
+    }
+
+    @Override
+    public long getDroppedCount() {
+        return EventLog.getInstance().getDroppedCount();
+    }
+
+    @Override
+    public String getHotPathMode() {
+        return EventLog.getInstance().getHotPathMode().name();
+    }
+
+    @Override
+    public void resetCounters() {
+        EventLog.getInstance().resetDroppedCount();
+    }
+
+    @Override
+    public void clear() {
+        EventLog.getInstance().clear();
+    }
+}
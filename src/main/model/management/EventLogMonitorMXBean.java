@@ -0,0 +1,23 @@
+package model.management;
+
+/*
+EventLogMonitorMXBean is the management interface of the EventLog, published as blocky:type=EventLog.
+ */
+public interface EventLogMonitorMXBean {
+    int getSize();
+
+    int getCapacity();
+
+    // EFFECTS: returns the number of events replaced by newer ones since the drop count was last reset
+    long getDroppedCount();
+
+    String getHotPathMode();
+
+    // MODIFIES: EventLog
+    // EFFECTS: resets the drop count to zero
+    void resetCounters();
+
+    // MODIFIES: EventLog
+    // EFFECTS: clears the EventLog
+    void clear();
+}
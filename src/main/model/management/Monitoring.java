@@ -0,0 +1,159 @@
+package model.management;
+
+import model.Cipher;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+Monitoring publishes live statistics as MXBeans on the platform MBean server, where jconsole or any
+in-process JMX client can read them:
+- blocky:type=CipherRegistry, the monitored ciphers and the hit ratios of every cache
+- blocky:type=EventLog, the size and drop count of the EventLog
+- blocky:type=Cipher,name=<name>, the throughput and block latency of one monitored cipher
+
+Monitoring a cipher enables its block statistics, which count every block and time a sample of them, so it
+keeps running its fastest paths; per-round instrumentation stays opt-in (see Cipher.setInstrumentationEnabled).
+ */
+public final class Monitoring {
+    public static final String DOMAIN = "blocky";
+    public static final ObjectName REGISTRY_NAME = objectName(DOMAIN + ":type=CipherRegistry");
+    public static final ObjectName EVENT_LOG_NAME = objectName(DOMAIN + ":type=EventLog");
+
+    private static final Map<String, CipherMonitor> CIPHERS = new LinkedHashMap<>();
+    private static final Map<String, CacheStatistics> CACHES = new LinkedHashMap<>();
+    private static boolean published;
+
+    private Monitoring() {
+    }
+
+    // MODIFIES: the platform MBean server
+    // EFFECTS: publishes the registry and EventLog MXBeans, unless they already are
+    public static synchronized void publish() {
+        if (!published) {
+            registerMBean(new Registry(), REGISTRY_NAME);
+            registerMBean(new EventLogMonitor(), EVENT_LOG_NAME);
+            published = true;
+        }
+    }
+
+    // MODIFIES: cipher, the platform MBean server
+    // EFFECTS: publishes an MXBean for cipher under the given name, replacing any other cipher monitored
+    // under that name, and enables the cipher's block statistics
+    public static synchronized void register(String name, Cipher cipher) {
+        publish();
+        CipherMonitor current = CIPHERS.get(name);
+        if (current != null && current.getCipher() == cipher) {
+            return;
+        }
+        unregister(name);
+        CipherMonitor monitor = new CipherMonitor(cipher);
+        registerMBean(monitor, cipherName(name));
+        CIPHERS.put(name, monitor);
+    }
+
+    // MODIFIES: the platform MBean server
+    // EFFECTS: stops monitoring the cipher registered under the given name, if any, and restores its
+    // block statistics to what they were before it was registered
+    public static synchronized void unregister(String name) {
+        CipherMonitor monitor = CIPHERS.remove(name);
+        if (monitor != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(cipherName(name));
+            } catch (JMException e) {
+                throw new IllegalStateException("could not unregister cipher " + name, e);
+            }
+            monitor.close();
+        }
+    }
+
+    // MODIFIES: the platform MBean server
+    // EFFECTS: reports the hit ratio of cache under its name, replacing any cache of the same name
+    public static synchronized void registerCache(CacheStatistics cache) {
+        publish();
+        CACHES.put(cache.getName(), cache);
+    }
+
+    // EFFECTS: stops reporting the cache with the given name, if any
+    public static synchronized void unregisterCache(String name) {
+        CACHES.remove(name);
+    }
+
+    // EFFECTS: returns the name of the MXBean of the cipher monitored under the given name
+    public static ObjectName cipherName(String name) {
+        return objectName(DOMAIN + ":type=Cipher,name=" + ObjectName.quote(name));
+    }
+
+    private static ObjectName objectName(String name) {
+        try {
+            return new ObjectName(name);
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private static void registerMBean(Object mbean, ObjectName name) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(mbean, name);
+        } catch (JMException e) {
+            throw new IllegalStateException("could not register " + name, e);
+        }
+    }
+
+    /*
+    Registry publishes the set of monitored ciphers and caches.
+     */
+    private static final class Registry implements CipherRegistryMXBean {
+        @Override
+        public int getActiveCiphers() {
+            synchronized (Monitoring.class) {
+                return CIPHERS.size();
+            }
+        }
+
+        @Override
+        public String[] getCipherNames() {
+            synchronized (Monitoring.class) {
+                return CIPHERS.keySet().toArray(new String[0]);
+            }
+        }
+
+        @Override
+        public Map<String, Double> getCacheHitRatios() {
+            Map<String, Double> ratios = new LinkedHashMap<>();
+            synchronized (Monitoring.class) {
+                for (Map.Entry<String, CipherMonitor> entry : CIPHERS.entrySet()) {
+                    ratios.put("plan:" + entry.getKey(), entry.getValue().getPlanCacheHitRatio());
+                }
+                for (CacheStatistics cache : CACHES.values()) {
+                    ratios.put(cache.getName(), cache.getHitRatio());
+                }
+            }
+            return ratios;
+        }
+
+        @Override
+        public void resetCounters() {
+            synchronized (Monitoring.class) {
+                for (CipherMonitor monitor : CIPHERS.values()) {
+                    monitor.resetCounters();
+                }
+                for (CacheStatistics cache : CACHES.values()) {
+                    cache.resetStatistics();
+                }
+            }
+            new EventLogMonitor().resetCounters();
+        }
+
+        @Override
+        public void clearEventLog() {
+            new EventLogMonitor().clear();
+        }
+    }
+}
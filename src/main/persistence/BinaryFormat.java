@@ -0,0 +1,91 @@
+package persistence;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/*
+BinaryFormat describes the compact binary cipher format written by BinaryWriter and read by BinaryReader.
+All numbers are big-endian:
+
+  header   magic "BLKY" (4 bytes), format version (2 bytes), flags (2 bytes, 0),
+           block size (4 bytes), number of rounds (4 bytes)
+  round    type (1 byte: 0 mix key, 1 substitution, 2 permutation), followed for substitution and
+           permutation rounds by the mapping as a packed array
+  packed   length (4 bytes), element width (1 byte: 1, 2 or 4), then length unsigned elements of that
+           width; the width is the smallest that fits the largest element
+  trailer  CRC-32 of every byte before it (4 bytes)
+ */
+final class BinaryFormat {
+    static final int MAGIC = 0x424C4B59;
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int TRAILER_SIZE = 4;
+
+    static final byte MIX_KEY = 0;
+    static final byte SUBSTITUTION = 1;
+    static final byte PERMUTATION = 2;
+
+    private BinaryFormat() {
+    }
+
+    // EFFECTS: returns the smallest element width that fits every value of mapping
+    static int widthOf(int[] mapping) {
+        int max = 0;
+        for (int value : mapping) {
+            max |= value;
+        }
+        if ((max & ~0xFF) == 0) {
+            return 1;
+        }
+        return (max & ~0xFFFF) == 0 ? 2 : 4;
+    }
+
+    // EFFECTS: returns the number of bytes mapping takes as a packed array
+    static int packedSize(int[] mapping) {
+        return 5 + mapping.length * widthOf(mapping);
+    }
+
+    // REQUIRES: buffer has packedSize(mapping) bytes remaining
+    // MODIFIES: buffer
+    // EFFECTS: writes mapping as a packed array
+    static void putPacked(ByteBuffer buffer, int[] mapping) {
+        int width = widthOf(mapping);
+        buffer.putInt(mapping.length);
+        buffer.put((byte) width);
+        for (int value : mapping) {
+            if (width == 1) {
+                buffer.put((byte) value);
+            } else if (width == 2) {
+                buffer.putShort((short) value);
+            } else {
+                buffer.putInt(value);
+            }
+        }
+    }
+
+    // MODIFIES: buffer
+    // EFFECTS: reads a packed array; throws IOException if it is malformed or runs past the buffer
+    static int[] getPacked(ByteBuffer buffer) throws IOException {
+        try {
+            int length = buffer.getInt();
+            int width = buffer.get();
+            if (length < 0 || (width != 1 && width != 2 && width != 4) || (long) length * width > buffer.remaining()) {
+                throw new IOException("malformed mapping at offset " + (buffer.position() - 5));
+            }
+            int[] mapping = new int[length];
+            for (int i = 0; i < length; i++) {
+                if (width == 1) {
+                    mapping[i] = buffer.get() & 0xFF;
+                } else if (width == 2) {
+                    mapping[i] = buffer.getShort() & 0xFFFF;
+                } else {
+                    mapping[i] = buffer.getInt();
+                }
+            }
+            return mapping;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("truncated mapping", e);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package persistence;
+
+import model.Cipher;
+import model.Mappings;
+import model.MixKeyRound;
+import model.PermutationRound;
+import model.SubstitutionRound;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.zip.CRC32;
+
+// Loads the corresponding cipher from a file in the compact binary format (see BinaryFormat)
+public class BinaryReader {
+    private String source;
+
+    // EFFECTS: constructs reader to read from source file
+    public BinaryReader(String source) {
+        this.source = source;
+    }
+
+    // EFFECTS: reads cipher from file and returns it;
+    // throws IOException if an error occurs reading data from file or the data is not a valid cipher
+    public Cipher read() throws IOException {
+        CipherLoadEvent event = new CipherLoadEvent();
+        event.begin();
+        byte[] data = Files.readAllBytes(Paths.get(source));
+        Cipher cipher = decode(data);
+        event.end();
+        if (event.shouldCommit()) {
+            event.source = source;
+            event.blockSize = cipher.getBlockSize();
+            event.roundCount = cipher.getNumberOfRounds();
+            event.bytesRead = data.length;
+            event.commit();
+        }
+        return cipher;
+    }
+
+    // EFFECTS: parses cipher from its binary representation and returns it; throws IOException if data
+    // is truncated, corrupted, or written by an unsupported version of the format
+    public static Cipher decode(byte[] data) throws IOException {
+        ByteBuffer buffer = checkHeader(data);
+        int blockSize = buffer.getInt();
+        int roundCount = buffer.getInt();
+        if (blockSize < 1 || roundCount < 0) {
+            throw new IOException("invalid block size " + blockSize + " or round count " + roundCount);
+        }
+        buffer.limit(data.length - BinaryFormat.TRAILER_SIZE);
+        Cipher cipher = new Cipher(blockSize);
+        for (int i = 0; i < roundCount; i++) {
+            if (!buffer.hasRemaining()) {
+                throw new IOException("expected " + roundCount + " rounds but found " + i);
+            }
+            addRound(cipher, buffer);
+        }
+        if (buffer.hasRemaining()) {
+            throw new IOException(buffer.remaining() + " unexpected bytes after the last round");
+        }
+        return cipher;
+    }
+
+    // EFFECTS: checks the magic number, version and checksum of data and returns a buffer positioned
+    // after the version and flags; throws IOException if any of them is wrong
+    private static ByteBuffer checkHeader(byte[] data) throws IOException {
+        if (data.length < BinaryFormat.HEADER_SIZE + BinaryFormat.TRAILER_SIZE) {
+            throw new IOException("too short to be a binary cipher");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        if (buffer.getInt() != BinaryFormat.MAGIC) {
+            throw new IOException("not a binary cipher");
+        }
+        short version = buffer.getShort();
+        if (version != BinaryFormat.VERSION) {
+            throw new IOException("unsupported binary cipher version " + version);
+        }
+        buffer.getShort();
+        CRC32 checksum = new CRC32();
+        checksum.update(data, 0, data.length - BinaryFormat.TRAILER_SIZE);
+        if ((int) checksum.getValue() != buffer.getInt(data.length - BinaryFormat.TRAILER_SIZE)) {
+            throw new IOException("checksum mismatch");
+        }
+        return buffer;
+    }
+
+    // MODIFIES: cipher, buffer
+    // EFFECTS: parses the next round from buffer and adds it to cipher's rounds; throws IOException if its type is
+    // unknown, a substitution mapping is not a permutation of the 16 nibble values, or a permutation mapping is not
+    // a permutation of the block's bits
+    private static void addRound(Cipher cipher, ByteBuffer buffer) throws IOException {
+        byte type = buffer.get();
+        if (type == BinaryFormat.MIX_KEY) {
+            cipher.addRound(new MixKeyRound(cipher.getBlockSize()));
+        } else if (type == BinaryFormat.SUBSTITUTION) {
+            SubstitutionRound sround = new SubstitutionRound(cipher.getBlockSize());
+            sround.setSubstitutionMapping(checkPermutation(BinaryFormat.getPacked(buffer), 16, "substitution"));
+            cipher.addRound(sround);
+        } else if (type == BinaryFormat.PERMUTATION) {
+            int[] mapping = BinaryFormat.getPacked(buffer);
+            if (mapping.length != cipher.getBlockSize() * 8) {
+                throw new IOException("permutation of " + mapping.length + " bits in a " + cipher.getBlockSize()
+                        + "-byte block");
+            }
+            PermutationRound pround = new PermutationRound(cipher.getBlockSize());
+            pround.setPermutationMapping(checkPermutation(mapping, mapping.length, "permutation"));
+            cipher.addRound(pround);
+        } else {
+            throw new IOException("unknown round type " + type);
+        }
+    }
+
+    // EFFECTS: returns mapping if it contains each of the numbers 0 to length - 1 exactly once; otherwise throws
+    // IOException naming the kind of mapping
+    private static int[] checkPermutation(int[] mapping, int length, String kind) throws IOException {
+        if (!Mappings.isPermutation(mapping, length)) {
+            throw new IOException("invalid " + kind + " mapping");
+        }
+        return mapping;
+    }
+}
@@ -0,0 +1,97 @@
+package persistence;
+
+import model.Cipher;
+import model.MixKeyRound;
+import model.PermutationRound;
+import model.Round;
+import model.SubstitutionRound;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.zip.CRC32;
+
+// Represents a writer that writes the compact binary representation of a cipher (see BinaryFormat) to file
+public class BinaryWriter {
+    private String destination;
+
+    // EFFECTS: constructs writer to write to destination file
+    public BinaryWriter(String destination) {
+        this.destination = destination;
+    }
+
+    // EFFECTS: writes the binary representation of cipher to the destination file, replacing its contents;
+    // throws IOException if the file cannot be written
+    public void write(Cipher cipher) throws IOException {
+        CipherSaveEvent event = new CipherSaveEvent();
+        event.begin();
+        byte[] data = encode(cipher);
+        Files.write(Paths.get(destination), data);
+        event.end();
+        if (event.shouldCommit()) {
+            event.destination = destination;
+            event.blockSize = cipher.getBlockSize();
+            event.roundCount = cipher.getNumberOfRounds();
+            event.bytesWritten = data.length;
+            event.commit();
+        }
+    }
+
+    // EFFECTS: returns the binary representation of cipher; throws IllegalArgumentException if cipher has a
+    // round that is not a mix key, substitution or permutation round
+    public static byte[] encode(Cipher cipher) {
+        ByteBuffer buffer = ByteBuffer.allocate(sizeOf(cipher));
+        buffer.putInt(BinaryFormat.MAGIC);
+        buffer.putShort(BinaryFormat.VERSION);
+        buffer.putShort((short) 0);
+        buffer.putInt(cipher.getBlockSize());
+        buffer.putInt(cipher.getNumberOfRounds());
+        for (Round round : cipher) {
+            putRound(buffer, round);
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) checksum.getValue());
+        return buffer.array();
+    }
+
+    // MODIFIES: buffer
+    // EFFECTS: puts the type and mapping of round into buffer
+    private static void putRound(ByteBuffer buffer, Round round) {
+        if (round instanceof SubstitutionRound) {
+            buffer.put(BinaryFormat.SUBSTITUTION);
+            BinaryFormat.putPacked(buffer, ((SubstitutionRound) round).getSubstitutionMapping());
+        } else if (round instanceof PermutationRound) {
+            buffer.put(BinaryFormat.PERMUTATION);
+            BinaryFormat.putPacked(buffer, ((PermutationRound) round).getPermutationMapping());
+        } else {
+            checkMixKey(round);
+            buffer.put(BinaryFormat.MIX_KEY);
+        }
+    }
+
+    // EFFECTS: returns the number of bytes in the binary representation of cipher; throws
+    // IllegalArgumentException if cipher has a round that is not a mix key, substitution or permutation round
+    private static int sizeOf(Cipher cipher) {
+        int size = BinaryFormat.HEADER_SIZE + BinaryFormat.TRAILER_SIZE + cipher.getNumberOfRounds();
+        for (Round round : cipher) {
+            if (round instanceof SubstitutionRound) {
+                size += BinaryFormat.packedSize(((SubstitutionRound) round).getSubstitutionMapping());
+            } else if (round instanceof PermutationRound) {
+                size += BinaryFormat.packedSize(((PermutationRound) round).getPermutationMapping());
+            } else {
+                checkMixKey(round);
+            }
+        }
+        return size;
+    }
+
+    // EFFECTS: throws IllegalArgumentException if round is not a mix key round, the only round type
+    // stored without a mapping
+    private static void checkMixKey(Round round) {
+        if (!(round instanceof MixKeyRound)) {
+            throw new IllegalArgumentException("cannot encode round of type " + round.getClass().getName());
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package persistence;
+
+import model.Cipher;
+import model.management.CacheStatistics;
+import model.management.Monitoring;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+CipherCache holds loaded and precompiled ciphers, keyed by the identity of the file they were loaded from:
+its canonical path, size, modification time and a SHA-256 hash of its contents. Every lookup reads and
+hashes the file, which is much cheaper than parsing it, so an edited file is never served from the cache
+even if its size and modification time did not change. Both JSON and binary cipher files are accepted.
+
+The cache keeps at most maxEntries ciphers and evicts the least recently used one beyond that; loading a
+new version of a file also drops the cached older versions. Concurrent lookups of the same file version
+share a single load. Cached ciphers are shared between callers, who may use them from many threads at once
+but must not add rounds to them.
+ */
+public final class CipherCache implements CacheStatistics {
+    /** number of ciphers kept unless the blocky.ciphercache.capacity system property says otherwise */
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private final int maxEntries;
+    private final LinkedHashMap<Key, CompletableFuture<Cipher>> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /*
+    Holds the process-wide cache, created and published to Monitoring on first use.
+     */
+    private static class Holder {
+        private static final CipherCache SHARED = createShared();
+
+        private static CipherCache createShared() {
+            CipherCache cache = new CipherCache(Integer.getInteger("blocky.ciphercache.capacity", DEFAULT_CAPACITY));
+            Monitoring.registerCache(cache);
+            return cache;
+        }
+    }
+
+    // EFFECTS: constructs an empty cache that keeps at most maxEntries ciphers; throws
+    // IllegalArgumentException if maxEntries is less than 1
+    public CipherCache(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("cipher cache capacity must be at least 1");
+        }
+        this.maxEntries = maxEntries;
+        entries = new LinkedHashMap<Key, CompletableFuture<Cipher>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, CompletableFuture<Cipher>> eldest) {
+                boolean evict = size() > CipherCache.this.maxEntries;
+                if (evict) {
+                    evictions.increment();
+                }
+                return evict;
+            }
+        };
+    }
+
+    // EFFECTS: returns the process-wide cache
+    public static CipherCache getShared() {
+        return Holder.SHARED;
+    }
+
+    // EFFECTS: returns the cipher in the given file, loading and precompiling it unless the same version
+    // of the file is already cached or being loaded by another thread; throws IOException if the file
+    // cannot be read or is not a valid cipher
+    public Cipher get(String source) throws IOException {
+        Path path = Paths.get(source).toRealPath();
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        byte[] data = Files.readAllBytes(path);
+        Key key = new Key(path, attributes.size(), attributes.lastModifiedTime(), CipherFiles.sha256(data));
+        CompletableFuture<Cipher> loading = new CompletableFuture<>();
+        CompletableFuture<Cipher> cached;
+        synchronized (this) {
+            cached = entries.get(key);
+            if (cached == null) {
+                entries.keySet().removeIf(other -> other.path.equals(path));
+                entries.put(key, loading);
+            }
+        }
+        if (cached != null) {
+            hits.increment();
+            return await(cached);
+        }
+        misses.increment();
+        return load(key, data, loading);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: parses and precompiles the cipher in data and completes loading with it; if that fails,
+    // completes loading with the failure, removes it from the cache and throws it
+    private Cipher load(Key key, byte[] data, CompletableFuture<Cipher> loading) throws IOException {
+        try {
+            Cipher cipher = CipherFiles.parse(data);
+            cipher.precompile();
+            loading.complete(cipher);
+            return cipher;
+        } catch (IOException | RuntimeException e) {
+            loading.completeExceptionally(e);
+            synchronized (this) {
+                entries.remove(key, loading);
+            }
+            throw e;
+        }
+    }
+
+    // EFFECTS: waits for a load started by another lookup and returns its cipher, or throws its failure
+    private static Cipher await(CompletableFuture<Cipher> loading) throws IOException {
+        try {
+            return loading.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw new IOException(e.getCause().getMessage(), e.getCause());
+            }
+            throw e;
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: removes every cached cipher
+    public synchronized void invalidateAll() {
+        entries.clear();
+    }
+
+    // EFFECTS: returns the number of cached ciphers, including those still loading
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    @Override
+    public String getName() {
+        return "cipher-cache";
+    }
+
+    @Override
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    // EFFECTS: returns the number of ciphers evicted to keep the cache within its capacity
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    @Override
+    public void resetStatistics() {
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+    }
+
+    /*
+    Key is the identity of one version of a cipher file.
+     */
+    private static final class Key {
+        private final Path path;
+        private final long size;
+        private final FileTime modified;
+        private final byte[] hash;
+
+        private Key(Path path, long size, FileTime modified, byte[] hash) {
+            this.path = path;
+            this.size = size;
+            this.modified = modified;
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return path.equals(other.path) && size == other.size && modified.equals(other.modified)
+                    && Arrays.equals(hash, other.hash);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, size, modified, Arrays.hashCode(hash));
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package persistence;
+
+import model.Cipher;
+
+import java.io.IOException;
+
+// Converts cipher files between the JSON format and the compact binary format; both formats hold the
+// block size and every round with its mapping, so converting back and forth loses nothing
+public final class CipherConverter {
+    private CipherConverter() {
+    }
+
+    // EFFECTS: reads the JSON cipher in source and writes it to destination in the binary format;
+    // throws IOException if either file cannot be accessed or source is not a valid JSON cipher
+    public static void jsonToBinary(String source, String destination) throws IOException {
+        Cipher cipher = new JsonStreamReader(source).read();
+        new BinaryWriter(destination).write(cipher);
+    }
+
+    // EFFECTS: reads the binary cipher in source and writes it to destination in the JSON format;
+    // throws IOException if either file cannot be accessed or source is not a valid binary cipher
+    public static void binaryToJson(String source, String destination) throws IOException {
+        Cipher cipher = new BinaryReader(source).read();
+        JsonWriter writer = new JsonWriter(destination);
+        writer.open();
+        writer.write(cipher);
+        writer.close();
+    }
+}
@@ -0,0 +1,36 @@
+package persistence;
+
+import model.Cipher;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+// Helpers shared by the classes that load cipher files of either format from bytes already read
+final class CipherFiles {
+    private CipherFiles() {
+    }
+
+    // EFFECTS: returns the cipher in data, read as a binary cipher if it starts with the binary format's
+    // magic number and as JSON otherwise; throws IOException if data is not a valid cipher
+    static Cipher parse(byte[] data) throws IOException {
+        if (data.length >= 4 && ByteBuffer.wrap(data).getInt() == BinaryFormat.MAGIC) {
+            return BinaryReader.decode(data);
+        }
+        return JsonStreamReader.parse(new InputStreamReader(new ByteArrayInputStream(data), StandardCharsets.UTF_8));
+    }
+
+    // EFFECTS: returns the SHA-256 hash of data
+    static byte[] sha256(byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
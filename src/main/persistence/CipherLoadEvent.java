@@ -0,0 +1,32 @@
+package persistence;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+// Flight Recorder event for reading and building a cipher from a file with JsonReader or BinaryReader
+@Name("blocky.CipherLoad")
+@Label("Cipher Load")
+@Category({"Blocky", "Persistence"})
+@Description("Cipher read from a file and built")
+@StackTrace(false)
+@Threshold("0 ms")
+final class CipherLoadEvent extends jdk.jfr.Event {
+    @Label("Source")
+    String source;
+
+    @Label("Block Size")
+    @DataAmount
+    int blockSize;
+
+    @Label("Round Count")
+    int roundCount;
+
+    @Label("Bytes Read")
+    @DataAmount
+    long bytesRead;
+}
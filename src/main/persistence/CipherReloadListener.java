@@ -0,0 +1,16 @@
+package persistence;
+
+import model.Cipher;
+
+import java.io.IOException;
+
+// Receives notice from a CipherWatcher of every attempt to reload a watched cipher file. Notices are sent
+// from the watcher's reload thread, one at a time
+public interface CipherReloadListener {
+    // EFFECTS: called after a new version of cipher has been swapped in, replacing previous
+    void cipherReloaded(ReloadableCipher cipher, Cipher previous);
+
+    // EFFECTS: called when a changed file could not be loaded; cipher keeps its current version
+    default void reloadFailed(ReloadableCipher cipher, IOException cause) {
+    }
+}
@@ -0,0 +1,32 @@
+package persistence;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+// Flight Recorder event for writing a cipher to a file with JsonWriter or BinaryWriter
+@Name("blocky.CipherSave")
+@Label("Cipher Save")
+@Category({"Blocky", "Persistence"})
+@Description("Cipher written to a file")
+@StackTrace(false)
+@Threshold("0 ms")
+final class CipherSaveEvent extends jdk.jfr.Event {
+    @Label("Destination")
+    String destination;
+
+    @Label("Block Size")
+    @DataAmount
+    int blockSize;
+
+    @Label("Round Count")
+    int roundCount;
+
+    @Label("Bytes Written")
+    @DataAmount
+    long bytesWritten;
+}
@@ -0,0 +1,222 @@
+package persistence;
+
+import model.Cipher;
+import model.EventLog;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/*
+CipherWatcher keeps watched cipher files (JSON or binary) loaded as they are edited. It watches the
+directories of the watched files with a WatchService and, once a file has stopped changing for the debounce
+interval, reloads it on a background thread: the new version is parsed, validated and precompiled there, and
+only then swapped into the file's ReloadableCipher, so encryption never waits for a reload. Editors that
+write a file several times, or replace it with a renamed copy, cause a single reload. A changed file that is
+not a valid cipher leaves the current version in place. Listeners hear of every swap and every failed reload,
+and each swap is also recorded in the EventLog.
+ */
+public final class CipherWatcher implements Closeable {
+    /** milliseconds a file must be left unchanged before it is reloaded, unless given otherwise */
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 200;
+
+    private final long debounceMillis;
+    private final WatchService watchService;
+    private final ScheduledExecutorService reloader;
+    private final Map<Path, ReloadableCipher> watched = new HashMap<>();
+    private final Map<Path, WatchKey> directories = new HashMap<>();
+    private final Map<Path, ScheduledFuture<?>> pending = new HashMap<>();
+    private final List<CipherReloadListener> listeners = new CopyOnWriteArrayList<>();
+
+    // EFFECTS: constructs a watcher that reloads files once they have been left unchanged for
+    // DEFAULT_DEBOUNCE_MILLIS; throws IOException if the file system cannot be watched
+    public CipherWatcher() throws IOException {
+        this(DEFAULT_DEBOUNCE_MILLIS);
+    }
+
+    // EFFECTS: constructs a watcher that reloads files once they have been left unchanged for debounceMillis;
+    // throws IllegalArgumentException if debounceMillis is negative, and IOException if the file system
+    // cannot be watched
+    public CipherWatcher(long debounceMillis) throws IOException {
+        if (debounceMillis < 0) {
+            throw new IllegalArgumentException("debounce interval must not be negative");
+        }
+        this.debounceMillis = debounceMillis;
+        watchService = FileSystems.getDefault().newWatchService();
+        reloader = Executors.newSingleThreadScheduledExecutor(task -> daemon(task, "cipher-reloader"));
+        daemon(this::watchLoop, "cipher-watcher").start();
+    }
+
+    // EFFECTS: returns an unstarted daemon thread with the given name that runs task
+    private static Thread daemon(Runnable task, String name) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: loads the cipher in the given file and starts watching the file for changes, returning the
+    // handle that always holds its latest valid version; a file already being watched keeps its handle.
+    // Throws IOException if the file cannot be read or is not a valid cipher
+    public synchronized ReloadableCipher watch(String source) throws IOException {
+        Path path = Paths.get(source).toAbsolutePath().normalize();
+        ReloadableCipher cipher = watched.get(path);
+        if (cipher != null) {
+            return cipher;
+        }
+        byte[] data = Files.readAllBytes(path);
+        Cipher loaded = CipherFiles.parse(data);
+        loaded.precompile();
+        Path directory = path.getParent();
+        if (!directories.containsKey(directory)) {
+            directories.put(directory, directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY));
+        }
+        cipher = new ReloadableCipher(path, loaded, CipherFiles.sha256(data));
+        watched.put(path, cipher);
+        return cipher;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stops watching the given file; its handle keeps the version it holds
+    public synchronized void unwatch(String source) {
+        Path path = Paths.get(source).toAbsolutePath().normalize();
+        if (watched.remove(path) == null) {
+            return;
+        }
+        ScheduledFuture<?> reload = pending.remove(path);
+        if (reload != null) {
+            reload.cancel(false);
+        }
+        Path directory = path.getParent();
+        if (watched.keySet().stream().noneMatch(other -> other.getParent().equals(directory))) {
+            directories.remove(directory).cancel();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds listener to the listeners told of every reload
+    public void addListener(CipherReloadListener listener) {
+        listeners.add(listener);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: removes listener from the listeners told of every reload
+    public void removeListener(CipherReloadListener listener) {
+        listeners.remove(listener);
+    }
+
+    public long getDebounceMillis() {
+        return debounceMillis;
+    }
+
+    // EFFECTS: waits for and dispatches changes to watched directories until the watcher is closed
+    private void watchLoop() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                Path directory = (Path) key.watchable();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    changed(directory, event);
+                }
+                key.reset();
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // the watcher was closed
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: schedules a reload of the watched file event refers to, or of every watched file in directory
+    // if events were lost
+    private synchronized void changed(Path directory, WatchEvent<?> event) {
+        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+            watched.keySet().stream().filter(path -> path.getParent().equals(directory))
+                    .forEach(this::schedule);
+        } else {
+            Path path = directory.resolve((Path) event.context());
+            if (watched.containsKey(path)) {
+                schedule(path);
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: (re)starts the debounce interval after which the watched file at path is reloaded
+    private void schedule(Path path) {
+        if (reloader.isShutdown()) {
+            return;
+        }
+        ScheduledFuture<?> previous = pending.get(path);
+        if (previous != null) {
+            previous.cancel(false);
+        }
+        pending.put(path, reloader.schedule(() -> reload(path), debounceMillis, TimeUnit.MILLISECONDS));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: loads the watched file at path and swaps the new version in if its contents changed, telling
+    // the listeners; if it cannot be loaded, tells the listeners and keeps the current version
+    private void reload(Path path) {
+        ReloadableCipher cipher;
+        synchronized (this) {
+            pending.remove(path);
+            cipher = watched.get(path);
+        }
+        if (cipher == null) {
+            return;
+        }
+        try {
+            byte[] data = Files.readAllBytes(path);
+            byte[] hash = CipherFiles.sha256(data);
+            if (!Arrays.equals(hash, cipher.getHash())) {
+                Cipher loaded = CipherFiles.parse(data);
+                loaded.precompile();
+                swap(cipher, loaded, hash);
+            }
+        } catch (IOException e) {
+            listeners.forEach(listener -> listener.reloadFailed(cipher, e));
+        } catch (RuntimeException e) {
+            IOException failure = new IOException("invalid cipher: " + e.getMessage(), e);
+            listeners.forEach(listener -> listener.reloadFailed(cipher, failure));
+        }
+    }
+
+    // MODIFIES: cipher
+    // EFFECTS: makes loaded the current version of cipher, records the swap and tells the listeners
+    private void swap(ReloadableCipher cipher, Cipher loaded, byte[] hash) {
+        Cipher previous = cipher.swap(loaded, hash);
+        EventLog.getInstance().logEvent("Reloaded cipher from " + cipher.getPath());
+        listeners.forEach(listener -> listener.cipherReloaded(cipher, previous));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stops watching every file; handles keep the versions they hold
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        reloader.shutdownNow();
+        synchronized (this) {
+            watched.clear();
+            directories.clear();
+            pending.clear();
+        }
+    }
+}
@@ -26,9 +26,20 @@ public class JsonReader {
     // EFFECTS: reads cipher from file and returns it;
     // throws IOException if an error occurs reading data from file
     public Cipher read() throws IOException {
+        CipherLoadEvent event = new CipherLoadEvent();
+        event.begin();
         String jsonData = readFile(source);
         JSONObject jsonObject = new JSONObject(jsonData);
-        return parseCipher(jsonObject);
+        Cipher cipher = parseCipher(jsonObject);
+        event.end();
+        if (event.shouldCommit()) {
+            event.source = source;
+            event.blockSize = cipher.getBlockSize();
+            event.roundCount = cipher.getNumberOfRounds();
+            event.bytesRead = Files.size(Paths.get(source));
+            event.commit();
+        }
+        return cipher;
     }
 
     // EFFECTS: reads source file as string and returns it
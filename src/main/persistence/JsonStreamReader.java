@@ -0,0 +1,231 @@
+package persistence;
+
+import model.Cipher;
+import model.Mappings;
+import model.MixKeyRound;
+import model.PermutationRound;
+import model.Round;
+import model.SubstitutionRound;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+// Loads the corresponding cipher from JSON data in a file, like JsonReader, but token by token: the file
+// is never held in memory as a whole, and each mapping is read straight into an int[]. Unlike JsonReader,
+// it rejects rounds of unknown type and mappings that are not permutations (of the block's bits, for
+// permutation rounds). A lenient reader accepts any mapping the rounds accept, as JsonReader does, so that
+// files saved before mappings were checked still load
+public class JsonStreamReader {
+    private String source;
+    private boolean lenient;
+
+    // EFFECTS: constructs reader to read from source file
+    public JsonStreamReader(String source) {
+        this(source, false);
+    }
+
+    // EFFECTS: constructs reader to read from source file, which accepts any mapping the rounds accept
+    // if lenient is true
+    public JsonStreamReader(String source, boolean lenient) {
+        this.source = source;
+        this.lenient = lenient;
+    }
+
+    // EFFECTS: reads cipher from file and returns it;
+    // throws IOException if an error occurs reading data from file or the data is not a valid cipher
+    public Cipher read() throws IOException {
+        CipherLoadEvent event = new CipherLoadEvent();
+        event.begin();
+        Path path = Paths.get(source);
+        Cipher cipher;
+        try (Reader reader = new InputStreamReader(Files.newInputStream(path), StandardCharsets.UTF_8)) {
+            cipher = parse(reader, lenient);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.source = source;
+            event.blockSize = cipher.getBlockSize();
+            event.roundCount = cipher.getNumberOfRounds();
+            event.bytesRead = Files.size(path);
+            event.commit();
+        }
+        return cipher;
+    }
+
+    // MODIFIES: reader
+    // EFFECTS: parses the cipher that is all reader holds and returns it; throws IOException if reading
+    // fails or the data is not a valid cipher
+    static Cipher parse(Reader reader) throws IOException {
+        return parse(reader, false);
+    }
+
+    // MODIFIES: reader
+    // EFFECTS: parses the cipher that is all reader holds as parse does, accepting any mapping the rounds
+    // accept if lenient is true
+    static Cipher parse(Reader reader, boolean lenient) throws IOException {
+        return parseCipher(new JsonTokenizer(reader), lenient);
+    }
+
+    // MODIFIES: tokenizer
+    // EFFECTS: parses a cipher object and returns it; rounds that come before the block size are kept
+    // until it is known, and members other than blockSize and rounds are skipped
+    private static Cipher parseCipher(JsonTokenizer tokenizer, boolean lenient) throws IOException {
+        Cipher cipher = null;
+        List<ParsedRound> early = new ArrayList<>();
+        tokenizer.expect('{');
+        if (!tokenizer.consumeIf('}')) {
+            do {
+                String key = tokenizer.readKey();
+                if (key.equals("blockSize")) {
+                    cipher = createCipher(tokenizer, cipher, early);
+                } else if (key.equals("rounds")) {
+                    parseRounds(tokenizer, cipher, early, lenient);
+                } else {
+                    tokenizer.skipValue();
+                }
+            } while (tokenizer.consumeIf(','));
+            tokenizer.expect('}');
+        }
+        return checkComplete(tokenizer, cipher);
+    }
+
+    // MODIFIES: tokenizer
+    // EFFECTS: reads a positive block size and returns a cipher of that size holding the early rounds;
+    // throws IOException if the block size is invalid or the cipher already has one (cipher is not null)
+    private static Cipher createCipher(JsonTokenizer tokenizer, Cipher cipher, List<ParsedRound> early)
+            throws IOException {
+        if (cipher != null) {
+            throw tokenizer.error("duplicate blockSize");
+        }
+        int blockSize = tokenizer.readInt();
+        if (blockSize < 1) {
+            throw tokenizer.error("block size should be positive");
+        }
+        Cipher created = new Cipher(blockSize);
+        for (ParsedRound round : early) {
+            created.addRound(round.toRound(blockSize));
+        }
+        return created;
+    }
+
+    // EFFECTS: returns cipher if it was given a block size and is followed by nothing but whitespace
+    private static Cipher checkComplete(JsonTokenizer tokenizer, Cipher cipher) throws IOException {
+        if (cipher == null) {
+            throw tokenizer.error("missing blockSize");
+        }
+        if (tokenizer.peek() != -1) {
+            throw tokenizer.error("unexpected data after the cipher");
+        }
+        return cipher;
+    }
+
+    // MODIFIES: tokenizer, cipher, early
+    // EFFECTS: parses an array of rounds, adding each to cipher as soon as it is read, or to early if the
+    // block size is not known yet (cipher is null)
+    private static void parseRounds(JsonTokenizer tokenizer, Cipher cipher, List<ParsedRound> early,
+                                    boolean lenient) throws IOException {
+        tokenizer.expect('[');
+        if (tokenizer.consumeIf(']')) {
+            return;
+        }
+        do {
+            ParsedRound round = parseRound(tokenizer, lenient);
+            if (cipher == null) {
+                early.add(round);
+            } else {
+                cipher.addRound(round.toRound(cipher.getBlockSize()));
+            }
+        } while (tokenizer.consumeIf(','));
+        tokenizer.expect(']');
+    }
+
+    // MODIFIES: tokenizer
+    // EFFECTS: parses a round object, whose members may come in any order
+    private static ParsedRound parseRound(JsonTokenizer tokenizer, boolean lenient) throws IOException {
+        String type = null;
+        int[] mapping = null;
+        tokenizer.expect('{');
+        if (!tokenizer.consumeIf('}')) {
+            do {
+                String key = tokenizer.readKey();
+                if (key.equals("type")) {
+                    type = tokenizer.readString();
+                } else if (key.equals("mapping")) {
+                    mapping = tokenizer.readIntArray();
+                } else {
+                    tokenizer.skipValue();
+                }
+            } while (tokenizer.consumeIf(','));
+            tokenizer.expect('}');
+        }
+        return new ParsedRound(type, mapping, tokenizer.getOffset(), lenient);
+    }
+
+    /*
+    ParsedRound is a round as read from the file, before it is checked against the cipher's block size.
+     */
+    private static final class ParsedRound {
+        private final String type;
+        private final int[] mapping;
+        // the character offset at which the round ended, for error messages
+        private final long end;
+        private final boolean lenient;
+
+        private ParsedRound(String type, int[] mapping, long end, boolean lenient) {
+            this.type = type;
+            this.mapping = mapping;
+            this.end = end;
+            this.lenient = lenient;
+        }
+
+        // EFFECTS: returns the round for a cipher with the given block size; throws IOException if the
+        // round has no or an unknown type, its mapping is missing, or (unless lenient) a substitution mapping is
+        // not a permutation of the 16 nibble values or a permutation mapping does not fit the block size
+        private Round toRound(int blockSize) throws IOException {
+            try {
+                return createRound(blockSize);
+            } catch (RuntimeException e) {
+                // a lenient reader passes mappings on unchecked, and the round may still refuse them
+                throw fail("invalid " + type + " mapping");
+            }
+        }
+
+        // EFFECTS: returns the round for a cipher with the given block size, as toRound does
+        private Round createRound(int blockSize) throws IOException {
+            if ("MixKey".equals(type)) {
+                return new MixKeyRound(blockSize);
+            } else if ("Substitution".equals(type)) {
+                SubstitutionRound sround = new SubstitutionRound(blockSize);
+                sround.setSubstitutionMapping(checkMapping(16));
+                return sround;
+            } else if ("Permutation".equals(type)) {
+                PermutationRound pround = new PermutationRound(blockSize);
+                pround.setPermutationMapping(checkMapping(blockSize * 8));
+                return pround;
+            }
+            throw fail(type == null ? "round without a type" : "unknown round type \"" + type + "\"");
+        }
+
+        // EFFECTS: returns the mapping if it is a permutation of the numbers 0 to length - 1, or if it is present
+        // at all and the reader is lenient; otherwise throws IOException
+        private int[] checkMapping(int length) throws IOException {
+            if (mapping == null) {
+                throw fail(type + " round without a mapping");
+            } else if (!lenient && !Mappings.isPermutation(mapping, length)) {
+                throw fail("invalid " + type + " mapping");
+            }
+            return mapping;
+        }
+
+        private IOException fail(String message) {
+            return new IOException(message + " in the round ending at character " + end);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/*
+JsonTokenizer reads JSON values one token at a time from a Reader through a fixed-size buffer, so the
+memory it needs does not depend on the size of the input. Callers walk the document themselves: objects
+and arrays are read with expect, consumeIf and readKey, and values they are not interested in are skipped
+with skipValue. Malformed input is reported as an IOException giving the character offset of the problem.
+ */
+final class JsonTokenizer implements Closeable {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    // number of characters read before the start of buffer
+    private long offset;
+
+    // EFFECTS: constructs a tokenizer that reads from reader
+    JsonTokenizer(Reader reader) {
+        this.reader = reader;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: skips whitespace and returns the next character without consuming it, or -1 at the end
+    // of the input
+    int peek() throws IOException {
+        while (position < limit || fill()) {
+            char c = buffer[position];
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                return c;
+            }
+            position++;
+        }
+        return -1;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: consumes the next non-whitespace character; throws IOException unless it is c
+    void expect(char c) throws IOException {
+        if (peek() != c) {
+            throw error("expected '" + c + "'");
+        }
+        position++;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: consumes the next non-whitespace character and returns true if it is c, otherwise
+    // returns false
+    boolean consumeIf(char c) throws IOException {
+        if (peek() != c) {
+            return false;
+        }
+        position++;
+        return true;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads an object member's name and the colon after it
+    String readKey() throws IOException {
+        String key = readString();
+        expect(':');
+        return key;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads a string; throws IOException if the next value is not a string
+    String readString() throws IOException {
+        expect('"');
+        StringBuilder builder = new StringBuilder();
+        while (true) {
+            char c = next();
+            if (c == '"') {
+                return builder.toString();
+            }
+            builder.append(c == '\\' ? readEscape() : c);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads the character escaped by the backslash just consumed
+    private char readEscape() throws IOException {
+        char c = next();
+        switch (c) {
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'u':
+                return readUnicodeEscape();
+            case '"':
+            case '\\':
+            case '/':
+                return c;
+            default:
+                throw error("invalid escape '\\" + c + "'");
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads the four hexadecimal digits of a \\u escape and returns the character they encode
+    private char readUnicodeEscape() throws IOException {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            int digit = Character.digit(next(), 16);
+            if (digit < 0) {
+                throw error("invalid unicode escape");
+            }
+            value = (value << 4) | digit;
+        }
+        return (char) value;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads an integer; throws IOException if the next value is not a number without fraction
+    // or exponent that fits in an int
+    int readInt() throws IOException {
+        boolean negative = consumeIf('-');
+        long value = 0;
+        int digits = 0;
+        while ((position < limit || fill()) && buffer[position] >= '0' && buffer[position] <= '9') {
+            value = value * 10 + (buffer[position] - '0');
+            if (value > Integer.MAX_VALUE + 1L) {
+                throw error("integer too large");
+            }
+            position++;
+            digits++;
+        }
+        if (digits == 0 || (position < limit && isNumberPart(buffer[position]))) {
+            throw error("expected an integer");
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw error("integer too large");
+        }
+        return (int) value;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads an array of integers; throws IOException if the next value is not one
+    int[] readIntArray() throws IOException {
+        expect('[');
+        int[] values = new int[16];
+        int size = 0;
+        if (!consumeIf(']')) {
+            do {
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size * 2);
+                }
+                values[size++] = readInt();
+            } while (consumeIf(','));
+            expect(']');
+        }
+        return Arrays.copyOf(values, size);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads and discards the next value, whatever it is
+    void skipValue() throws IOException {
+        int c = peek();
+        if (c == '"') {
+            readString();
+        } else if (c == '{') {
+            skipContainer('{', '}', true);
+        } else if (c == '[') {
+            skipContainer('[', ']', false);
+        } else if (c == '-' || (c >= '0' && c <= '9') || (c >= 'a' && c <= 'z')) {
+            // numbers and the literals true, false and null
+            while ((position < limit || fill()) && (isNumberPart(buffer[position])
+                    || (buffer[position] >= 'a' && buffer[position] <= 'z'))) {
+                position++;
+            }
+        } else {
+            throw error("expected a value");
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads and discards an object (if members) or array
+    private void skipContainer(char open, char close, boolean members) throws IOException {
+        expect(open);
+        if (consumeIf(close)) {
+            return;
+        }
+        do {
+            if (members) {
+                readKey();
+            }
+            skipValue();
+        } while (consumeIf(','));
+        expect(close);
+    }
+
+    // EFFECTS: returns the number of characters consumed so far
+    long getOffset() {
+        return offset + position;
+    }
+
+    // EFFECTS: returns an exception describing a problem at the current position
+    IOException error(String message) {
+        return new IOException(message + " at character " + getOffset());
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: consumes and returns the next character, whitespace included; throws IOException at the end
+    // of the input
+    private char next() throws IOException {
+        if (position == limit && !fill()) {
+            throw error("unexpected end of input");
+        }
+        return buffer[position++];
+    }
+
+    // MODIFIES: this
+    // EFFECTS: refills the buffer with the next characters of the input, returning false at its end
+    private boolean fill() throws IOException {
+        offset += limit;
+        position = 0;
+        limit = Math.max(0, reader.read(buffer, 0, buffer.length));
+        return limit > 0;
+    }
+
+    private static boolean isNumberPart(char c) {
+        return (c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E';
+    }
+}
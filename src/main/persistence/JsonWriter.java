@@ -4,6 +4,7 @@ import model.Cipher;
 import org.json.JSONObject;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 
 // referenced JsonSerializationDemo
 // Represents a writer that writes JSON representation of cipher to file
@@ -18,17 +19,28 @@ public class JsonWriter {
     }
 
     // MODIFIES: this
-    // EFFECTS: opens writer; throws FileNotFoundException if destination file cannot
-    // be opened for writing
+    // EFFECTS: opens writer, which encodes in UTF-8 as the readers expect; throws FileNotFoundException if
+    // destination file cannot be opened for writing
     public void open() throws FileNotFoundException {
-        writer = new PrintWriter(new File(destination));
+        writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(destination), StandardCharsets.UTF_8));
     }
 
     // MODIFIES: this
     // EFFECTS: writes JSON representation of cipher to file
     public void write(Cipher cipher) {
+        CipherSaveEvent event = new CipherSaveEvent();
+        event.begin();
         JSONObject json = cipher.toJson();
-        saveToFile(json.toString(TAB));
+        String data = json.toString(TAB);
+        saveToFile(data);
+        event.end();
+        if (event.shouldCommit()) {
+            event.destination = destination;
+            event.blockSize = cipher.getBlockSize();
+            event.roundCount = cipher.getNumberOfRounds();
+            event.bytesWritten = data.getBytes(StandardCharsets.UTF_8).length;
+            event.commit();
+        }
     }
 
     // MODIFIES: this
@@ -0,0 +1,65 @@
+package persistence;
+
+import model.Cipher;
+
+import java.nio.file.Path;
+
+/*
+ReloadableCipher is the current version of a cipher file watched by a CipherWatcher. Each new version is
+swapped in atomically once it has been loaded and precompiled, so callers should call get once per message
+(or per batch): work that already holds a version finishes on it, and later calls see the new one.
+ */
+public final class ReloadableCipher {
+    private final Path path;
+    private volatile Version current;
+
+    /*
+    Version is one loaded version of the file, with the hash of the bytes it was loaded from.
+     */
+    private static final class Version {
+        private final Cipher cipher;
+        private final byte[] hash;
+        private final long number;
+
+        private Version(Cipher cipher, byte[] hash, long number) {
+            this.cipher = cipher;
+            this.hash = hash;
+            this.number = number;
+        }
+    }
+
+    // EFFECTS: constructs a reloadable cipher whose first version is cipher, loaded from bytes with the
+    // given hash
+    ReloadableCipher(Path path, Cipher cipher, byte[] hash) {
+        this.path = path;
+        current = new Version(cipher, hash, 1);
+    }
+
+    // EFFECTS: returns the current version of the cipher; callers must not add rounds to it
+    public Cipher get() {
+        return current.cipher;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    // EFFECTS: returns the number of versions loaded so far, starting at 1
+    public long getVersion() {
+        return current.number;
+    }
+
+    // EFFECTS: returns the hash of the bytes the current version was loaded from
+    byte[] getHash() {
+        return current.hash;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: makes cipher, loaded from bytes with the given hash, the current version and returns the
+    // previous one
+    synchronized Cipher swap(Cipher cipher, byte[] hash) {
+        Version previous = current;
+        current = new Version(cipher, hash, previous.number + 1);
+        return previous.cipher;
+    }
+}
@@ -1,7 +1,8 @@
 package ui;
 
 import model.*;
-import persistence.JsonReader;
+import model.management.Monitoring;
+import persistence.JsonStreamReader;
 import persistence.JsonWriter;
 import ui.exceptions.StartMenuException;
 
@@ -16,13 +17,14 @@ public class CipherApp {
     private Cipher cipher;
     private Scanner input;
     private JsonWriter jsonWriter;
-    private JsonReader jsonReader;
+    private JsonStreamReader jsonReader;
 
     // MODIFIES: this
     // EFFECTS: constructs a new scanner and runs the cipher
     public CipherApp() {
         // by default, construct a cipher with blockSize 2
         cipher = new Cipher(2);
+        Monitoring.register("current", cipher);
         input = new Scanner(System.in);
         input.useDelimiter("\n");
         runCipher();
@@ -84,6 +86,8 @@ public class CipherApp {
             displayCipherContents();
         } else if (command.equals("w")) {
             saveCipher();
+        } else if (command.equals("t")) {
+            displayRoundTimings();
         } else {
             System.out.println("Please select an option from the list above.");
         }
@@ -107,6 +111,7 @@ public class CipherApp {
         System.out.println("\t[k]: add a mix-key round");
         System.out.println("\t[v]: view your current cipher");
         System.out.println("\t[w]: save your current cipher");
+        System.out.println("\t[t]: time each round of your current cipher");
         System.out.println("\t[q]: quit");
     }
 
@@ -126,15 +131,49 @@ public class CipherApp {
         }
     }
 
+    // MODIFIES: this
+    // EFFECTS: turns on round timing if it is off, otherwise prints the latency of each round
+    // of the cipher since timing was turned on
+    private void displayRoundTimings() {
+        if (!cipher.isInstrumentationEnabled()) {
+            cipher.setInstrumentationEnabled(true);
+            System.out.println("Round timing is now on. Encrypt or decrypt some messages, then choose [t] again.");
+            return;
+        }
+        CipherMetrics.Snapshot snapshot = cipher.getMetrics().snapshot();
+        System.out.println("Encrypted " + snapshot.getEncryptedBlocks() + " and decrypted "
+                + snapshot.getDecryptedBlocks() + " blocks (" + snapshot.getBytesProcessed() + " bytes)");
+        System.out.println("Whole block:  " + formatLatencies(snapshot.getEncryptLatency(),
+                snapshot.getDecryptLatency()));
+        for (CipherMetrics.RoundStats step : snapshot.getSteps()) {
+            String rounds = step.getFirstRound() == step.getLastRound() ? "round " + step.getFirstRound()
+                    : "rounds " + step.getFirstRound() + "-" + step.getLastRound();
+            System.out.println(rounds + " (" + step.getType() + "):  "
+                    + formatLatencies(step.getEncryptLatency(), step.getDecryptLatency()));
+        }
+        for (CipherMetrics.RoundStats type : snapshot.getRoundTypes().values()) {
+            System.out.println("all " + type.getType() + " rounds:  "
+                    + formatLatencies(type.getEncryptLatency(), type.getDecryptLatency()));
+        }
+    }
+
+    // EFFECTS: returns the mean and 99th percentile of the given encryption and decryption latencies
+    private String formatLatencies(LatencyHistogram.Snapshot encrypt, LatencyHistogram.Snapshot decrypt) {
+        return String.format("encrypt mean %.0f ns, p99 %d ns | decrypt mean %.0f ns, p99 %d ns",
+                encrypt.getMeanNanos(), encrypt.getPercentileNanos(99),
+                decrypt.getMeanNanos(), decrypt.getPercentileNanos(99));
+    }
+
     // MODIFIES: this
     // EFFECTS: loads the cipher from the given source
     private void loadCipher() throws StartMenuException {
         System.out.println("Please enter the filepath to your cipher:");
         String source = input.next();
         jsonWriter = new JsonWriter(source);
-        jsonReader = new JsonReader(source);
+        jsonReader = new JsonStreamReader(source, true);
         try {
             cipher = jsonReader.read();
+            Monitoring.register("current", cipher);
             System.out.println("Loaded cipher with block size " + cipher.getBlockSize() + "!");
         } catch (IOException e) {
             System.out.println("Unable to read from file: " + source);
@@ -148,7 +187,7 @@ public class CipherApp {
         System.out.println("Please enter the destination filepath:");
         String destination = input.next();
         jsonWriter = new JsonWriter(destination);
-        jsonReader = new JsonReader(destination);
+        jsonReader = new JsonStreamReader(destination, true);
         try {
             jsonWriter.open();
             jsonWriter.write(cipher);
@@ -165,6 +204,7 @@ public class CipherApp {
         System.out.println("Please choose a block size for your cipher:");
         int blockSize = input.nextInt();
         cipher = new Cipher(blockSize);
+        Monitoring.register("current", cipher);
         System.out.println("Successfully constructed a cipher with size " + blockSize + "!");
         System.out.println();
     }
@@ -194,7 +234,6 @@ public class CipherApp {
     private void handlePermutation() {
         int blockSize = cipher.getBlockSize();
         PermutationRound round = new PermutationRound(cipher.getBlockSize());
-        int[] mapping = new int[blockSize * 8];
         System.out.println("Choose an option for your permutation mapping");
         System.out.println("\t[r]: randomized permutation");
         System.out.println("\t[c]: custom permutation");
@@ -202,8 +241,9 @@ public class CipherApp {
         if (choice.equals("c")) {
             System.out.println("Enter your permutation mapping as "
                     + 8 * blockSize + " line-separated integers (bytes)");
-            for (int i = 0; i < blockSize * 8; i++) {
-                mapping[i] = (byte) input.nextInt();
+            int[] mapping = readMapping(blockSize * 8);
+            if (mapping == null) {
+                return;
             }
             round.setPermutationMapping(mapping);
         } else if (choice.equals("r")) {
@@ -221,15 +261,15 @@ public class CipherApp {
     private void handleSubstitution() {
         int blockSize = cipher.getBlockSize();
         SubstitutionRound round = new SubstitutionRound(blockSize);
-        int[] mapping = new int[blockSize * 8];
         System.out.println("Choose an option for your substitution mapping");
         System.out.println("\t[r]: randomized substitution");
         System.out.println("\t[c]: custom substitution");
         String choice = input.next();
         if (choice.equals("c")) {
             System.out.println("Enter your substitution mapping as 16 line-separated integers (bytes)");
-            for (int i = 0; i < blockSize * 8; i++) {
-                mapping[i] = (byte) input.nextInt();
+            int[] mapping = readMapping(16);
+            if (mapping == null) {
+                return;
             }
             round.setSubstitutionMapping(mapping);
         } else if (choice.equals("r")) {
@@ -242,6 +282,20 @@ public class CipherApp {
         System.out.println("Substitution round successfully added!");
     }
 
+    // EFFECTS: reads a mapping of the given size from the user and returns it, or returns null after telling
+    // the user so if it does not hold each of the numbers 0 to size - 1 once
+    private int[] readMapping(int size) {
+        int[] mapping = new int[size];
+        for (int i = 0; i < size; i++) {
+            mapping[i] = input.nextInt();
+        }
+        if (!Mappings.isPermutation(mapping, size)) {
+            System.out.println("Sorry, the mapping should hold each of 0 to " + (size - 1) + " once.");
+            return null;
+        }
+        return mapping;
+    }
+
     // MODIFIES: this
     // EFFECTS: adds a mix key round to the cipher
     private void handleKey() {
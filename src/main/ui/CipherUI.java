@@ -1,8 +1,9 @@
 package ui;
 
 import model.*;
+import model.management.Monitoring;
 import model.Event;
-import persistence.JsonReader;
+import persistence.JsonStreamReader;
 import persistence.JsonWriter;
 
 import javax.swing.*;
@@ -22,7 +23,7 @@ public class CipherUI extends JFrame {
 
     private Cipher cipher;
     private JsonWriter jsonWriter;
-    private JsonReader jsonReader;
+    private JsonStreamReader jsonReader;
     private JPanel buttonPanel;
     private JPanel cipherPanel;
 
@@ -38,6 +39,7 @@ public class CipherUI extends JFrame {
     // EFFECTS:  creates a cipher with block size 2
     private void initializeFields() {
         cipher = new Cipher(2);
+        Monitoring.register("current", cipher);
     }
 
     // MODIFIES: this
@@ -60,10 +62,7 @@ public class CipherUI extends JFrame {
         addWindowListener(new WindowAdapter() {
             @Override
             public void windowClosing(WindowEvent e) {
-                EventLog eventLog = EventLog.getInstance();
-                for (Event next : eventLog) {
-                    System.out.println(next + "\n");
-                }
+                printEventLog();
                 dispose();
                 System.exit(0);
             }
@@ -73,6 +72,15 @@ public class CipherUI extends JFrame {
         setVisible(true);
     }
 
+    // EFFECTS: prints every event in the event log, including a summary of any counted operations
+    private void printEventLog() {
+        EventLog eventLog = EventLog.getInstance();
+        eventLog.flushCounters();
+        for (Event next : eventLog) {
+            System.out.println(next + "\n");
+        }
+    }
+
     // EFFECTS: creates a new JPanel for the cipher round display
     // SOURCE: https://stackoverflow.com/questions/7050972/layout-manager-preferredsize-java
     private JPanel createCipherPanel() {
@@ -259,9 +267,10 @@ public class CipherUI extends JFrame {
         public void actionPerformed(ActionEvent evt) {
             String filepath = JOptionPane.showInputDialog("Filepath: ");
             jsonWriter = new JsonWriter(filepath);
-            jsonReader = new JsonReader(filepath);
+            jsonReader = new JsonStreamReader(filepath, true);
             try {
                 cipher = jsonReader.read();
+                Monitoring.register("current", cipher);
                 redisplayRounds();
                 JOptionPane.showMessageDialog(null, "Loaded cipher with block size "
                         + cipher.getBlockSize() + "!");
@@ -304,7 +313,7 @@ public class CipherUI extends JFrame {
         public void actionPerformed(ActionEvent evt) {
             String filepath = JOptionPane.showInputDialog("Filepath: ");
             jsonWriter = new JsonWriter(filepath);
-            jsonReader = new JsonReader(filepath);
+            jsonReader = new JsonStreamReader(filepath, true);
             try {
                 jsonWriter.open();
                 jsonWriter.write(cipher);
@@ -334,6 +343,7 @@ public class CipherUI extends JFrame {
             try {
                 int blockSize = Integer.parseInt(JOptionPane.showInputDialog("Block size:"));
                 cipher = new Cipher(blockSize);
+                Monitoring.register("current", cipher);
                 JOptionPane.showMessageDialog(null, "Created new cipher with block size "
                         + blockSize);
                 redisplayRounds();
@@ -413,7 +423,7 @@ public class CipherUI extends JFrame {
                     JOptionPane.showMessageDialog(null, "Added substitution round");
                 } catch (Exception e) {
                     JOptionPane.showMessageDialog(null, "An error occurred."
-                            + " Please input 16 space-separated integers");
+                            + " Please input each of the integers 0 to 15 once, space-separated");
                     e.printStackTrace();
                 }
             }
@@ -451,14 +461,15 @@ public class CipherUI extends JFrame {
                     cipher.addRound(round);
                     JOptionPane.showMessageDialog(null, "Added permutation round");
                 } catch (Exception e) {
-                    JOptionPane.showMessageDialog(null, "An error occurred."
-                            + " Please input " + mappingSize + " space-separated integers");
+                    JOptionPane.showMessageDialog(null, "An error occurred. Please input each of the integers"
+                            + " 0 to " + (mappingSize - 1) + " once, space-separated");
                 }
             }
         }
     }
 
-    // EFFECTS: presents an input dialog that asks the user for a mapping of the given size
+    // EFFECTS: presents an input dialog that asks the user for a mapping of the given size; throws
+    // IllegalArgumentException unless the mapping holds each of the numbers 0 to mappingSize - 1 once
     private int[] askForMapping(int mappingSize) {
         int[] mapping = new int[mappingSize];
         String[] stringMapping = JOptionPane.showInputDialog(null,
@@ -466,6 +477,9 @@ public class CipherUI extends JFrame {
         for (int i = 0; i < mappingSize; i++) {
             mapping[i] = Integer.parseInt(stringMapping[i]);
         }
+        if (!Mappings.isPermutation(mapping, mappingSize)) {
+            throw new IllegalArgumentException("mapping is not a permutation of 0 to " + (mappingSize - 1));
+        }
         return mapping;
     }
 
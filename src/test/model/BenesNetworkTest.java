@@ -0,0 +1,88 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BenesNetworkTest {
+    private final Random random = new Random(23);
+
+    @Test
+    public void testMatchesBitByBitPermutation() {
+        for (int bits : new int[]{32, 64}) {
+            for (int trial = 0; trial < 20; trial++) {
+                int[] mapping = randomMapping(bits);
+                BenesNetwork network = BenesNetwork.of(mapping);
+                long word = random.nextLong() >>> (Long.SIZE - bits);
+                long permuted = network.permute(word);
+                assertEquals(permuteBitByBit(mapping, new long[]{word}, bits)[0], permuted);
+                assertEquals(word, network.unpermute(permuted));
+            }
+        }
+    }
+
+    @Test
+    public void testMatchesBitByBitPermutationWide() {
+        for (int trial = 0; trial < 20; trial++) {
+            int[] mapping = randomMapping(128);
+            BenesNetwork network = BenesNetwork.of(mapping);
+            long[] words = {random.nextLong(), random.nextLong()};
+            long[] permuted = words.clone();
+            network.permute(permuted);
+            assertArrayEquals(permuteBitByBit(mapping, words, 128), permuted);
+            network.unpermute(permuted);
+            assertArrayEquals(words, permuted);
+        }
+    }
+
+    @Test
+    public void testIdentityHasNoStages() {
+        for (int bits : new int[]{32, 64, 128}) {
+            int[] mapping = new int[bits];
+            for (int i = 0; i < bits; i++) {
+                mapping[i] = i;
+            }
+            assertEquals(0, BenesNetwork.of(mapping).getNumberOfStages());
+        }
+    }
+
+    @Test
+    public void testReverse() {
+        int[] mapping = new int[64];
+        for (int i = 0; i < 64; i++) {
+            mapping[i] = 63 - i;
+        }
+        BenesNetwork network = BenesNetwork.of(mapping);
+        assertEquals(Long.reverse(0x0123456789abcdefL), network.permute(0x0123456789abcdefL));
+        assertTrue(network.getNumberOfStages() <= 11);
+    }
+
+    // EFFECTS: returns a random permutation of 0 to bits - 1
+    int[] randomMapping(int bits) {
+        int[] mapping = new int[bits];
+        for (int i = 0; i < bits; i++) {
+            mapping[i] = i;
+        }
+        for (int i = bits - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = mapping[i];
+            mapping[i] = mapping[j];
+            mapping[j] = swap;
+        }
+        return mapping;
+    }
+
+    // EFFECTS: returns the bits-bit block held in words (the last word holding the lowest bits) with bit i,
+    // counted from the left, moved to bit mapping[i]
+    long[] permuteBitByBit(int[] mapping, long[] words, int bits) {
+        long[] output = new long[words.length];
+        int width = bits / words.length;
+        for (int i = 0; i < bits; i++) {
+            long bit = (words[i / width] >>> (width - 1 - i % width)) & 1;
+            output[mapping[i] / width] |= bit << (width - 1 - mapping[i] % width);
+        }
+        return output;
+    }
+}
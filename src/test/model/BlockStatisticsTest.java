@@ -0,0 +1,70 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BlockStatisticsTest {
+    Cipher cipher;
+    KeySchedule keys;
+    BlockStatistics statistics;
+
+    @BeforeEach
+    public void runBefore() {
+        cipher = new Cipher(4);
+        cipher.addRound(new MixKeyRound(4));
+        cipher.addRound(new SubstitutionRound(4));
+        keys = new KeySchedule(cipher, Collections.singletonList(new byte[]{1, 2, 3, 4}));
+        statistics = cipher.getBlockStatistics();
+    }
+
+    @Test
+    public void testDisabledRecordsNothing() {
+        assertFalse(statistics.isEnabled());
+        byte[] block = new byte[4];
+        cipher.encryptBlock(block, 0, block, 0, keys);
+        assertEquals(0, statistics.getEncryptedBlocks());
+        assertEquals(0, statistics.getEncryptLatency().getCount());
+    }
+
+    @Test
+    public void testCountsBlocksOnFastPath() {
+        statistics.setEnabled(true);
+        byte[] block = new byte[4];
+        for (int i = 0; i < 10; i++) {
+            cipher.encryptBlock(block, 0, block, 0, keys);
+        }
+        cipher.decryptBlock(block, 0, block, 0, keys);
+        assertEquals(10, statistics.getEncryptedBlocks());
+        assertEquals(1, statistics.getDecryptedBlocks());
+        assertFalse(cipher.isInstrumentationEnabled());
+        assertTrue(cipher.getPlan().usesWordKernel());
+    }
+
+    @Test
+    public void testTimesLargeCalls() {
+        statistics.setEnabled(true);
+        byte[] blocks = new byte[4 * BlockStatistics.SAMPLE_INTERVAL];
+        cipher.getPlan().encryptBlocks(blocks, 0, blocks, 0, BlockStatistics.SAMPLE_INTERVAL, keys);
+        assertEquals(BlockStatistics.SAMPLE_INTERVAL, statistics.getEncryptedBlocks());
+        assertEquals(1, statistics.getEncryptLatency().getCount());
+        assertEquals(0, statistics.getDecryptLatency().getCount());
+
+        statistics.reset();
+        assertEquals(0, statistics.getEncryptedBlocks());
+        assertEquals(0, statistics.getEncryptLatency().getCount());
+    }
+
+    @Test
+    public void testKeptWhenRoundAdded() {
+        statistics.setEnabled(true);
+        byte[] block = new byte[4];
+        cipher.encryptBlock(block, 0, block, 0, keys);
+        cipher.addRound(new SubstitutionRound(4));
+        cipher.encryptBlock(block, 0, block, 0, keys);
+        assertEquals(2, statistics.getEncryptedBlocks());
+    }
+}
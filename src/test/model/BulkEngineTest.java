@@ -0,0 +1,124 @@
+package model;
+
+import model.exceptions.PaddingException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BulkEngineTest {
+    private final int BLOCK_SIZE = 4;
+    private final Random random = new Random(210);
+    Cipher cipher;
+    KeySchedule keys;
+    ExecutorService executor;
+    byte[] iv;
+
+    @BeforeEach
+    public void runBefore() {
+        cipher = new Cipher(BLOCK_SIZE);
+        PermutationRound pround = new PermutationRound(BLOCK_SIZE);
+        pround.fillWithRandomPermutation();
+        SubstitutionRound sround = new SubstitutionRound(BLOCK_SIZE);
+        sround.fillWithRandomSubstitution();
+        cipher.addRound(new MixKeyRound(BLOCK_SIZE));
+        cipher.addRound(pround);
+        cipher.addRound(sround);
+        cipher.addRound(new MixKeyRound(BLOCK_SIZE));
+
+        List<byte[]> keyList = new ArrayList<>();
+        keyList.add(new byte[]{1, 2, 3, 4});
+        keyList.add(new byte[]{5, 6, 7, 8});
+        keys = new KeySchedule(cipher, keyList);
+        iv = new byte[]{(byte) 250, 8, 7, (byte) 255};
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    public void runAfter() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testParallelMatchesSequential() throws PaddingException {
+        for (CipherMode mode : CipherMode.values()) {
+            BulkEngine engine = new BulkEngine(cipher, mode, executor, 0, 3 * BLOCK_SIZE);
+            for (int length = 0; length < 100; length += 7) {
+                byte[] plaintext = randomBytes(length);
+                byte[] expected = ModeOfOperation.forEncryption(cipher, mode, keys, iv).doFinal(plaintext);
+                byte[] ciphertext = engine.encrypt(plaintext, keys, iv);
+
+                assertArrayEquals(expected, ciphertext);
+                assertArrayEquals(plaintext, engine.decrypt(ciphertext, keys, iv));
+            }
+        }
+    }
+
+    @Test
+    public void testLargeMessageWithDefaultSettings() throws PaddingException {
+        for (CipherMode mode : CipherMode.values()) {
+            BulkEngine engine = new BulkEngine(cipher, mode);
+            byte[] plaintext = randomBytes(3 * BulkEngine.DEFAULT_PARALLEL_THRESHOLD + 5);
+            byte[] ciphertext = engine.encrypt(plaintext, keys, iv);
+
+            byte[] expected = ModeOfOperation.forEncryption(cipher, mode, keys, iv).doFinal(plaintext);
+            assertArrayEquals(expected, ciphertext);
+            assertArrayEquals(plaintext, engine.decrypt(ciphertext, keys, iv));
+        }
+    }
+
+    @Test
+    public void testInvalidPadding() {
+        BulkEngine engine = new BulkEngine(cipher, CipherMode.ECB, executor, 0, BLOCK_SIZE);
+        byte[] ciphertext = randomBytes(8 * BLOCK_SIZE);
+        System.arraycopy(cipher.encryptBlock(new byte[]{1, 2, 3, 9}, keys), 0, ciphertext, 7 * BLOCK_SIZE,
+                BLOCK_SIZE);
+        try {
+            engine.decrypt(ciphertext, keys, null);
+            fail("PaddingException expected");
+        } catch (PaddingException e) {
+            // pass
+        }
+    }
+
+    @Test
+    public void testEmptyPaddedCiphertext() throws PaddingException {
+        for (CipherMode mode : CipherMode.values()) {
+            BulkEngine engine = new BulkEngine(cipher, mode, executor, 0, BLOCK_SIZE);
+            if (!mode.isPadded()) {
+                assertEquals(0, engine.decrypt(new byte[0], keys, iv).length);
+                continue;
+            }
+            try {
+                engine.decrypt(new byte[0], keys, iv);
+                fail("PaddingException expected");
+            } catch (PaddingException e) {
+                // pass
+            }
+        }
+    }
+
+    @Test
+    public void testMissingIv() {
+        BulkEngine engine = new BulkEngine(cipher, CipherMode.CTR, executor, 0, BLOCK_SIZE);
+        try {
+            engine.encrypt(randomBytes(64), keys, null);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            // pass
+        }
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}
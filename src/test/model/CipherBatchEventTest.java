@@ -0,0 +1,77 @@
+package model;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import model.exceptions.PaddingException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CipherBatchEventTest {
+    @Test
+    public void testBatchEvents() throws IOException, PaddingException {
+        Cipher cipher = new Cipher(4);
+        cipher.addRound(new MixKeyRound(4));
+        SubstitutionRound sround = new SubstitutionRound(4);
+        sround.fillWithRandomSubstitution();
+        cipher.addRound(sround);
+        KeySchedule keys = new KeySchedule(cipher, Arrays.asList(new byte[]{1, 2, 3, 4}));
+        byte[] iv = {4, 3, 2, 1};
+        Path dump = Files.createTempFile("recording", ".jfr");
+
+        try (Recording recording = new Recording()) {
+            recording.enable("blocky.CipherBatch").withThreshold(Duration.ZERO);
+            recording.start();
+            ModeOfOperation.forEncryption(cipher, CipherMode.CBC, keys, iv).doFinal(new byte[100]);
+            new BulkEngine(cipher, CipherMode.CTR).encrypt(new byte[200 * 1024], keys, iv);
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        List<RecordedEvent> batches = new ArrayList<>();
+        for (RecordedEvent event : RecordingFile.readAllEvents(dump)) {
+            if (event.getEventType().getName().equals("blocky.CipherBatch")) {
+                batches.add(event);
+            }
+        }
+        Files.delete(dump);
+
+        long cbcBytes = 0;
+        boolean bulkSeen = false;
+        for (RecordedEvent batch : batches) {
+            assertEquals("Encrypt", batch.getString("operation"));
+            assertEquals(4, batch.getInt("blockSize"));
+            assertEquals(2, batch.getInt("roundCount"));
+            if (batch.getString("mode").equals("CBC")) {
+                cbcBytes += batch.getLong("bytesProcessed");
+            } else {
+                bulkSeen |= batch.getLong("bytesProcessed") == 200 * 1024;
+            }
+        }
+        assertEquals(100, cbcBytes);
+        assertTrue(bulkSeen);
+    }
+
+    @Test
+    public void testNoEventWithoutRecording() {
+        assertNull(CipherBatchEvent.start());
+        try (Recording recording = new Recording()) {
+            recording.enable("blocky.CipherBatch");
+            recording.start();
+            CipherBatchEvent event = CipherBatchEvent.start();
+            assertNotNull(event);
+            CipherBatchEvent.finish(event, true, CipherMode.ECB, new Cipher(4).getPlan(), 4);
+            recording.stop();
+        }
+        assertNull(CipherBatchEvent.start());
+    }
+}
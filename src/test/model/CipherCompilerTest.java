@@ -0,0 +1,137 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CipherCompilerTest {
+    Random random;
+
+    @BeforeEach
+    public void runBefore() {
+        random = new Random(3);
+    }
+
+    @Test
+    public void testCompiledMatchesCipher() {
+        int[] blockSizes = {1, 4, 8, 16, 64};
+        for (int blockSize : blockSizes) {
+            Cipher cipher = createCipher(blockSize, 6);
+            OptimizedPlan plan = cipher.compile();
+            assertTrue(plan.isCompiled());
+            KeySchedule keys = randomKeys(cipher);
+            for (int i = 0; i < 16; i++) {
+                byte[] block = new byte[blockSize];
+                random.nextBytes(block);
+                byte[] ciphertext = plan.encryptBlock(block, keys);
+                assertArrayEquals(cipher.encryptBlock(block, keys), ciphertext);
+                assertArrayEquals(block, plan.decryptBlock(ciphertext, keys));
+            }
+        }
+    }
+
+    @Test
+    public void testClassesSharedByFingerprint() {
+        Cipher cipher = createCipher(8, 3);
+        Cipher copy = new Cipher(8);
+        for (Round round : cipher) {
+            copy.addRound(round);
+        }
+        assertTrue(cipher.compile().isCompiled());
+        int classes = CipherCompiler.getNumberOfClasses();
+        OptimizedPlan plan = copy.compile();
+        assertTrue(plan.isCompiled());
+        assertTrue(plan.compile());
+        assertEquals(classes, CipherCompiler.getNumberOfClasses());
+    }
+
+    @Test
+    public void testFingerprint() {
+        Round[] steps = {new SubstitutionRound(4), new MixKeyRound(4), new PermutationRound(4)};
+        String fingerprint = CipherCompiler.fingerprint(steps, 4);
+        assertEquals(64, fingerprint.length());
+        assertEquals(fingerprint, CipherCompiler.fingerprint(steps, 4));
+        ((PermutationRound) steps[2]).fillWithRandomPermutation();
+        assertNotEquals(fingerprint, CipherCompiler.fingerprint(steps, 4));
+        assertNotEquals(CipherCompiler.fingerprint(new Round[0], 4), CipherCompiler.fingerprint(new Round[0], 8));
+    }
+
+    @Test
+    public void testEmptyPlanCompiled() {
+        Cipher cipher = new Cipher(4);
+        OptimizedPlan plan = cipher.compile();
+        assertTrue(plan.isCompiled());
+        byte[] block = {1, 2, 3, 4};
+        assertArrayEquals(block, plan.encryptBlock(block, randomKeys(cipher)));
+    }
+
+    @Test
+    public void testTooLargeFallsBack() {
+        Cipher cipher = new Cipher(2);
+        for (int i = 0; i < 4000; i++) {
+            SubstitutionRound substitution = new SubstitutionRound(2);
+            substitution.fillWithRandomSubstitution();
+            cipher.addRound(substitution);
+            cipher.addRound(new MixKeyRound(2));
+        }
+        OptimizedPlan plan = cipher.compile();
+        assertFalse(plan.isCompiled());
+        KeySchedule keys = randomKeys(cipher);
+        byte[] block = {5, 6};
+        assertArrayEquals(cipher.encryptBlock(block, keys), plan.encryptBlock(block, keys));
+    }
+
+    @Test
+    public void testClassLimitFallsBack() {
+        int limit = CipherCompiler.getMaxClasses();
+        Cipher cipher = createCipher(4, 2);
+        try {
+            CipherCompiler.setMaxClasses(CipherCompiler.getNumberOfClasses());
+            OptimizedPlan plan = cipher.compile();
+            assertFalse(plan.isCompiled());
+            KeySchedule keys = randomKeys(cipher);
+            byte[] block = {1, 2, 3, 4};
+            assertArrayEquals(cipher.encryptBlock(block, keys), plan.encryptBlock(block, keys));
+
+            CipherCompiler.setMaxClasses(CipherCompiler.getNumberOfClasses() + 1);
+            assertTrue(plan.compile());
+            assertFalse(createCipher(8, 1).compile().isCompiled());
+        } finally {
+            CipherCompiler.setMaxClasses(limit);
+        }
+    }
+
+    // EFFECTS: returns a cipher with layers of random key mix, substitution and two permutation rounds
+    Cipher createCipher(int blockSize, int layers) {
+        Cipher cipher = new Cipher(blockSize);
+        for (int i = 0; i < layers; i++) {
+            SubstitutionRound substitution = new SubstitutionRound(blockSize);
+            substitution.fillWithRandomSubstitution();
+            if (i % 2 == 0) {
+                substitution.enableWideTable();
+            }
+            PermutationRound permutation = new PermutationRound(blockSize);
+            permutation.fillWithRandomPermutation();
+            cipher.addRound(new MixKeyRound(blockSize));
+            cipher.addRound(substitution);
+            cipher.addRound(permutation);
+        }
+        return cipher;
+    }
+
+    // EFFECTS: returns a random key schedule for cipher
+    KeySchedule randomKeys(Cipher cipher) {
+        List<byte[]> keys = new ArrayList<>();
+        for (int i = 0; i < cipher.getNumberOfKeyRounds(); i++) {
+            byte[] key = new byte[cipher.getBlockSize()];
+            random.nextBytes(key);
+            keys.add(key);
+        }
+        return new KeySchedule(cipher, keys);
+    }
+}
@@ -4,6 +4,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -211,4 +213,242 @@ class CipherTest {
         cipher.addRound(kround1);
         assertEquals(2, cipher.getNumberOfKeyRounds());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testEncryptBlockMatchesEncryptByteArray() {
+        cipher.addRound(pround);
+        cipher.addRound(kround1);
+        cipher.addRound(sround);
+
+        ArrayList<Byte[]> keys = new ArrayList<>();
+        keys.add(new Byte[]{(byte) 113, (byte) 140});
+
+        Byte[] plaintext = {(byte) 231, (byte) 85};
+        Byte[] expectedCiphertext = cipher.encryptByteArray(plaintext, keys);
+        byte[] ciphertext = cipher.encryptBlock(ByteArrays.unbox(plaintext), ByteArrays.unboxAll(keys));
+
+        assertArrayEquals(expectedCiphertext, ByteArrays.box(ciphertext));
+    }
+
+    @Test
+    public void testEncryptDecryptBlockInPlace() {
+        cipher.addRound(pround);
+        cipher.addRound(kround1);
+        cipher.addRound(sround);
+        cipher.addRound(kround2);
+
+        List<byte[]> keys = new ArrayList<>();
+        keys.add(new byte[]{(byte) 113, (byte) 140});
+        keys.add(new byte[]{(byte) 31, (byte) 175});
+
+        byte[] buffer = {3, (byte) 192, (byte) 200, 4};
+        cipher.encryptBlock(buffer, 1, buffer, 1, keys);
+        assertEquals(3, buffer[0]);
+        assertEquals(4, buffer[3]);
+
+        cipher.decryptBlock(buffer, 1, buffer, 1, keys);
+        assertArrayEquals(new byte[]{3, (byte) 192, (byte) 200, 4}, buffer);
+    }
+
+    @Test
+    public void testConsecutiveSubstitutionRounds() {
+        SubstitutionRound sround2 = new SubstitutionRound(BLOCK_SIZE);
+        sround2.setSubstitutionMapping(permutationMapping);
+        cipher.addRound(sround);
+        cipher.addRound(sround2);
+        cipher.addRound(kround1);
+        cipher.addRound(sround2);
+        cipher.addRound(sround);
+
+        List<byte[]> keys = new ArrayList<>();
+        keys.add(new byte[]{(byte) 113, (byte) 140});
+
+        byte[] plaintext = {(byte) 231, (byte) 85};
+        byte[] expectedCiphertext = sround2.encryptBlock(sround.encryptBlock(plaintext));
+        expectedCiphertext = sround.encryptBlock(sround2.encryptBlock(new byte[]{
+                (byte) (expectedCiphertext[0] ^ 113), (byte) (expectedCiphertext[1] ^ 140)}));
+        byte[] ciphertext = cipher.encryptBlock(plaintext, keys);
+
+        assertArrayEquals(expectedCiphertext, ciphertext);
+        assertArrayEquals(plaintext, cipher.decryptBlock(ciphertext, keys));
+    }
+
+    @Test
+    public void testSubstitutionRoundChangedAfterAdding() {
+        SubstitutionRound sround2 = new SubstitutionRound(BLOCK_SIZE);
+        cipher.addRound(sround);
+        cipher.addRound(sround2);
+
+        byte[] plaintext = {(byte) 231, (byte) 85};
+        assertArrayEquals(sround.encryptBlock(plaintext), cipher.encryptBlock(plaintext, new ArrayList<>()));
+
+        sround2.setSubstitutionMapping(permutationMapping);
+        byte[] expectedCiphertext = sround2.encryptBlock(sround.encryptBlock(plaintext));
+        assertArrayEquals(expectedCiphertext, cipher.encryptBlock(plaintext, new ArrayList<>()));
+    }
+
+    @Test
+    public void testEncryptDoesNotChangeKeyRounds() {
+        cipher.addRound(pround);
+        cipher.addRound(kround1);
+
+        List<byte[]> keys = new ArrayList<>();
+        keys.add(new byte[]{(byte) 113, (byte) 140});
+        cipher.encryptBlock(new byte[]{(byte) 231, (byte) 85}, new KeySchedule(cipher, keys));
+
+        assertArrayEquals(new Byte[]{0, 0}, kround1.getKey());
+    }
+
+    @Test
+    public void testConcurrentEncryptionWithDifferentKeys() throws InterruptedException {
+        cipher.addRound(pround);
+        cipher.addRound(kround1);
+        cipher.addRound(sround);
+        cipher.addRound(kround2);
+
+        Thread[] threads = new Thread[4];
+        boolean[] correct = new boolean[threads.length];
+        for (int t = 0; t < threads.length; t++) {
+            int index = t;
+            threads[t] = new Thread(() -> correct[index] = encryptRepeatedly(index));
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (boolean threadCorrect : correct) {
+            assertTrue(threadCorrect);
+        }
+    }
+
+    @Test
+    public void testPlanCacheStatistics() {
+        Cipher cipher = new Cipher(2);
+        cipher.addRound(new PermutationRound(2));
+        byte[] block = new byte[2];
+        KeySchedule keys = new KeySchedule(cipher, new ArrayList<>());
+        cipher.encryptBlock(block, 0, block, 0, keys);
+        cipher.encryptBlock(block, 0, block, 0, keys);
+        cipher.decryptBlock(block, 0, block, 0, keys);
+        assertEquals(1, cipher.getPlanCacheMisses());
+        assertEquals(2, cipher.getPlanCacheHits());
+
+        cipher.addRound(new PermutationRound(2));
+        cipher.encryptBlock(block, 0, block, 0, keys);
+        assertEquals(2, cipher.getPlanCacheMisses());
+
+        cipher.resetPlanCacheStatistics();
+        assertEquals(0, cipher.getPlanCacheHits());
+        assertEquals(0, cipher.getPlanCacheMisses());
+    }
+
+    @Test
+    public void testPrecompile() {
+        Cipher cipher = new Cipher(2);
+        PermutationRound round = new PermutationRound(2);
+        round.fillWithRandomPermutation();
+        cipher.addRound(round);
+        byte[] plaintext = {3, 7};
+        KeySchedule keys = new KeySchedule(cipher, new ArrayList<>());
+        byte[] expected = cipher.encryptBlock(plaintext, keys);
+
+        cipher.precompile();
+        assertEquals(1, cipher.getPlanCacheMisses());
+        assertArrayEquals(expected, cipher.encryptBlock(plaintext, keys));
+        assertArrayEquals(plaintext, cipher.decryptBlock(expected, keys));
+        assertEquals(1, cipher.getPlanCacheMisses());
+    }
+
+    @Test
+    public void testInstrumentation() {
+        cipher.addRound(kround1);
+        cipher.addRound(sround);
+        cipher.addRound(sround);
+        cipher.addRound(pround);
+        assertFalse(cipher.isInstrumentationEnabled());
+        assertNull(cipher.getMetrics());
+
+        cipher.setInstrumentationEnabled(true);
+        KeySchedule schedule = new KeySchedule(cipher, Arrays.asList(new byte[]{1, 2}));
+        byte[] plaintext = {(byte) 192, (byte) 200};
+        for (int i = 0; i < 10; i++) {
+            assertArrayEquals(plaintext, cipher.decryptBlock(cipher.encryptBlock(plaintext, schedule), schedule));
+        }
+
+        CipherMetrics.Snapshot snapshot = cipher.getMetrics().snapshot();
+        assertEquals(10, snapshot.getEncryptedBlocks());
+        assertEquals(10, snapshot.getDecryptedBlocks());
+        assertEquals(40, snapshot.getBytesProcessed());
+        List<CipherMetrics.RoundStats> steps = snapshot.getSteps();
+        assertEquals(3, steps.size());
+        assertEquals("MixKey", steps.get(0).getType());
+        assertEquals("Substitution", steps.get(1).getType());
+        assertEquals(1, steps.get(1).getFirstRound());
+        assertEquals(2, steps.get(1).getLastRound());
+        assertEquals(3, steps.get(2).getFirstRound());
+        assertEquals(10, steps.get(2).getDecryptLatency().getCount());
+        assertEquals(3, snapshot.getRoundTypes().size());
+        assertEquals(10, snapshot.getRoundTypes().get("Permutation").getEncryptLatency().getCount());
+
+        cipher.getMetrics().reset();
+        assertEquals(0, cipher.getMetrics().snapshot().getEncryptedBlocks());
+        cipher.setInstrumentationEnabled(false);
+        assertNull(cipher.getMetrics());
+    }
+
+    @Test
+    public void testEncryptBlocksMatchesEncryptBlock() {
+        for (int blockSize : new int[]{2, 3, 8, 64}) {
+            Cipher cipher = new Cipher(blockSize);
+            for (int i = 0; i < 3; i++) {
+                SubstitutionRound substitution = new SubstitutionRound(blockSize);
+                substitution.fillWithRandomSubstitution();
+                PermutationRound permutation = new PermutationRound(blockSize);
+                permutation.fillWithRandomPermutation();
+                cipher.addRound(new MixKeyRound(blockSize));
+                cipher.addRound(substitution);
+                cipher.addRound(substitution);
+                cipher.addRound(permutation);
+            }
+            List<byte[]> keys = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                keys.add(Arrays.copyOf(new byte[]{(byte) (17 * i + 5), 99, (byte) i}, blockSize));
+            }
+            KeySchedule schedule = new KeySchedule(cipher, keys);
+            int blocks = 4096 / blockSize + 3;
+            byte[] message = new byte[blocks * blockSize + 1];
+            for (int i = 0; i < message.length; i++) {
+                message[i] = (byte) (i * 31);
+            }
+            byte[] expected = new byte[message.length];
+            for (int block = 0; block < blocks; block++) {
+                cipher.getPlan().encrypt(message, 1 + block * blockSize, expected, 1 + block * blockSize, schedule);
+            }
+            byte[] actual = new byte[message.length];
+            cipher.getPlan().encryptBlocks(message, 1, actual, 1, blocks, schedule);
+            assertArrayEquals(expected, actual);
+            cipher.getPlan().decryptBlocks(actual, 1, actual, 1, blocks, schedule);
+            actual[0] = message[0];
+            assertArrayEquals(message, actual);
+        }
+    }
+
+    // EFFECTS: encrypts with thread-specific keys many times, returning true if every result
+    // matches the first one and decrypts back to the plaintext
+    private boolean encryptRepeatedly(int seed) {
+        List<byte[]> keys = new ArrayList<>();
+        keys.add(new byte[]{(byte) seed, (byte) (seed * 7)});
+        keys.add(new byte[]{(byte) (seed * 13), (byte) (seed * 31)});
+        KeySchedule schedule = new KeySchedule(cipher, keys);
+        byte[] plaintext = {(byte) 192, (byte) 200};
+        byte[] expected = cipher.encryptBlock(plaintext, schedule);
+        for (int i = 0; i < 2000; i++) {
+            byte[] ciphertext = cipher.encryptBlock(plaintext, schedule);
+            if (!Arrays.equals(expected, ciphertext)
+                    || !Arrays.equals(plaintext, cipher.decryptBlock(ciphertext, schedule))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,275 @@
+package model;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventLogTest {
+    EventLog log;
+
+    @BeforeEach
+    public void runBefore() {
+        log = EventLog.getInstance();
+        log.setCapacity(EventLog.DEFAULT_CAPACITY);
+        log.clear();
+        log.resetDroppedCount();
+    }
+
+    @AfterEach
+    public void runAfter() {
+        log.setCapacity(EventLog.DEFAULT_CAPACITY);
+        log.setHotPathMode(EventLog.HotPathMode.DETAILED);
+        log.setSummaryInterval(EventLog.DEFAULT_SUMMARY_INTERVAL_MILLIS);
+        for (EventCategory category : EventCategory.values()) {
+            log.setCategoryEnabled(category, category.isEnabledByDefault());
+        }
+    }
+
+    @Test
+    public void testSingleton() {
+        assertSame(log, EventLog.getInstance());
+    }
+
+    @Test
+    public void testLogAndIterate() {
+        Event first = new Event("first");
+        Event second = new Event("second");
+        log.logEvent(first);
+        log.logEvent(second);
+
+        List<String> descriptions = descriptions();
+        assertEquals(3, descriptions.size());
+        assertEquals("Event log cleared.", descriptions.get(0));
+        assertEquals("first", descriptions.get(1));
+        assertEquals("second", descriptions.get(2));
+        assertEquals(3, log.size());
+    }
+
+    @Test
+    public void testLogDescription() {
+        long before = System.currentTimeMillis();
+        log.logEvent("Added Mix Key Round");
+        log.logEvent(new Event("Added Mix Key Round"));
+        long after = System.currentTimeMillis();
+
+        List<String> descriptions = descriptions();
+        assertEquals("Added Mix Key Round", descriptions.get(1));
+        assertEquals("Added Mix Key Round", descriptions.get(2));
+        for (Event event : log) {
+            // the cheap clock may differ from the wall clock by a few milliseconds
+            assertTrue(event.getDate().getTime() >= before - 1000);
+            assertTrue(event.getDate().getTime() <= after + 1000);
+        }
+    }
+
+    @Test
+    public void testDropsOldestWhenFull() {
+        log.setCapacity(3);
+        for (int i = 0; i < 10; i++) {
+            log.logEvent(new Event("event " + i));
+        }
+        assertEquals(3, log.size());
+        assertEquals(3, log.getCapacity());
+        List<String> descriptions = descriptions();
+        assertEquals("event 7", descriptions.get(0));
+        assertEquals("event 9", descriptions.get(2));
+    }
+
+    @Test
+    public void testDroppedCount() {
+        log.setCapacity(3);
+        assertEquals(0, log.getDroppedCount());
+        for (int i = 0; i < 10; i++) {
+            log.logEvent("event " + i);
+        }
+        assertEquals(8, log.getDroppedCount());
+
+        // events lost to clearing are not drops, but earlier drops are remembered
+        log.clear();
+        assertEquals(8, log.getDroppedCount());
+        log.resetDroppedCount();
+        assertEquals(0, log.getDroppedCount());
+        log.logEvent("a");
+        log.logEvent("b");
+        log.logEvent("c");
+        assertEquals(1, log.getDroppedCount());
+        log.setCapacity(1);
+        assertEquals(3, log.getDroppedCount());
+    }
+
+    @Test
+    public void testSetCapacityKeepsMostRecent() {
+        for (int i = 0; i < 5; i++) {
+            log.logEvent(new Event("event " + i));
+        }
+        log.setCapacity(2);
+        List<String> descriptions = descriptions();
+        assertEquals(2, descriptions.size());
+        assertEquals("event 3", descriptions.get(0));
+        assertEquals("event 4", descriptions.get(1));
+    }
+
+    @Test
+    public void testInvalidCapacity() {
+        try {
+            log.setCapacity(0);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testIteratorIsWeaklyConsistent() {
+        log.setCapacity(4);
+        log.logEvent(new Event("a"));
+        Iterator<Event> iterator = log.iterator();
+        for (int i = 0; i < 10; i++) {
+            log.logEvent(new Event("later " + i));
+        }
+        // both events from before the iterator was created have been replaced
+        assertFalse(iterator.hasNext());
+        try {
+            iterator.next();
+            fail("NoSuchElementException expected");
+        } catch (NoSuchElementException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testIterateWhileLogging() throws InterruptedException {
+        log.setCapacity(64);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger logged = new AtomicInteger();
+        Thread writer = new Thread(() -> {
+            while (running.get() || logged.get() < 100) {
+                log.logEvent(new Event("busy"));
+                logged.incrementAndGet();
+            }
+        });
+        writer.start();
+        try {
+            for (int i = 0; i < 1000; i++) {
+                int count = 0;
+                for (Event event : log) {
+                    assertNotNull(event);
+                    count++;
+                }
+                assertTrue(count <= 64);
+            }
+        } finally {
+            running.set(false);
+            writer.join();
+        }
+        assertEquals(64, log.size());
+    }
+
+    @Test
+    public void testDetailedCounting() {
+        log.count(EventCategory.ENCRYPTION);
+        log.count(EventCategory.DECRYPTION, 3);
+        log.count(EventCategory.ROUND);
+
+        List<String> descriptions = descriptions();
+        assertEquals(3, descriptions.size());
+        assertEquals("Encrypted Message", descriptions.get(1));
+        assertEquals("Decrypted Message (3 times)", descriptions.get(2));
+    }
+
+    @Test
+    public void testAggregatedCounting() {
+        log.setHotPathMode(EventLog.HotPathMode.AGGREGATED);
+        log.setCategoryEnabled(EventCategory.ROUND, true);
+        for (int i = 0; i < 1000; i++) {
+            log.count(EventCategory.ENCRYPTION);
+            log.count(EventCategory.ROUND, 5);
+        }
+        assertEquals(1, log.size());
+
+        log.flushCounters();
+        List<String> descriptions = descriptions();
+        assertEquals(3, descriptions.size());
+        assertEquals("Encrypted Message (1000 times)", descriptions.get(1));
+        assertEquals("Executed Round (5000 times)", descriptions.get(2));
+
+        log.flushCounters();
+        assertEquals(3, log.size());
+    }
+
+    @Test
+    public void testLeavingAggregatedModeFlushes() {
+        log.setHotPathMode(EventLog.HotPathMode.AGGREGATED);
+        log.count(EventCategory.DECRYPTION, 2);
+        log.setHotPathMode(EventLog.HotPathMode.OFF);
+        assertEquals("Decrypted Message (2 times)", descriptions().get(1));
+    }
+
+    @Test
+    public void testPeriodicSummary() throws InterruptedException {
+        log.setHotPathMode(EventLog.HotPathMode.AGGREGATED);
+        log.setSummaryInterval(10);
+        assertEquals(10, log.getSummaryInterval());
+        log.count(EventCategory.ENCRYPTION, 7);
+        for (int i = 0; i < 200 && log.size() < 2; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals("Encrypted Message (7 times)", descriptions().get(1));
+    }
+
+    @Test
+    public void testFiltering() {
+        log.setHotPathMode(EventLog.HotPathMode.OFF);
+        log.count(EventCategory.ENCRYPTION);
+        log.setHotPathMode(EventLog.HotPathMode.DETAILED);
+        log.setCategoryEnabled(EventCategory.DECRYPTION, false);
+        log.count(EventCategory.DECRYPTION);
+        log.count(EventCategory.ROUND);
+
+        assertFalse(log.isCategoryEnabled(EventCategory.DECRYPTION));
+        assertFalse(log.isCategoryEnabled(EventCategory.ROUND));
+        assertTrue(log.isCategoryEnabled(EventCategory.ENCRYPTION));
+        assertEquals(EventLog.HotPathMode.DETAILED, log.getHotPathMode());
+        assertEquals(1, log.size());
+    }
+
+    @Test
+    public void testManyDistinctDescriptions() {
+        log.setCapacity(4);
+        for (int i = 0; i < 10_000; i++) {
+            log.logEvent("Reloaded cipher from file" + i + ".json");
+        }
+        List<String> descriptions = descriptions();
+        assertEquals(4, descriptions.size());
+        assertEquals("Reloaded cipher from file9996.json", descriptions.get(0));
+        assertEquals("Reloaded cipher from file9999.json", descriptions.get(3));
+    }
+
+    @Test
+    public void testInvalidSummaryInterval() {
+        try {
+            log.setSummaryInterval(0);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    // EFFECTS: returns the descriptions of the events in the log, oldest first
+    private List<String> descriptions() {
+        List<String> descriptions = new ArrayList<>();
+        for (Event event : log) {
+            descriptions.add(event.getDescription());
+        }
+        return descriptions;
+    }
+}
@@ -0,0 +1,82 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventRingTest {
+    EventRing ring;
+
+    @BeforeEach
+    public void runBefore() {
+        ring = new EventRing(3);
+    }
+
+    @Test
+    public void testEmpty() {
+        assertEquals(0, ring.size());
+        assertEquals(3, ring.capacity());
+        assertFalse(ring.cursor().advance());
+    }
+
+    @Test
+    public void testAddAndRead() {
+        ring.add(100, "event 1", 1);
+        ring.add(200, "event 2", 42);
+
+        EventRing.Cursor cursor = ring.cursor();
+        assertTrue(cursor.advance());
+        assertEquals(100, cursor.timestamp());
+        assertEquals("event 1", cursor.description());
+        assertEquals(1, cursor.payload());
+        assertTrue(cursor.advance());
+        assertEquals(200, cursor.timestamp());
+        assertEquals("event 2", cursor.description());
+        assertEquals(42, cursor.payload());
+        assertFalse(cursor.advance());
+        assertEquals(2, ring.size());
+    }
+
+    @Test
+    public void testReplacesOldest() {
+        for (int i = 0; i < 5; i++) {
+            ring.add(i, "event " + i, i);
+        }
+        assertEquals(3, ring.size());
+        EventRing.Cursor cursor = ring.cursor();
+        for (int i = 2; i < 5; i++) {
+            assertTrue(cursor.advance());
+            assertEquals(i, cursor.timestamp());
+        }
+        assertFalse(cursor.advance());
+    }
+
+    @Test
+    public void testCursorSkipsReplacedRecords() {
+        ring.add(1, "event 1", 1);
+        ring.add(2, "event 2", 1);
+        EventRing.Cursor cursor = ring.cursor();
+        ring.add(3, "event 3", 1);
+        ring.add(4, "event 4", 1);
+
+        assertTrue(cursor.advance());
+        assertEquals(2, cursor.timestamp());
+        assertFalse(cursor.advance());
+    }
+
+    @Test
+    public void testAddAll() {
+        ring.add(1, "event 7", 2);
+        ring.add(2, "event 8", 3);
+        EventRing copy = new EventRing(1);
+        copy.addAll(ring);
+
+        EventRing.Cursor cursor = copy.cursor();
+        assertTrue(cursor.advance());
+        assertEquals(2, cursor.timestamp());
+        assertEquals("event 8", cursor.description());
+        assertEquals(3, cursor.payload());
+        assertFalse(cursor.advance());
+    }
+}
@@ -0,0 +1,110 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KeyScheduleTest {
+    private final int BLOCK_SIZE = 2;
+    Cipher cipher;
+    List<byte[]> keys;
+
+    @BeforeEach
+    public void runBefore() {
+        cipher = new Cipher(BLOCK_SIZE);
+        cipher.addRound(new MixKeyRound(BLOCK_SIZE));
+        cipher.addRound(new SubstitutionRound(BLOCK_SIZE));
+        cipher.addRound(new MixKeyRound(BLOCK_SIZE));
+        keys = new ArrayList<>();
+        keys.add(new byte[]{(byte) 113, (byte) 140});
+        keys.add(new byte[]{(byte) 31, (byte) 175});
+    }
+
+    @Test
+    public void testConstructor() {
+        KeySchedule schedule = new KeySchedule(cipher, keys);
+        assertEquals(2, schedule.getNumberOfKeys());
+        assertEquals(BLOCK_SIZE, schedule.getBlockSize());
+        assertArrayEquals(keys.get(1), schedule.getKey(1));
+    }
+
+    @Test
+    public void testRepeatedKey() {
+        KeySchedule schedule = new KeySchedule(cipher, keys);
+        byte[] repeated = schedule.getRepeatedKey(1);
+        assertEquals(VectorBackend.MAX_VECTOR_BYTES, repeated.length);
+        for (int i = 0; i < repeated.length; i++) {
+            assertEquals(keys.get(1)[i % BLOCK_SIZE], repeated[i]);
+        }
+        Cipher wide = new Cipher(3);
+        wide.addRound(new MixKeyRound(3));
+        assertNull(new KeySchedule(wide, Collections.singletonList(new byte[3])).getRepeatedKey(0));
+    }
+
+    @Test
+    public void testHolds() {
+        KeySchedule schedule = new KeySchedule(cipher, keys);
+        assertTrue(schedule.holds(keys));
+        assertTrue(schedule.holds(Arrays.asList(keys.get(0).clone(), keys.get(1).clone())));
+        assertFalse(schedule.holds(keys.subList(0, 1)));
+        keys.get(1)[1] = 0;
+        assertFalse(schedule.holds(keys));
+    }
+
+    @Test
+    public void testCipherSeesChangedKeys() {
+        byte[] block = {5, 6};
+        byte[] before = cipher.encryptBlock(block, keys);
+        assertArrayEquals(before, cipher.encryptBlock(block, keys));
+        keys.get(0)[0] = 0;
+        assertArrayEquals(cipher.encryptBlock(block, new KeySchedule(cipher, keys)), cipher.encryptBlock(block, keys));
+        assertFalse(Arrays.equals(before, cipher.encryptBlock(block, keys)));
+    }
+
+    @Test
+    public void testConstructorCopiesKeys() {
+        KeySchedule schedule = new KeySchedule(cipher, keys);
+        keys.get(0)[0] = 0;
+        assertEquals((byte) 113, schedule.getKey(0)[0]);
+    }
+
+    @Test
+    public void testConstructorWrongNumberOfKeys() {
+        keys.remove(1);
+        try {
+            new KeySchedule(cipher, keys);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            // pass
+        }
+    }
+
+    @Test
+    public void testConstructorWrongKeyLength() {
+        keys.set(1, new byte[]{1, 2, 3});
+        try {
+            new KeySchedule(cipher, keys);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            // pass
+        }
+    }
+
+    @Test
+    public void testScheduleForOutdatedCipher() {
+        KeySchedule schedule = new KeySchedule(cipher, keys);
+        cipher.addRound(new MixKeyRound(BLOCK_SIZE));
+        try {
+            cipher.encryptBlock(new byte[BLOCK_SIZE], schedule);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            // pass
+        }
+    }
+}
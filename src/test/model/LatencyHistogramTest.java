@@ -0,0 +1,67 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+    LatencyHistogram histogram;
+
+    @BeforeEach
+    public void runBefore() {
+        histogram = new LatencyHistogram();
+    }
+
+    @Test
+    public void testEmpty() {
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.getMeanNanos());
+        assertEquals(0, snapshot.getPercentileNanos(50));
+    }
+
+    @Test
+    public void testRecord() {
+        histogram.record(100);
+        histogram.record(200);
+        histogram.record(-5);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(3, snapshot.getCount());
+        assertEquals(300, snapshot.getTotalNanos());
+        assertEquals(200, snapshot.getMaxNanos());
+        assertEquals(100, snapshot.getMeanNanos());
+        assertEquals(0, snapshot.getPercentileNanos(0));
+        assertEquals(200, snapshot.getPercentileNanos(100));
+    }
+
+    @Test
+    public void testPercentileWithinBucketError() {
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        long median = histogram.snapshot().getPercentileNanos(50);
+        assertTrue(median >= 500_000 && median <= 500_000 * 5 / 4, "median " + median);
+        long p99 = histogram.snapshot().getPercentileNanos(99);
+        assertTrue(p99 >= 990_000 && p99 <= 1_000_000, "p99 " + p99);
+    }
+
+    @Test
+    public void testBuckets() {
+        for (long value : new long[]{0, 1, 3, 4, 5, 7, 8, 1000, 123456789L, Long.MAX_VALUE}) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(LatencyHistogram.upperBoundOf(bucket) >= value);
+            if (bucket > 0) {
+                assertTrue(LatencyHistogram.upperBoundOf(bucket - 1) < value);
+            }
+        }
+    }
+
+    @Test
+    public void testReset() {
+        histogram.record(10);
+        histogram.reset();
+        assertEquals(0, histogram.snapshot().getCount());
+        assertEquals(0, histogram.snapshot().getMaxNanos());
+    }
+}
@@ -3,6 +3,8 @@ package model;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Random;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class MixKeyRoundTest {
@@ -68,4 +70,61 @@ public class MixKeyRoundTest {
         SubstitutionRound round2 = new SubstitutionRound(BLOCK_SIZE);
         assertNotEquals(round, round2);
     }
+
+    @Test
+    public void testEncryptBlockMatchesEncryptRound() {
+        Byte[] testKey = {(byte) 230, (byte) 125};
+        round.setKey(testKey);
+
+        Byte[] plaintext = {(byte) 54, (byte) 179};
+        byte[] encrypted = round.encryptBlock(ByteArrays.unbox(plaintext));
+        assertArrayEquals(round.encryptRound(plaintext), ByteArrays.box(encrypted));
+    }
+
+    @Test
+    public void testEncryptBlockInPlace() {
+        round.setKey(new byte[]{(byte) 184, (byte) 6});
+
+        byte[] buffer = {1, (byte) 56, (byte) 199, 2};
+        round.encryptBlock(buffer, 1, buffer, 1);
+        assertArrayEquals(new byte[]{1, (byte) (56 ^ 184), (byte) (199 ^ 6), 2}, buffer);
+
+        round.decryptBlock(buffer, 1, buffer, 1);
+        assertArrayEquals(new byte[]{1, (byte) 56, (byte) 199, 2}, buffer);
+    }
+
+    @Test
+    public void testMixBlockLargeBlock() {
+        Random random = new Random(24);
+        MixKeyRound large = new MixKeyRound(21);
+        byte[] key = new byte[21];
+        byte[] block = new byte[21];
+        random.nextBytes(key);
+        random.nextBytes(block);
+        byte[] output = new byte[23];
+        large.mixBlock(key, block, 0, output, 2);
+        for (int i = 0; i < 21; i++) {
+            assertEquals((byte) (block[i] ^ key[i]), output[i + 2]);
+        }
+    }
+
+    @Test
+    public void testMixBlocksMatchesMixBlock() {
+        Random random = new Random(24);
+        for (int blockSize : new int[]{1, 2, 3, 4, 8, 12, 16, 33}) {
+            MixKeyRound mixer = new MixKeyRound(blockSize);
+            byte[] key = new byte[blockSize];
+            random.nextBytes(key);
+            for (int blocks : new int[]{0, 1, 5}) {
+                byte[] buffer = new byte[blocks * blockSize + 3];
+                random.nextBytes(buffer);
+                byte[] expected = buffer.clone();
+                for (int block = 0; block < blocks; block++) {
+                    mixer.mixBlock(key, expected, 3 + block * blockSize, expected, 3 + block * blockSize);
+                }
+                mixer.mixBlocks(key, buffer, 3, blocks);
+                assertArrayEquals(expected, buffer);
+            }
+        }
+    }
 }
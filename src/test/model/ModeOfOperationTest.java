@@ -0,0 +1,201 @@
+package model;
+
+import model.exceptions.PaddingException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ModeOfOperationTest {
+    private final int BLOCK_SIZE = 4;
+    private final Random random = new Random(210);
+    Cipher cipher;
+    KeySchedule keys;
+    byte[] iv;
+
+    @BeforeEach
+    public void runBefore() {
+        cipher = new Cipher(BLOCK_SIZE);
+        PermutationRound pround = new PermutationRound(BLOCK_SIZE);
+        pround.fillWithRandomPermutation();
+        SubstitutionRound sround = new SubstitutionRound(BLOCK_SIZE);
+        sround.fillWithRandomSubstitution();
+        cipher.addRound(pround);
+        cipher.addRound(new MixKeyRound(BLOCK_SIZE));
+        cipher.addRound(sround);
+
+        List<byte[]> keyList = new ArrayList<>();
+        keyList.add(new byte[]{1, 2, 3, 4});
+        keys = new KeySchedule(cipher, keyList);
+        iv = new byte[]{9, 8, 7, 6};
+    }
+
+    @Test
+    public void testRoundTripAllModesAndLengths() throws PaddingException {
+        for (CipherMode mode : CipherMode.values()) {
+            for (int length = 0; length <= 3 * BLOCK_SIZE + 1; length++) {
+                byte[] plaintext = randomBytes(length);
+                byte[] ciphertext = ModeOfOperation.forEncryption(cipher, mode, keys, iv).doFinal(plaintext);
+                byte[] decrypted = ModeOfOperation.forDecryption(cipher, mode, keys, iv).doFinal(ciphertext);
+                assertArrayEquals(plaintext, decrypted);
+            }
+        }
+    }
+
+    @Test
+    public void testCiphertextLengths() throws PaddingException {
+        assertEquals(BLOCK_SIZE, encrypt(CipherMode.ECB, 0).length);
+        assertEquals(2 * BLOCK_SIZE, encrypt(CipherMode.CBC, BLOCK_SIZE).length);
+        assertEquals(2 * BLOCK_SIZE, encrypt(CipherMode.CBC, BLOCK_SIZE + 3).length);
+        assertEquals(7, encrypt(CipherMode.CTR, 7).length);
+    }
+
+    @Test
+    public void testEcbMatchesCipherBlocks() throws PaddingException {
+        byte[] plaintext = {10, 20, 30, 40, 50, 60};
+        byte[] ciphertext = ModeOfOperation.forEncryption(cipher, CipherMode.ECB, keys, null).doFinal(plaintext);
+
+        byte[] secondBlock = {50, 60, 2, 2};
+        assertArrayEquals(cipher.encryptBlock(Arrays.copyOf(plaintext, BLOCK_SIZE), keys),
+                Arrays.copyOfRange(ciphertext, 0, BLOCK_SIZE));
+        assertArrayEquals(cipher.encryptBlock(secondBlock, keys), Arrays.copyOfRange(ciphertext, BLOCK_SIZE, 8));
+    }
+
+    @Test
+    public void testCbcChainsBlocks() throws PaddingException {
+        byte[] plaintext = {10, 20, 30, 40, 10, 20, 30, 40};
+        byte[] ciphertext = ModeOfOperation.forEncryption(cipher, CipherMode.CBC, keys, iv).doFinal(plaintext);
+
+        byte[] firstBlock = new byte[BLOCK_SIZE];
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            firstBlock[i] = (byte) (plaintext[i] ^ iv[i]);
+        }
+        firstBlock = cipher.encryptBlock(firstBlock, keys);
+        assertArrayEquals(firstBlock, Arrays.copyOf(ciphertext, BLOCK_SIZE));
+        assertFalse(Arrays.equals(firstBlock, Arrays.copyOfRange(ciphertext, BLOCK_SIZE, 8)));
+    }
+
+    @Test
+    public void testCtrUsesIncrementingCounter() throws PaddingException {
+        byte[] counter = {0, 0, 0, (byte) 255};
+        byte[] plaintext = new byte[2 * BLOCK_SIZE];
+        byte[] keystream = ModeOfOperation.forEncryption(cipher, CipherMode.CTR, keys, counter).doFinal(plaintext);
+
+        assertArrayEquals(cipher.encryptBlock(counter, keys), Arrays.copyOf(keystream, BLOCK_SIZE));
+        assertArrayEquals(cipher.encryptBlock(new byte[]{0, 0, 1, 0}, keys),
+                Arrays.copyOfRange(keystream, BLOCK_SIZE, 8));
+    }
+
+    @Test
+    public void testIncrementalUpdatesMatchOneShot() throws PaddingException {
+        for (CipherMode mode : CipherMode.values()) {
+            byte[] plaintext = randomBytes(29);
+            byte[] expected = ModeOfOperation.forEncryption(cipher, mode, keys, iv).doFinal(plaintext);
+
+            ModeOfOperation decryptor = ModeOfOperation.forDecryption(cipher, mode, keys, iv);
+            byte[] output = new byte[decryptor.getOutputSize(expected.length)];
+            int written = 0;
+            for (int offset = 0; offset < expected.length; offset += 3) {
+                int length = Math.min(3, expected.length - offset);
+                written += decryptor.update(expected, offset, length, output, written);
+            }
+            written += decryptor.doFinal(output, written);
+            assertArrayEquals(plaintext, Arrays.copyOf(output, written));
+        }
+    }
+
+    @Test
+    public void testDirectByteBuffers() throws PaddingException {
+        for (CipherMode mode : CipherMode.values()) {
+            byte[] plaintext = randomBytes(23);
+            byte[] expected = ModeOfOperation.forEncryption(cipher, mode, keys, iv).doFinal(plaintext);
+
+            ModeOfOperation encryptor = ModeOfOperation.forEncryption(cipher, mode, keys, iv);
+            ByteBuffer in = ByteBuffer.allocateDirect(plaintext.length);
+            in.put(plaintext).flip();
+            ByteBuffer out = ByteBuffer.allocateDirect(encryptor.getOutputSize(plaintext.length));
+            encryptor.update(in, out);
+            encryptor.doFinal(out);
+            out.flip();
+
+            byte[] actual = new byte[out.remaining()];
+            out.get(actual);
+            assertArrayEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void testReusableAfterDoFinal() throws PaddingException {
+        ModeOfOperation encryptor = ModeOfOperation.forEncryption(cipher, CipherMode.CBC, keys, iv);
+        byte[] plaintext = randomBytes(10);
+        assertArrayEquals(encryptor.doFinal(plaintext), encryptor.doFinal(plaintext));
+    }
+
+    @Test
+    public void testInvalidPadding() {
+        byte[] ciphertext = cipher.encryptBlock(new byte[]{1, 2, 3, 9}, keys);
+        try {
+            ModeOfOperation.forDecryption(cipher, CipherMode.ECB, keys, null).doFinal(ciphertext);
+            fail("PaddingException expected");
+        } catch (PaddingException e) {
+            // pass
+        }
+    }
+
+    @Test
+    public void testTruncatedCiphertext() {
+        try {
+            ModeOfOperation.forDecryption(cipher, CipherMode.CBC, keys, iv).doFinal(new byte[BLOCK_SIZE + 1]);
+            fail("PaddingException expected");
+        } catch (PaddingException e) {
+            // pass
+        }
+    }
+
+    @Test
+    public void testMissingIv() {
+        try {
+            ModeOfOperation.forEncryption(cipher, CipherMode.CTR, keys, null);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            // pass
+        }
+    }
+
+    @Test
+    public void testIncrementCounterWrapsAround() {
+        byte[] counter = {(byte) 255, (byte) 255};
+        ModeOfOperation.incrementCounter(counter);
+        assertArrayEquals(new byte[]{0, 0}, counter);
+    }
+
+    @Test
+    public void testAddToCounterCarries() {
+        byte[] counter = {0, 1, (byte) 255, (byte) 255, 42};
+        ModeOfOperation.addToCounter(counter, 4, 0x10002);
+        assertArrayEquals(new byte[]{0, 3, 0, 1, 42}, counter);
+    }
+
+    @Test
+    public void testCounterForBlock() {
+        byte[] start = {0, 0, 0, (byte) 255};
+        assertArrayEquals(new byte[]{0, 0, 1, 1}, ModeOfOperation.counterForBlock(start, 2));
+        assertArrayEquals(new byte[]{0, 0, 0, (byte) 255}, start);
+    }
+
+    private byte[] encrypt(CipherMode mode, int length) throws PaddingException {
+        return ModeOfOperation.forEncryption(cipher, mode, keys, iv).doFinal(randomBytes(length));
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,98 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OptimizedPlanTest {
+    Cipher cipher;
+    PermutationRound permutation;
+    KeySchedule keys;
+    Random random;
+
+    @BeforeEach
+    public void runBefore() {
+        random = new Random(11);
+        cipher = new Cipher(4);
+        permutation = new PermutationRound(4);
+        permutation.fillWithRandomPermutation();
+        SubstitutionRound substitution = new SubstitutionRound(4);
+        substitution.fillWithRandomSubstitution();
+        cipher.addRound(new MixKeyRound(4));
+        cipher.addRound(permutation);
+        cipher.addRound(new MixKeyRound(4));
+        cipher.addRound(substitution);
+        cipher.addRound(new MixKeyRound(4));
+        List<byte[]> keyList = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            byte[] key = new byte[4];
+            random.nextBytes(key);
+            keyList.add(key);
+        }
+        keys = new KeySchedule(cipher, keyList);
+    }
+
+    @Test
+    public void testEncryptDecrypt() {
+        OptimizedPlan plan = cipher.optimize();
+        assertEquals(4, plan.getBlockSize());
+        assertEquals(4, plan.getNumberOfSteps());
+        byte[] plaintext = {1, 2, 3, 4};
+        byte[] ciphertext = plan.encryptBlock(plaintext, keys);
+        assertArrayEquals(cipher.encryptBlock(plaintext, keys), ciphertext);
+        assertArrayEquals(plaintext, plan.decryptBlock(ciphertext, keys));
+    }
+
+    @Test
+    public void testInPlaceWithOffsets() {
+        OptimizedPlan plan = cipher.optimize();
+        byte[] buffer = new byte[12];
+        random.nextBytes(buffer);
+        byte[] original = buffer.clone();
+        plan.encryptBlock(buffer, 4, buffer, 4, keys);
+        assertArrayEquals(cipher.encryptBlock(Arrays.copyOfRange(original, 4, 8), keys),
+                Arrays.copyOfRange(buffer, 4, 8));
+        plan.decryptBlock(buffer, 4, buffer, 4, keys);
+        assertArrayEquals(original, buffer);
+    }
+
+    @Test
+    public void testKeySchedulesSwitched() {
+        OptimizedPlan plan = cipher.optimize();
+        List<byte[]> zeros = List.of(new byte[4], new byte[4], new byte[4]);
+        KeySchedule other = new KeySchedule(cipher, zeros);
+        byte[] plaintext = {9, 8, 7, 6};
+        for (int i = 0; i < 3; i++) {
+            assertArrayEquals(cipher.encryptBlock(plaintext, keys), plan.encryptBlock(plaintext, keys));
+            assertArrayEquals(cipher.encryptBlock(plaintext, other), plan.encryptBlock(plaintext, other));
+        }
+    }
+
+    @Test
+    public void testSnapshot() {
+        OptimizedPlan plan = cipher.optimize();
+        byte[] plaintext = {5, 6, 7, 8};
+        byte[] before = cipher.encryptBlock(plaintext, keys);
+        permutation.fillWithRandomPermutation();
+        assertArrayEquals(before, plan.encryptBlock(plaintext, keys));
+    }
+
+    @Test
+    public void testMismatchedKeys() {
+        OptimizedPlan plan = cipher.optimize();
+        Cipher other = new Cipher(4);
+        other.addRound(new MixKeyRound(4));
+        try {
+            plan.encryptBlock(new byte[4], new KeySchedule(other, List.of(new byte[4])));
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            // pass
+        }
+    }
+}
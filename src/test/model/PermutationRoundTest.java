@@ -3,6 +3,9 @@ package model;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Random;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class PermutationRoundTest {
@@ -140,4 +143,87 @@ public class PermutationRoundTest {
         round2.setPermutationMapping(mapping1);
         assertEquals(round, round2);
     }
+
+    @Test
+    public void testEncryptBlockMatchesEncryptRound() {
+        round.setPermutationMapping(mapping1);
+
+        Byte[] plaintext = {(byte) 168, (byte) 230};
+        byte[] encrypted = round.encryptBlock(ByteArrays.unbox(plaintext));
+        assertArrayEquals(round.encryptRound(plaintext), ByteArrays.box(encrypted));
+    }
+
+    @Test
+    public void testEncryptDecryptBlockInPlace() {
+        round.setPermutationMapping(mapping1);
+
+        byte[] buffer = {7, (byte) 168, (byte) 230, 9};
+        round.encryptBlock(buffer, 1, buffer, 1);
+        assertEquals(7, buffer[0]);
+        assertEquals(9, buffer[3]);
+
+        round.decryptBlock(buffer, 1, buffer, 1);
+        assertArrayEquals(new byte[]{7, (byte) 168, (byte) 230, 9}, buffer);
+    }
+
+    @Test
+    public void testDecryptAfterMappingChanges() {
+        round.setPermutationMapping(inverseMapping1);
+        round.setPermutationMapping(mapping1);
+
+        byte[] plaintext = {(byte) 168, (byte) 230};
+        assertArrayEquals(plaintext, round.decryptBlock(round.encryptBlock(plaintext)));
+
+        round.fillWithRandomPermutation();
+        assertArrayEquals(plaintext, round.decryptBlock(round.encryptBlock(plaintext)));
+    }
+
+    @Test
+    public void testMappingThatIsNotBijective() {
+        PermutationRound pround = new PermutationRound(1);
+        pround.setPermutationMapping(new int[8]);
+        // every bit goes to bit 0, so only the last one is kept
+        assertArrayEquals(new byte[]{0}, pround.encryptBlock(new byte[]{(byte) 0x80}));
+        assertArrayEquals(new byte[]{(byte) 0x80}, pround.encryptBlock(new byte[]{1}));
+        assertArrayEquals(new byte[]{1}, pround.decryptBlock(new byte[]{(byte) 0x80}));
+        assertArrayEquals(new byte[]{(byte) 0x80}, pround.decryptBlock(new byte[]{1}));
+    }
+
+    @Test
+    public void testMappingThatIsNotBijectiveMatchesBitByBit() {
+        Random random = new Random(3);
+        for (int blockSize : new int[]{3, 4, 8, 16}) {
+            int[] mapping = new int[blockSize * 8];
+            for (int i = 0; i < mapping.length; i++) {
+                mapping[i] = random.nextInt(mapping.length / 2);
+            }
+            int[] inverse = new int[mapping.length];
+            for (int i = 0; i < mapping.length; i++) {
+                inverse[mapping[i]] = i;
+            }
+            PermutationRound pround = new PermutationRound(blockSize);
+            pround.setPermutationMapping(mapping);
+            Cipher cipher = new Cipher(blockSize);
+            cipher.addRound(pround);
+            KeySchedule keys = new KeySchedule(cipher, new ArrayList<>());
+            byte[] block = new byte[blockSize];
+            random.nextBytes(block);
+
+            assertArrayEquals(permuteBits(mapping, block), pround.encryptBlock(block));
+            assertArrayEquals(permuteBits(mapping, block), cipher.encryptBlock(block, keys));
+            assertArrayEquals(permuteBits(inverse, block), pround.decryptBlock(block));
+            assertArrayEquals(permuteBits(inverse, block), cipher.decryptBlock(block, keys));
+        }
+    }
+
+    // EFFECTS: returns block with bit i written to bit mapping[i], one bit at a time in order
+    private static byte[] permuteBits(int[] mapping, byte[] block) {
+        byte[] output = new byte[block.length];
+        for (int i = 0; i < mapping.length; i++) {
+            int bit = (block[i >> 3] >> (7 - (i & 7))) & 1;
+            int target = mapping[i];
+            output[target >> 3] = (byte) ((output[target >> 3] & ~(0x80 >> (target & 7))) | (bit << (7 - (target & 7))));
+        }
+        return output;
+    }
 }
@@ -0,0 +1,93 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PermutationTableTest {
+    private final int[] blockSizes = {1, 2, 7, 8, 9, 16, 33};
+    private final Random random = new Random(210);
+
+    @Test
+    public void testMatchesBitByBitPermutation() {
+        for (int blockSize : blockSizes) {
+            int[] mapping = randomMapping(blockSize);
+            PermutationTable table = new PermutationTable(mapping, blockSize);
+            for (int trial = 0; trial < 20; trial++) {
+                byte[] input = randomBytes(blockSize);
+                byte[] output = new byte[blockSize];
+                table.apply(input, 0, output, 0);
+                assertArrayEquals(permuteBitByBit(mapping, input), output);
+            }
+        }
+    }
+
+    @Test
+    public void testPermuteWord() {
+        for (int blockSize : new int[]{1, 4, 8}) {
+            int[] mapping = randomMapping(blockSize);
+            PermutationTable table = new PermutationTable(mapping, blockSize);
+            byte[] input = randomBytes(blockSize);
+            long word = 0;
+            for (int i = 0; i < blockSize; i++) {
+                word |= (input[i] & 0xffL) << (56 - 8 * i);
+            }
+            byte[] expected = permuteBitByBit(mapping, input);
+            long permuted = table.permute(word);
+            for (int i = 0; i < 8; i++) {
+                assertEquals(i < blockSize ? expected[i] : 0, (byte) (permuted >>> (56 - 8 * i)));
+            }
+        }
+    }
+
+    @Test
+    public void testApplyInPlaceWithOffset() {
+        for (int blockSize : blockSizes) {
+            int[] mapping = randomMapping(blockSize);
+            PermutationTable table = new PermutationTable(mapping, blockSize);
+            byte[] input = randomBytes(blockSize);
+            byte[] buffer = new byte[blockSize + 2];
+            System.arraycopy(input, 0, buffer, 1, blockSize);
+
+            table.apply(buffer, 1, buffer, 1);
+            byte[] output = new byte[blockSize];
+            System.arraycopy(buffer, 1, output, 0, blockSize);
+            assertArrayEquals(permuteBitByBit(mapping, input), output);
+            assertEquals(0, buffer[0]);
+            assertEquals(0, buffer[blockSize + 1]);
+        }
+    }
+
+    // EFFECTS: returns a random permutation of the bits of a block of size blockSize
+    private int[] randomMapping(int blockSize) {
+        int[] mapping = new int[blockSize * 8];
+        for (int i = 0; i < mapping.length; i++) {
+            mapping[i] = i;
+        }
+        for (int i = mapping.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int temp = mapping[i];
+            mapping[i] = mapping[j];
+            mapping[j] = temp;
+        }
+        return mapping;
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    // EFFECTS: moves bit i of input (from left to right) to bit mapping[i] of the output
+    private byte[] permuteBitByBit(int[] mapping, byte[] input) {
+        byte[] output = new byte[input.length];
+        for (int i = 0; i < mapping.length; i++) {
+            int bit = PermutationRound.getBitByIndex(input[i / 8], i % 8);
+            output[mapping[i] / 8] |= bit << (7 - mapping[i] % 8);
+        }
+        return output;
+    }
+}
@@ -0,0 +1,219 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PlanOptimizerTest {
+    Random random;
+
+    @BeforeEach
+    public void runBefore() {
+        random = new Random(7);
+    }
+
+    @Test
+    public void testIdentityRoundsDropped() {
+        Cipher cipher = new Cipher(4);
+        cipher.addRound(new SubstitutionRound(4));
+        cipher.addRound(new PermutationRound(4));
+        cipher.addRound(new MixKeyRound(4));
+        cipher.addRound(new PermutationRound(4));
+        OptimizedPlan plan = cipher.optimize();
+        assertEquals(1, plan.getNumberOfSteps());
+        assertEquals(4, plan.getNumberOfRounds());
+        assertEquals(1, plan.getNumberOfKeySlots());
+        assertTrue(plan.matches(cipher, 16, random));
+    }
+
+    @Test
+    public void testAdjacentRoundsFused() {
+        Cipher cipher = new Cipher(8);
+        cipher.addRound(randomPermutation(8));
+        cipher.addRound(randomPermutation(8));
+        cipher.addRound(randomPermutation(8));
+        cipher.addRound(randomSubstitution(8));
+        cipher.addRound(randomSubstitution(8));
+        OptimizedPlan plan = cipher.optimize();
+        assertEquals(2, plan.getNumberOfSteps());
+        assertTrue(plan.matches(cipher, 16, random));
+    }
+
+    @Test
+    public void testKeyMixesMergedAcrossPermutations() {
+        Cipher cipher = new Cipher(8);
+        cipher.addRound(new MixKeyRound(8));
+        cipher.addRound(randomPermutation(8));
+        cipher.addRound(new MixKeyRound(8));
+        cipher.addRound(randomPermutation(8));
+        cipher.addRound(new MixKeyRound(8));
+        cipher.addRound(randomSubstitution(8));
+        cipher.addRound(new MixKeyRound(8));
+        OptimizedPlan plan = cipher.optimize();
+        // one permutation and one key mix before the substitution, one key mix after it
+        assertEquals(4, plan.getNumberOfSteps());
+        assertEquals(4, plan.getNumberOfKeySlots());
+        assertTrue(plan.matches(cipher, 16, random));
+    }
+
+    @Test
+    public void testCancellingRoundsRemoved() {
+        PermutationRound permutation = randomPermutation(16);
+        SubstitutionRound substitution = randomSubstitution(16);
+        Cipher cipher = new Cipher(16);
+        cipher.addRound(permutation);
+        cipher.addRound(new MixKeyRound(16));
+        cipher.addRound(substitution);
+        cipher.addRound(inverse(substitution));
+        cipher.addRound(new MixKeyRound(16));
+        cipher.addRound(inverse(permutation));
+        OptimizedPlan plan = cipher.optimize();
+        // the permutations cancel once the substitutions have, leaving the two keys merged into one mix
+        assertEquals(1, plan.getNumberOfSteps());
+        assertTrue(plan.matches(cipher, 16, random));
+    }
+
+    @Test
+    public void testRandomCiphersEquivalent() {
+        int[] blockSizes = {1, 4, 8, 16, 32};
+        for (int blockSize : blockSizes) {
+            Cipher cipher = new Cipher(blockSize);
+            for (int i = 0; i < 40; i++) {
+                int type = random.nextInt(4);
+                if (type == 0) {
+                    cipher.addRound(new MixKeyRound(blockSize));
+                } else if (type == 1) {
+                    cipher.addRound(randomPermutation(blockSize));
+                } else if (type == 2) {
+                    cipher.addRound(randomSubstitution(blockSize));
+                } else {
+                    cipher.addRound(new SubstitutionRound(blockSize));
+                }
+            }
+            OptimizedPlan plan = PlanOptimizer.build(cipher);
+            assertTrue(plan.getNumberOfSteps() < cipher.getNumberOfRounds());
+            assertTrue(plan.matches(cipher, 64, random));
+        }
+    }
+
+    @Test
+    public void testLiteralPlan() {
+        Cipher cipher = new Cipher(4);
+        cipher.addRound(new MixKeyRound(4));
+        cipher.addRound(new PermutationRound(4));
+        cipher.addRound(randomSubstitution(4));
+        OptimizedPlan plan = PlanOptimizer.literal(cipher);
+        assertEquals(3, plan.getNumberOfSteps());
+        assertTrue(plan.matches(cipher, 16, random));
+    }
+
+    @Test
+    public void testMismatchDetected() {
+        Cipher cipher = new Cipher(4);
+        cipher.addRound(randomPermutation(4));
+        Cipher other = new Cipher(4);
+        other.addRound(randomPermutation(4));
+        assertFalse(PlanOptimizer.build(other).matches(cipher, 16, random));
+        assertFalse(PlanOptimizer.build(new Cipher(8)).matches(cipher, 16, random));
+    }
+
+    @Test
+    public void testPermutationThatIsNotBijectiveRunsAsWritten() {
+        Cipher cipher = new Cipher(2);
+        cipher.addRound(randomPermutation(2));
+        cipher.addRound(new MixKeyRound(2));
+        PermutationRound collapsing = new PermutationRound(2);
+        collapsing.setPermutationMapping(new int[16]);
+        cipher.addRound(collapsing);
+        OptimizedPlan plan = cipher.optimize();
+        assertEquals(3, plan.getNumberOfSteps());
+        assertTrue(plan.matches(cipher, 16, random));
+    }
+
+    @Test
+    public void testCheckRecordsNothing() {
+        Cipher cipher = new Cipher(4);
+        cipher.addRound(new MixKeyRound(4));
+        cipher.addRound(randomSubstitution(4));
+        cipher.addRound(randomPermutation(4));
+        cipher.setInstrumentationEnabled(true);
+        cipher.getBlockStatistics().setEnabled(true);
+        cipher.resetPlanCacheStatistics();
+        EventLog log = EventLog.getInstance();
+        log.setHotPathMode(EventLog.HotPathMode.DETAILED);
+        log.clear();
+        int size = log.size();
+
+        assertTrue(cipher.optimize().matches(cipher, 16, random));
+        log.flushCounters();
+        assertEquals(size, log.size());
+        assertEquals(0, cipher.getPlanCacheHits() + cipher.getPlanCacheMisses());
+        assertEquals(0, cipher.getBlockStatistics().getEncryptedBlocks());
+        assertEquals(0, cipher.getMetrics().snapshot().getEncryptedBlocks());
+    }
+
+    @Test
+    public void testCompose() {
+        assertArrayEquals(new int[]{2, 1, 0}, PlanOptimizer.compose(new int[]{1, 2, 0}, new int[]{0, 2, 1}));
+        assertArrayEquals(new int[]{1, 0}, PlanOptimizer.compose(null, new int[]{1, 0}));
+        assertTrue(PlanOptimizer.isIdentity(new int[]{0, 1, 2}));
+        assertFalse(PlanOptimizer.isIdentity(new int[]{0, 2, 1}));
+    }
+
+    // EFFECTS: returns a permutation round with a random mapping
+    PermutationRound randomPermutation(int blockSize) {
+        PermutationRound round = new PermutationRound(blockSize);
+        round.setPermutationMapping(shuffled(blockSize * 8));
+        return round;
+    }
+
+    // EFFECTS: returns a substitution round with a random mapping
+    SubstitutionRound randomSubstitution(int blockSize) {
+        SubstitutionRound round = new SubstitutionRound(blockSize);
+        round.setSubstitutionMapping(shuffled(16));
+        return round;
+    }
+
+    // EFFECTS: returns the numbers 0 to size - 1 in a random order
+    int[] shuffled(int size) {
+        List<Integer> values = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            values.add(i);
+        }
+        Collections.shuffle(values, random);
+        int[] mapping = new int[size];
+        for (int i = 0; i < size; i++) {
+            mapping[i] = values.get(i);
+        }
+        return mapping;
+    }
+
+    // EFFECTS: returns the permutation round that undoes round
+    static PermutationRound inverse(PermutationRound round) {
+        PermutationRound inverse = new PermutationRound(round.getBlockSize());
+        inverse.setPermutationMapping(invert(round.getPermutationMapping()));
+        return inverse;
+    }
+
+    // EFFECTS: returns the substitution round that undoes round
+    static SubstitutionRound inverse(SubstitutionRound round) {
+        SubstitutionRound inverse = new SubstitutionRound(round.getBlockSize());
+        inverse.setSubstitutionMapping(invert(round.getSubstitutionMapping()));
+        return inverse;
+    }
+
+    // EFFECTS: returns the inverse of mapping
+    static int[] invert(int[] mapping) {
+        int[] inverse = new int[mapping.length];
+        for (int i = 0; i < mapping.length; i++) {
+            inverse[mapping[i]] = i;
+        }
+        return inverse;
+    }
+}
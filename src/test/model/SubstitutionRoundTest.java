@@ -130,4 +130,53 @@ public class SubstitutionRoundTest {
         round2.setSubstitutionMapping(mapping);
         assertEquals(round, round2);
     }
+
+    @Test
+    public void testEncryptBlockMatchesEncryptRound() {
+        round.setSubstitutionMapping(mapping);
+
+        Byte[] plaintext = {(byte) 168, (byte) 42};
+        byte[] encrypted = round.encryptBlock(ByteArrays.unbox(plaintext));
+        assertArrayEquals(round.encryptRound(plaintext), ByteArrays.box(encrypted));
+    }
+
+    @Test
+    public void testEncryptDecryptBlockInPlace() {
+        round.setSubstitutionMapping(mapping);
+
+        byte[] buffer = {7, (byte) 168, (byte) 42, 9};
+        round.encryptBlock(buffer, 1, buffer, 1);
+        assertEquals(7, buffer[0]);
+        assertEquals(9, buffer[3]);
+
+        round.decryptBlock(buffer, 1, buffer, 1);
+        assertArrayEquals(new byte[]{7, (byte) 168, (byte) 42, 9}, buffer);
+    }
+
+    @Test
+    public void testDecryptAfterMappingChanges() {
+        round.setSubstitutionMapping(inverseMapping);
+        round.setSubstitutionMapping(mapping);
+
+        byte[] plaintext = {(byte) 168, (byte) 42};
+        assertArrayEquals(plaintext, round.decryptBlock(round.encryptBlock(plaintext)));
+
+        round.fillWithRandomSubstitution();
+        assertArrayEquals(plaintext, round.decryptBlock(round.encryptBlock(plaintext)));
+    }
+
+    @Test
+    public void testWideTableMatchesByteTable() {
+        SubstitutionRound wideRound = new SubstitutionRound(5);
+        SubstitutionRound narrowRound = new SubstitutionRound(5);
+        wideRound.enableWideTable();
+        wideRound.setSubstitutionMapping(mapping);
+        narrowRound.setSubstitutionMapping(mapping);
+        assertTrue(wideRound.isWideTableEnabled());
+
+        byte[] plaintext = {(byte) 168, (byte) 42, 0, (byte) 255, 17};
+        byte[] encrypted = wideRound.encryptBlock(plaintext);
+        assertArrayEquals(narrowRound.encryptBlock(plaintext), encrypted);
+        assertArrayEquals(plaintext, wideRound.decryptBlock(encrypted));
+    }
 }
@@ -0,0 +1,120 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VectorSupportTest {
+    Random random;
+    VectorBackend backend;
+
+    @BeforeEach
+    public void runBefore() {
+        random = new Random(25);
+        backend = VectorSupport.load(VectorSupport.BACKEND_CLASS, true);
+    }
+
+    @Test
+    public void testLoadedOnlyWithModule() {
+        boolean available = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()
+                && VectorSupportTest.class.getClassLoader().getResource("model/VectorKernels.class") != null;
+        assertEquals(available, backend != null);
+        assertEquals(available, VectorSupport.backend() != null);
+    }
+
+    @Test
+    public void testLoadFallsBack() {
+        assertNull(VectorSupport.load(VectorSupport.BACKEND_CLASS, false));
+        assertNull(VectorSupport.load("model.NoSuchBackend", true));
+        assertNull(VectorSupport.load("java.lang.Object", true));
+    }
+
+    @Test
+    public void testXorMatchesScalar() {
+        if (backend == null) {
+            return;
+        }
+        for (int length : new int[]{0, 15, 16, 64, 100, 1000}) {
+            byte[] key = randomBytes(length);
+            byte[] block = randomBytes(length + 3);
+            byte[] expected = block.clone();
+            int done = backend.xor(key, block, 3, length);
+            assertTrue(done <= length && length - done < VectorBackend.MAX_VECTOR_BYTES);
+            for (int i = 0; i < done; i++) {
+                expected[3 + i] ^= key[i];
+            }
+            assertArrayEquals(expected, block);
+        }
+    }
+
+    @Test
+    public void testXorPatternMatchesScalar() {
+        if (backend == null) {
+            return;
+        }
+        byte[] pattern = new byte[VectorBackend.MAX_VECTOR_BYTES];
+        byte[] word = randomBytes(8);
+        for (int i = 0; i < pattern.length; i++) {
+            pattern[i] = word[i % 8];
+        }
+        byte[] block = randomBytes(1001);
+        byte[] expected = block.clone();
+        int done = backend.xorPattern(pattern, block, 1, 1000);
+        assertEquals(0, done % 8);
+        assertTrue(1000 - done < VectorBackend.MAX_VECTOR_BYTES);
+        for (int i = 0; i < done; i++) {
+            expected[1 + i] ^= word[i % 8];
+        }
+        assertArrayEquals(expected, block);
+    }
+
+    @Test
+    public void testSubstituteMatchesTable() {
+        if (backend == null) {
+            return;
+        }
+        SubstitutionRound round = new SubstitutionRound(1);
+        round.fillWithRandomSubstitution();
+        int[] mapping = round.getSubstitutionMapping();
+        byte[] nibbles = new byte[VectorBackend.MAX_VECTOR_BYTES];
+        for (int i = 0; i < 16; i++) {
+            nibbles[i] = (byte) mapping[i];
+        }
+        byte[] src = randomBytes(1000);
+        byte[] dst = new byte[1002];
+        int done = backend.substitute(nibbles, src, 0, dst, 2, 1000);
+        assertTrue(1000 - done < VectorBackend.MAX_VECTOR_BYTES);
+        for (int i = 0; i < done; i++) {
+            int value = src[i] & 0xff;
+            assertEquals((byte) (mapping[value >> 4] << 4 | mapping[value & 0xf]), dst[2 + i]);
+        }
+    }
+
+    @Test
+    public void testTablesMatchWithAndWithoutBackend() {
+        SubstitutionRound first = new SubstitutionRound(1);
+        first.fillWithRandomSubstitution();
+        SubstitutionRound second = new SubstitutionRound(1);
+        second.fillWithRandomSubstitution();
+        SubstitutionTable composed = first.getEncryptTable().then(second.getEncryptTable());
+        byte[] block = randomBytes(500);
+        byte[] output = block.clone();
+        composed.apply(output, 0, output, 0, output.length);
+        for (int i = 0; i < block.length; i++) {
+            byte[] single = {block[i]};
+            first.encryptBlock(single, 0, single, 0);
+            second.encryptBlock(single, 0, single, 0);
+            assertEquals(single[0], output[i]);
+        }
+    }
+
+    // EFFECTS: returns length random bytes
+    byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,160 @@
+package model;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WordKernelTest {
+    Random random;
+
+    @BeforeEach
+    public void runBefore() {
+        random = new Random(23);
+    }
+
+    @Test
+    public void testMatchesRounds() {
+        for (int blockSize : new int[]{4, 8, 16}) {
+            Cipher cipher = createCipher(blockSize, 5);
+            assertTrue(cipher.getPlan().usesWordKernel());
+            KeySchedule keys = randomKeys(cipher);
+            for (int i = 0; i < 16; i++) {
+                byte[] block = new byte[blockSize];
+                random.nextBytes(block);
+                byte[] ciphertext = cipher.encryptBlock(block, keys);
+                assertArrayEquals(runRounds(cipher, keys, block), ciphertext);
+                assertArrayEquals(block, cipher.decryptBlock(ciphertext, keys));
+            }
+        }
+    }
+
+    @Test
+    public void testBlockAtOffset() {
+        Cipher cipher = createCipher(16, 3);
+        KeySchedule keys = randomKeys(cipher);
+        byte[] buffer = new byte[20];
+        random.nextBytes(buffer);
+        byte[] block = Arrays.copyOfRange(buffer, 3, 19);
+        cipher.encryptBlock(buffer, 3, buffer, 3, keys);
+        assertArrayEquals(runRounds(cipher, keys, block), Arrays.copyOfRange(buffer, 3, 19));
+        cipher.decryptBlock(buffer, 3, buffer, 3, keys);
+        assertArrayEquals(block, Arrays.copyOfRange(buffer, 3, 19));
+    }
+
+    @Test
+    public void testSeesRoundsChangedAfterPlanBuilt() {
+        for (int blockSize : new int[]{4, 8, 16}) {
+            Cipher cipher = createCipher(blockSize, 2);
+            KeySchedule keys = randomKeys(cipher);
+            byte[] block = new byte[blockSize];
+            random.nextBytes(block);
+            cipher.encryptBlock(block, keys);
+            for (Round round : cipher) {
+                if (round instanceof PermutationRound) {
+                    ((PermutationRound) round).fillWithRandomPermutation();
+                } else if (round instanceof SubstitutionRound) {
+                    ((SubstitutionRound) round).fillWithRandomSubstitution();
+                }
+            }
+            assertArrayEquals(runRounds(cipher, keys, block), cipher.encryptBlock(block, keys));
+        }
+    }
+
+    @Test
+    public void testNotUsedForOtherBlockSizes() {
+        for (int blockSize : new int[]{1, 2, 12, 32}) {
+            Round[] steps = {new MixKeyRound(blockSize), new SubstitutionRound(blockSize)};
+            assertNull(WordKernel.of(steps, new int[]{0, -1}, blockSize));
+        }
+        assertNotNull(WordKernel.of(new Round[0], new int[0], 8));
+    }
+
+    @Test
+    public void testNotUsedForOtherRounds() {
+        Round custom = new Round() {
+            @Override
+            public void encryptBlock(byte[] src, int srcOffset, byte[] dst, int dstOffset) {
+                System.arraycopy(src, srcOffset, dst, dstOffset, 8);
+            }
+
+            @Override
+            public void decryptBlock(byte[] src, int srcOffset, byte[] dst, int dstOffset) {
+                encryptBlock(src, srcOffset, dst, dstOffset);
+            }
+
+            @Override
+            public int getBlockSize() {
+                return 8;
+            }
+
+            @Override
+            public JSONObject toJson() {
+                return new JSONObject();
+            }
+        };
+        assertNull(WordKernel.of(new Round[]{new MixKeyRound(8), custom}, new int[]{0, -1}, 8));
+    }
+
+    @Test
+    public void testNotUsedWhenInstrumented() {
+        Cipher cipher = createCipher(8, 2);
+        cipher.setInstrumentationEnabled(true);
+        assertFalse(cipher.getPlan().usesWordKernel());
+        cipher.setInstrumentationEnabled(false);
+        assertTrue(cipher.getPlan().usesWordKernel());
+    }
+
+    // EFFECTS: returns a cipher with layers of a key mix, two substitution rounds (fused in its plan) and a
+    // permutation, all random
+    Cipher createCipher(int blockSize, int layers) {
+        Cipher cipher = new Cipher(blockSize);
+        for (int i = 0; i < layers; i++) {
+            cipher.addRound(new MixKeyRound(blockSize));
+            for (int j = 0; j < 1 + i % 2; j++) {
+                SubstitutionRound substitution = new SubstitutionRound(blockSize);
+                substitution.fillWithRandomSubstitution();
+                if (i % 3 == 0) {
+                    substitution.enableWideTable();
+                }
+                cipher.addRound(substitution);
+            }
+            PermutationRound permutation = new PermutationRound(blockSize);
+            permutation.fillWithRandomPermutation();
+            cipher.addRound(permutation);
+        }
+        return cipher;
+    }
+
+    // EFFECTS: returns block encrypted by running the cipher's rounds one at a time on a byte array
+    byte[] runRounds(Cipher cipher, KeySchedule keys, byte[] block) {
+        byte[] output = block.clone();
+        int slot = 0;
+        for (Round round : cipher) {
+            if (round instanceof MixKeyRound) {
+                ((MixKeyRound) round).mixBlock(keys.getKey(slot), output, 0, output, 0);
+                slot++;
+            } else {
+                round.encryptBlock(output, 0, output, 0);
+            }
+        }
+        return output;
+    }
+
+    // EFFECTS: returns a random key schedule for cipher
+    KeySchedule randomKeys(Cipher cipher) {
+        List<byte[]> keys = new ArrayList<>();
+        for (int i = 0; i < cipher.getNumberOfKeyRounds(); i++) {
+            byte[] key = new byte[cipher.getBlockSize()];
+            random.nextBytes(key);
+            keys.add(key);
+        }
+        return new KeySchedule(cipher, keys);
+    }
+}
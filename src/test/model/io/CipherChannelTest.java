@@ -0,0 +1,102 @@
+package model.io;
+
+import model.*;
+import model.exceptions.PaddingException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CipherChannelTest {
+    private final int BLOCK_SIZE = 4;
+    private final Random random = new Random(210);
+    Cipher cipher;
+    KeySchedule keys;
+    byte[] iv;
+
+    @BeforeEach
+    public void runBefore() {
+        cipher = new Cipher(BLOCK_SIZE);
+        SubstitutionRound sround = new SubstitutionRound(BLOCK_SIZE);
+        sround.fillWithRandomSubstitution();
+        cipher.addRound(new MixKeyRound(BLOCK_SIZE));
+        cipher.addRound(sround);
+
+        List<byte[]> keyList = new ArrayList<>();
+        keyList.add(new byte[]{1, 2, 3, 4});
+        keys = new KeySchedule(cipher, keyList);
+        iv = new byte[]{9, 8, 7, 6};
+    }
+
+    @Test
+    public void testWritableChannelMatchesOneShot() throws IOException, PaddingException {
+        for (CipherMode mode : CipherMode.values()) {
+            byte[] plaintext = randomBytes(30000 + 2);
+            ByteArrayOutputStream sink = new ByteArrayOutputStream();
+            WritableByteChannel channel = new CipherWritableChannel(Channels.newChannel(sink),
+                    ModeOfOperation.forEncryption(cipher, mode, keys, iv));
+            ByteBuffer direct = ByteBuffer.allocateDirect(plaintext.length - 10);
+            direct.put(plaintext, 10, plaintext.length - 10).flip();
+
+            assertEquals(10, channel.write(ByteBuffer.wrap(plaintext, 0, 10)));
+            assertEquals(plaintext.length - 10, channel.write(direct));
+            channel.close();
+            assertFalse(channel.isOpen());
+
+            byte[] expected = ModeOfOperation.forEncryption(cipher, mode, keys, iv).doFinal(plaintext);
+            assertArrayEquals(expected, sink.toByteArray());
+        }
+    }
+
+    @Test
+    public void testReadableChannelRoundTrip() throws IOException, PaddingException {
+        for (CipherMode mode : CipherMode.values()) {
+            byte[] plaintext = randomBytes(30000 + 3);
+            byte[] ciphertext = ModeOfOperation.forEncryption(cipher, mode, keys, iv).doFinal(plaintext);
+            ReadableByteChannel channel = new CipherReadableChannel(
+                    Channels.newChannel(new ByteArrayInputStream(ciphertext)),
+                    ModeOfOperation.forDecryption(cipher, mode, keys, iv));
+
+            ByteBuffer output = ByteBuffer.allocate(plaintext.length);
+            ByteBuffer chunk = ByteBuffer.allocateDirect(777);
+            while (channel.read(chunk) != -1) {
+                chunk.flip();
+                output.put(chunk);
+                chunk.clear();
+            }
+            assertArrayEquals(plaintext, output.array());
+        }
+    }
+
+    @Test
+    public void testReadAfterClose() throws IOException {
+        ReadableByteChannel channel = new CipherReadableChannel(
+                Channels.newChannel(new ByteArrayInputStream(new byte[8])),
+                ModeOfOperation.forDecryption(cipher, CipherMode.CTR, keys, iv));
+        channel.close();
+        try {
+            channel.read(ByteBuffer.allocate(8));
+            fail("ClosedChannelException expected");
+        } catch (ClosedChannelException e) {
+            // pass
+        }
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}
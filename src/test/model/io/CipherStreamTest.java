@@ -0,0 +1,123 @@
+package model.io;
+
+import model.*;
+import model.exceptions.PaddingException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CipherStreamTest {
+    private final int BLOCK_SIZE = 4;
+    private final Random random = new Random(210);
+    Cipher cipher;
+    KeySchedule keys;
+    byte[] iv;
+
+    @BeforeEach
+    public void runBefore() {
+        cipher = new Cipher(BLOCK_SIZE);
+        PermutationRound pround = new PermutationRound(BLOCK_SIZE);
+        pround.fillWithRandomPermutation();
+        cipher.addRound(pround);
+        cipher.addRound(new MixKeyRound(BLOCK_SIZE));
+
+        List<byte[]> keyList = new ArrayList<>();
+        keyList.add(new byte[]{1, 2, 3, 4});
+        keys = new KeySchedule(cipher, keyList);
+        iv = new byte[]{9, 8, 7, 6};
+    }
+
+    @Test
+    public void testOutputStreamMatchesOneShot() throws IOException, PaddingException {
+        for (CipherMode mode : CipherMode.values()) {
+            byte[] plaintext = randomBytes(20000 + 3);
+            ByteArrayOutputStream sink = new ByteArrayOutputStream();
+            OutputStream out = new CipherOutputStream(sink, ModeOfOperation.forEncryption(cipher, mode, keys, iv));
+            out.write(plaintext[0]);
+            out.write(plaintext, 1, plaintext.length - 1);
+            out.close();
+
+            byte[] expected = ModeOfOperation.forEncryption(cipher, mode, keys, iv).doFinal(plaintext);
+            assertArrayEquals(expected, sink.toByteArray());
+        }
+    }
+
+    @Test
+    public void testInputStreamRoundTrip() throws IOException, PaddingException {
+        for (CipherMode mode : CipherMode.values()) {
+            byte[] plaintext = randomBytes(20000 + 1);
+            byte[] ciphertext = ModeOfOperation.forEncryption(cipher, mode, keys, iv).doFinal(plaintext);
+            InputStream in = new CipherInputStream(new ByteArrayInputStream(ciphertext),
+                    ModeOfOperation.forDecryption(cipher, mode, keys, iv));
+
+            assertArrayEquals(plaintext, readAll(in));
+            assertEquals(-1, in.read());
+        }
+    }
+
+    @Test
+    public void testInputStreamSkip() throws IOException, PaddingException {
+        byte[] plaintext = randomBytes(100);
+        byte[] ciphertext = ModeOfOperation.forEncryption(cipher, CipherMode.CBC, keys, iv).doFinal(plaintext);
+        InputStream in = new CipherInputStream(new ByteArrayInputStream(ciphertext),
+                ModeOfOperation.forDecryption(cipher, CipherMode.CBC, keys, iv));
+
+        assertEquals(90, in.skip(90));
+        assertEquals(plaintext[90] & 0xff, in.read());
+        assertEquals(9, in.skip(50));
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    public void testInputStreamInvalidPadding() {
+        byte[] ciphertext = randomBytes(3 * BLOCK_SIZE + 1);
+        InputStream in = new CipherInputStream(new ByteArrayInputStream(ciphertext),
+                ModeOfOperation.forDecryption(cipher, CipherMode.ECB, keys, null));
+        try {
+            readAll(in);
+            fail("IOException expected");
+        } catch (IOException e) {
+            // pass
+        }
+    }
+
+    @Test
+    public void testWriteAfterClose() throws IOException {
+        OutputStream out = new CipherOutputStream(new ByteArrayOutputStream(),
+                ModeOfOperation.forEncryption(cipher, CipherMode.ECB, keys, null));
+        out.close();
+        out.close();
+        try {
+            out.write(1);
+            fail("IOException expected");
+        } catch (IOException e) {
+            // pass
+        }
+    }
+
+    private byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1000];
+        int read;
+        while ((read = in.read(buffer, 0, buffer.length)) != -1) {
+            output.write(buffer, 0, read);
+        }
+        return output.toByteArray();
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}
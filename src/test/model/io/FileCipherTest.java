@@ -0,0 +1,167 @@
+package model.io;
+
+import model.*;
+import model.exceptions.PaddingException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileCipherTest {
+    private final int BLOCK_SIZE = 4;
+    private final int WINDOW_SIZE = 1000;
+    private final Random random = new Random(310);
+    Cipher cipher;
+    KeySchedule keys;
+    byte[] iv;
+    ExecutorService executor;
+    Path source;
+    Path encrypted;
+    Path decrypted;
+
+    @BeforeEach
+    public void runBefore() throws IOException {
+        cipher = new Cipher(BLOCK_SIZE);
+        SubstitutionRound sround = new SubstitutionRound(BLOCK_SIZE);
+        sround.fillWithRandomSubstitution();
+        PermutationRound pround = new PermutationRound(BLOCK_SIZE);
+        pround.fillWithRandomPermutation();
+        cipher.addRound(new MixKeyRound(BLOCK_SIZE));
+        cipher.addRound(sround);
+        cipher.addRound(pround);
+
+        List<byte[]> keyList = new ArrayList<>();
+        keyList.add(new byte[]{1, 2, 3, 4});
+        keys = new KeySchedule(cipher, keyList);
+        iv = new byte[]{9, 8, 7, 6};
+        executor = Executors.newFixedThreadPool(4);
+
+        source = Files.createTempFile("source", ".bin");
+        encrypted = Files.createTempFile("encrypted", ".bin");
+        decrypted = Files.createTempFile("decrypted", ".bin");
+    }
+
+    @AfterEach
+    public void runAfter() throws IOException {
+        executor.shutdown();
+        Files.deleteIfExists(source);
+        Files.deleteIfExists(encrypted);
+        Files.deleteIfExists(decrypted);
+    }
+
+    @Test
+    public void testMatchesOneShotAcrossWindows() throws IOException, PaddingException {
+        int[] lengths = {0, 3, 4, WINDOW_SIZE, WINDOW_SIZE + 4, 5 * WINDOW_SIZE + 7};
+        for (CipherMode mode : CipherMode.values()) {
+            FileCipher fileCipher = new FileCipher(cipher, mode, executor, WINDOW_SIZE);
+            for (int length : lengths) {
+                byte[] plaintext = randomBytes(length);
+                Files.write(source, plaintext);
+                byte[] expected = ModeOfOperation.forEncryption(cipher, mode, keys, iv).doFinal(plaintext);
+
+                assertEquals(expected.length, fileCipher.encryptFile(source, encrypted, keys, iv));
+                assertArrayEquals(expected, Files.readAllBytes(encrypted));
+                assertEquals(length, fileCipher.decryptFile(encrypted, decrypted, keys, iv));
+                assertArrayEquals(plaintext, Files.readAllBytes(decrypted));
+            }
+        }
+    }
+
+    @Test
+    public void testReplacesExistingDestination() throws IOException, PaddingException {
+        FileCipher fileCipher = new FileCipher(cipher, CipherMode.CTR, executor, WINDOW_SIZE);
+        Files.write(encrypted, randomBytes(3 * WINDOW_SIZE));
+        byte[] plaintext = randomBytes(10);
+        Files.write(source, plaintext);
+
+        fileCipher.encryptFile(source, encrypted, keys, iv);
+        fileCipher.decryptFile(encrypted, decrypted, keys, iv);
+        assertEquals(10, Files.size(encrypted));
+        assertArrayEquals(plaintext, Files.readAllBytes(decrypted));
+    }
+
+    @Test
+    public void testWindowSizeRoundedToBlocks() {
+        assertEquals(1000, new FileCipher(cipher, CipherMode.ECB, executor, 1002).getWindowSize());
+        assertEquals(BLOCK_SIZE, new FileCipher(cipher, CipherMode.ECB, executor, 1).getWindowSize());
+        assertEquals(FileCipher.DEFAULT_WINDOW_SIZE, new FileCipher(cipher, CipherMode.CBC).getWindowSize());
+    }
+
+    @Test
+    public void testDecryptWrongLength() throws IOException {
+        FileCipher fileCipher = new FileCipher(cipher, CipherMode.CBC, executor, WINDOW_SIZE);
+        Files.write(source, randomBytes(2 * WINDOW_SIZE + 3));
+        try {
+            fileCipher.decryptFile(source, decrypted, keys, iv);
+            fail("PaddingException expected");
+        } catch (PaddingException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testDecryptBadPadding() throws IOException {
+        FileCipher fileCipher = new FileCipher(cipher, CipherMode.ECB, executor, WINDOW_SIZE);
+        byte[] block = new byte[BLOCK_SIZE];
+        cipher.encryptBlock(new byte[]{1, 2, 3, 0}, 0, block, 0, keys);
+        byte[] ciphertext = new byte[3 * WINDOW_SIZE];
+        System.arraycopy(block, 0, ciphertext, ciphertext.length - BLOCK_SIZE, BLOCK_SIZE);
+        Files.write(source, ciphertext);
+        try {
+            fileCipher.decryptFile(source, decrypted, keys, iv);
+            fail("PaddingException expected");
+        } catch (PaddingException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testMissingIv() throws IOException {
+        FileCipher fileCipher = new FileCipher(cipher, CipherMode.CTR, executor, WINDOW_SIZE);
+        Files.write(source, randomBytes(3 * WINDOW_SIZE));
+        try {
+            fileCipher.encryptFile(source, encrypted, keys, null);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testDestinationIsSource() throws IOException, PaddingException {
+        FileCipher fileCipher = new FileCipher(cipher, CipherMode.ECB, executor, WINDOW_SIZE);
+        byte[] plaintext = randomBytes(2 * WINDOW_SIZE);
+        Files.write(source, plaintext);
+        Path sameFile = source.getParent().resolve(".").resolve(source.getFileName());
+        try {
+            fileCipher.encryptFile(source, sameFile, keys, iv);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            fileCipher.decryptFile(source, source, keys, iv);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        assertArrayEquals(plaintext, Files.readAllBytes(source));
+    }
+
+    // EFFECTS: returns length random bytes
+    private byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,181 @@
+package model.management;
+
+import model.Cipher;
+import model.EventLog;
+import model.KeySchedule;
+import model.MixKeyRound;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MonitoringTest {
+    MBeanServer server;
+    Cipher cipher;
+    KeySchedule keys;
+
+    @BeforeEach
+    public void runBefore() {
+        server = ManagementFactory.getPlatformMBeanServer();
+        cipher = new Cipher(2);
+        cipher.addRound(new MixKeyRound(2));
+        keys = new KeySchedule(cipher, Collections.singletonList(new byte[]{1, 2}));
+        EventLog.getInstance().setCapacity(EventLog.DEFAULT_CAPACITY);
+        EventLog.getInstance().clear();
+        EventLog.getInstance().resetDroppedCount();
+    }
+
+    @AfterEach
+    public void runAfter() {
+        Monitoring.unregister("test");
+        Monitoring.unregister("other");
+        Monitoring.unregisterCache("test-cache");
+        EventLog.getInstance().setCapacity(EventLog.DEFAULT_CAPACITY);
+    }
+
+    @Test
+    public void testRegisterCipher() throws Exception {
+        Monitoring.register("test", cipher);
+        assertTrue(cipher.getBlockStatistics().isEnabled());
+        assertFalse(cipher.isInstrumentationEnabled());
+        assertTrue(server.isRegistered(Monitoring.cipherName("test")));
+        assertTrue(server.isRegistered(Monitoring.REGISTRY_NAME));
+        assertTrue(server.isRegistered(Monitoring.EVENT_LOG_NAME));
+        assertEquals(1, server.getAttribute(Monitoring.REGISTRY_NAME, "ActiveCiphers"));
+
+        Monitoring.register("other", new Cipher(4));
+        assertEquals(2, server.getAttribute(Monitoring.REGISTRY_NAME, "ActiveCiphers"));
+        String[] names = (String[]) server.getAttribute(Monitoring.REGISTRY_NAME, "CipherNames");
+        assertArrayEquals(new String[]{"test", "other"}, names);
+
+        Monitoring.unregister("test");
+        assertFalse(cipher.getBlockStatistics().isEnabled());
+        assertFalse(server.isRegistered(Monitoring.cipherName("test")));
+        assertEquals(1, server.getAttribute(Monitoring.REGISTRY_NAME, "ActiveCiphers"));
+    }
+
+    @Test
+    public void testReplaceCipher() {
+        Monitoring.register("test", cipher);
+        Cipher replacement = new Cipher(4);
+        Monitoring.register("test", replacement);
+        assertFalse(cipher.getBlockStatistics().isEnabled());
+        assertTrue(replacement.getBlockStatistics().isEnabled());
+    }
+
+    @Test
+    public void testInstrumentationIsLeftAlone() {
+        cipher.setInstrumentationEnabled(true);
+        Monitoring.register("test", cipher);
+        Monitoring.unregister("test");
+        assertTrue(cipher.isInstrumentationEnabled());
+        cipher.getBlockStatistics().setEnabled(true);
+        Monitoring.register("test", cipher);
+        Monitoring.unregister("test");
+        assertTrue(cipher.getBlockStatistics().isEnabled());
+    }
+
+    @Test
+    public void testThroughputAndLatency() throws Exception {
+        Monitoring.register("test", cipher);
+        ObjectName name = Monitoring.cipherName("test");
+        byte[] block = new byte[2];
+        for (int i = 0; i < 10; i++) {
+            cipher.encryptBlock(block, 0, block, 0, keys);
+        }
+        cipher.decryptBlock(block, 0, block, 0, keys);
+
+        assertEquals(10L, server.getAttribute(name, "EncryptedBlocks"));
+        assertEquals(1L, server.getAttribute(name, "DecryptedBlocks"));
+        assertTrue((Double) server.getAttribute(name, "EncryptedBlocksPerSecond") > 0);
+        assertTrue((Double) server.getAttribute(name, "DecryptedBlocksPerSecond") > 0);
+        assertTrue((Double) server.getAttribute(name, "MeanEncryptLatencyNanos") >= 0);
+        long p99 = (Long) server.getAttribute(name, "P99EncryptLatencyNanos");
+        assertTrue(p99 >= 0);
+        assertEquals(2, server.getAttribute(name, "BlockSize"));
+        assertEquals(1, server.getAttribute(name, "NumberOfRounds"));
+
+        server.invoke(name, "resetCounters", null, null);
+        assertEquals(0L, server.getAttribute(name, "EncryptedBlocks"));
+        assertEquals(0.0, server.getAttribute(name, "MeanDecryptLatencyNanos"));
+        assertEquals(0L, server.getAttribute(name, "P99DecryptLatencyNanos"));
+    }
+
+    @Test
+    public void testCacheHitRatios() throws Exception {
+        Monitoring.register("test", cipher);
+        byte[] block = new byte[2];
+        for (int i = 0; i < 4; i++) {
+            cipher.encryptBlock(block, 0, block, 0, keys);
+        }
+        TestCache cache = new TestCache();
+        Monitoring.registerCache(cache);
+
+        TabularData ratios = (TabularData) server.getAttribute(Monitoring.REGISTRY_NAME, "CacheHitRatios");
+        double planRatio = (Double) ratios.get(new Object[]{"plan:test"}).get("value");
+        assertTrue(planRatio > 0.5 && planRatio < 1);
+        CompositeData cacheRatio = ratios.get(new Object[]{"test-cache"});
+        assertEquals(0.75, cacheRatio.get("value"));
+
+        server.invoke(Monitoring.REGISTRY_NAME, "resetCounters", null, null);
+        assertTrue(cache.reset);
+        assertTrue(Double.isNaN((Double) server.getAttribute(Monitoring.cipherName("test"), "PlanCacheHitRatio")));
+    }
+
+    @Test
+    public void testEventLog() throws Exception {
+        EventLog log = EventLog.getInstance();
+        Monitoring.publish();
+        log.setCapacity(4);
+        for (int i = 0; i < 10; i++) {
+            log.logEvent("event " + i);
+        }
+        assertEquals(4, server.getAttribute(Monitoring.EVENT_LOG_NAME, "Size"));
+        assertEquals(4, server.getAttribute(Monitoring.EVENT_LOG_NAME, "Capacity"));
+        assertEquals(7L, server.getAttribute(Monitoring.EVENT_LOG_NAME, "DroppedCount"));
+        assertEquals(log.getHotPathMode().name(), server.getAttribute(Monitoring.EVENT_LOG_NAME, "HotPathMode"));
+
+        server.invoke(Monitoring.EVENT_LOG_NAME, "resetCounters", null, null);
+        assertEquals(0L, server.getAttribute(Monitoring.EVENT_LOG_NAME, "DroppedCount"));
+
+        server.invoke(Monitoring.REGISTRY_NAME, "clearEventLog", null, null);
+        assertEquals(1, log.size());
+        server.invoke(Monitoring.EVENT_LOG_NAME, "clear", null, null);
+        assertEquals(1, log.size());
+    }
+
+    /*
+    TestCache is a cache that has seen three hits and one miss.
+     */
+    private static class TestCache implements CacheStatistics {
+        boolean reset;
+
+        @Override
+        public String getName() {
+            return "test-cache";
+        }
+
+        @Override
+        public long getHitCount() {
+            return 3;
+        }
+
+        @Override
+        public long getMissCount() {
+            return 1;
+        }
+
+        @Override
+        public void resetStatistics() {
+            reset = true;
+        }
+    }
+}
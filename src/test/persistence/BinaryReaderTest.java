@@ -0,0 +1,130 @@
+package persistence;
+
+import model.Cipher;
+import model.PermutationRound;
+import model.SubstitutionRound;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinaryReaderTest {
+    @Test
+    public void testReaderNonExistentFile() {
+        try {
+            new BinaryReader("./data/noSuchFile.blky").read();
+            fail("IOException expected");
+        } catch (IOException e) {
+            // pass
+        }
+    }
+
+    @Test
+    public void testDecode() throws IOException {
+        Cipher cipher = BinaryWriterTest.createCipher(2);
+        BinaryWriterTest.assertRoundsEqual(cipher, BinaryReader.decode(BinaryWriter.encode(cipher)));
+    }
+
+    @Test
+    public void testCorruptedData() {
+        byte[] data = BinaryWriter.encode(BinaryWriterTest.createCipher(2));
+        data[30] ^= 1;
+        assertRejected(data, "checksum mismatch");
+    }
+
+    @Test
+    public void testTruncatedData() {
+        byte[] data = BinaryWriter.encode(BinaryWriterTest.createCipher(2));
+        assertRejected(Arrays.copyOf(data, 10), "too short to be a binary cipher");
+        assertRejected(withChecksum(Arrays.copyOf(data, 40)), null);
+    }
+
+    @Test
+    public void testWrongMagicOrVersion() {
+        byte[] data = BinaryWriter.encode(new Cipher(2));
+        data[0] = '{';
+        assertRejected(data, "not a binary cipher");
+
+        data = BinaryWriter.encode(new Cipher(2));
+        data[5] = 2;
+        assertRejected(withChecksum(data), "unsupported binary cipher version 2");
+    }
+
+    @Test
+    public void testUnknownRoundType() {
+        Cipher cipher = new Cipher(2);
+        cipher.addRound(new PermutationRound(2));
+        byte[] data = BinaryWriter.encode(cipher);
+        data[16] = 7;
+        assertRejected(withChecksum(data), "unknown round type 7");
+    }
+
+    @Test
+    public void testWrongPermutationLength() {
+        Cipher cipher = new Cipher(2);
+        cipher.addRound(new PermutationRound(2));
+        byte[] data = BinaryWriter.encode(cipher);
+        // claim a 3-byte block for a 16-bit permutation
+        ByteBuffer.wrap(data).putInt(8, 3);
+        assertRejected(withChecksum(data), "permutation of 16 bits in a 3-byte block");
+    }
+
+    @Test
+    public void testInvalidSubstitutionMapping() {
+        Cipher cipher = new Cipher(2);
+        cipher.addRound(new SubstitutionRound(2));
+        byte[] data = BinaryWriter.encode(cipher);
+        // the first mapping value, after the round type, the mapping length and the value width
+        data[22] = (byte) 200;
+        assertRejected(withChecksum(data), "invalid substitution mapping");
+        try {
+            CipherFiles.parse(data);
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertEquals("invalid substitution mapping", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testInvalidPermutationMapping() {
+        Cipher cipher = new Cipher(2);
+        cipher.addRound(new PermutationRound(2));
+        byte[] data = BinaryWriter.encode(cipher);
+        data[23] = 0;
+        assertRejected(withChecksum(data), "invalid permutation mapping");
+    }
+
+    @Test
+    public void testTrailingBytes() {
+        Cipher cipher = new Cipher(2);
+        byte[] data = BinaryWriter.encode(cipher);
+        byte[] longer = new byte[data.length + 1];
+        System.arraycopy(data, 0, longer, 0, 16);
+        assertRejected(withChecksum(longer), "1 unexpected bytes after the last round");
+    }
+
+    // EFFECTS: fails unless decoding data throws IOException with the given message (any message if null)
+    private void assertRejected(byte[] data, String message) {
+        try {
+            BinaryReader.decode(data);
+            fail("IOException expected");
+        } catch (IOException e) {
+            if (message != null) {
+                assertEquals(message, e.getMessage());
+            }
+        }
+    }
+
+    // MODIFIES: data
+    // EFFECTS: rewrites the checksum in the last four bytes of data to match the rest, and returns data
+    private byte[] withChecksum(byte[] data) {
+        CRC32 checksum = new CRC32();
+        checksum.update(data, 0, data.length - 4);
+        ByteBuffer.wrap(data).putInt(data.length - 4, (int) checksum.getValue());
+        return data;
+    }
+}
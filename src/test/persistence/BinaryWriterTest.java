@@ -0,0 +1,130 @@
+package persistence;
+
+import model.*;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinaryWriterTest {
+    Path file;
+
+    @BeforeEach
+    public void runBefore() throws IOException {
+        file = Files.createTempFile("cipher", ".blky");
+    }
+
+    @AfterEach
+    public void runAfter() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void testWriteEmptyCipher() throws IOException {
+        new BinaryWriter(file.toString()).write(new Cipher(4));
+        byte[] data = Files.readAllBytes(file);
+        assertEquals(20, data.length);
+
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        assertEquals(0x424C4B59, buffer.getInt());
+        assertEquals(1, buffer.getShort());
+        assertEquals(0, buffer.getShort());
+        assertEquals(4, buffer.getInt());
+        assertEquals(0, buffer.getInt());
+
+        Cipher cipher = new BinaryReader(file.toString()).read();
+        assertEquals(4, cipher.getBlockSize());
+        assertEquals(0, cipher.getNumberOfRounds());
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Cipher cipher = createCipher(3);
+        new BinaryWriter(file.toString()).write(cipher);
+        assertRoundsEqual(cipher, new BinaryReader(file.toString()).read());
+    }
+
+    @Test
+    public void testRoundTripWideMappings() throws IOException {
+        // a 256-byte block has 2048 bits, so its permutations need two bytes per element
+        Cipher cipher = createCipher(256);
+        byte[] data = BinaryWriter.encode(cipher);
+        assertRoundsEqual(cipher, BinaryReader.decode(data));
+        assertTrue(data.length < 2 * 2 * 2048 + 200);
+    }
+
+    @Test
+    public void testSmallerThanJson() throws IOException {
+        Cipher cipher = createCipher(64);
+        byte[] data = BinaryWriter.encode(cipher);
+        assertTrue(data.length * 5 < cipher.toJson().toString(4).length());
+    }
+
+    @Test
+    public void testUnknownRoundType() {
+        Cipher cipher = new Cipher(4);
+        cipher.addRound(new MixKeyRound(4));
+        cipher.addRound(new Round() {
+            public void encryptBlock(byte[] src, int srcOffset, byte[] dst, int dstOffset) {
+                System.arraycopy(src, srcOffset, dst, dstOffset, 4);
+            }
+
+            public void decryptBlock(byte[] src, int srcOffset, byte[] dst, int dstOffset) {
+                System.arraycopy(src, srcOffset, dst, dstOffset, 4);
+            }
+
+            public int getBlockSize() {
+                return 4;
+            }
+
+            public JSONObject toJson() {
+                return new JSONObject();
+            }
+        });
+        try {
+            BinaryWriter.encode(cipher);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            // pass
+        }
+    }
+
+    // EFFECTS: returns a cipher with random rounds of each type, two permutation rounds among them
+    static Cipher createCipher(int blockSize) {
+        Cipher cipher = new Cipher(blockSize);
+        cipher.addRound(new MixKeyRound(blockSize));
+        SubstitutionRound sround = new SubstitutionRound(blockSize);
+        sround.fillWithRandomSubstitution();
+        cipher.addRound(sround);
+        for (int i = 0; i < 2; i++) {
+            PermutationRound pround = new PermutationRound(blockSize);
+            pround.fillWithRandomPermutation();
+            cipher.addRound(pround);
+        }
+        cipher.addRound(new MixKeyRound(blockSize));
+        return cipher;
+    }
+
+    // EFFECTS: fails unless actual has the same block size and rounds as expected
+    static void assertRoundsEqual(Cipher expected, Cipher actual) {
+        assertEquals(expected.getBlockSize(), actual.getBlockSize());
+        List<Round> expectedRounds = expected.getRounds();
+        List<Round> actualRounds = actual.getRounds();
+        assertEquals(expectedRounds.size(), actualRounds.size());
+        for (int i = 0; i < expectedRounds.size(); i++) {
+            if (expectedRounds.get(i) instanceof MixKeyRound) {
+                assertTrue(actualRounds.get(i) instanceof MixKeyRound);
+            } else {
+                assertEquals(expectedRounds.get(i), actualRounds.get(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package persistence;
+
+import model.Cipher;
+import model.management.Monitoring;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.openmbean.TabularData;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CipherCacheTest {
+    CipherCache cache;
+    Path first;
+    Path second;
+
+    @BeforeEach
+    public void runBefore() throws IOException {
+        cache = new CipherCache(2);
+        first = Files.createTempFile("first", ".json");
+        second = Files.createTempFile("second", ".blky");
+        Files.copy(Path.of("./data/testReaderThreeRoundCipher.json"), first,
+                StandardCopyOption.REPLACE_EXISTING);
+        new BinaryWriter(second.toString()).write(new JsonReader("./data/testReaderMultipleOfEachRound.json").read());
+    }
+
+    @AfterEach
+    public void runAfter() throws IOException {
+        Files.deleteIfExists(first);
+        Files.deleteIfExists(second);
+    }
+
+    @Test
+    public void testHitsAndMisses() throws IOException {
+        Cipher cipher = cache.get(first.toString());
+        assertEquals(3, cipher.getNumberOfRounds());
+        assertSame(cipher, cache.get(first.toString()));
+        Cipher binary = cache.get(second.toString());
+        assertEquals(new JsonReader("./data/testReaderMultipleOfEachRound.json").read().getNumberOfRounds(),
+                binary.getNumberOfRounds());
+
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(1.0 / 3, cache.getHitRatio(), 1e-9);
+        assertEquals(2, cache.size());
+
+        cache.resetStatistics();
+        assertEquals(0, cache.getHitCount());
+        assertTrue(Double.isNaN(cache.getHitRatio()));
+    }
+
+    @Test
+    public void testChangedFileIsReloaded() throws IOException {
+        Cipher cipher = cache.get(first.toString());
+        FileTime modified = Files.getLastModifiedTime(first);
+        // same size and modification time, different contents
+        String json = new String(Files.readAllBytes(first), StandardCharsets.UTF_8);
+        Files.write(first, json.replace("\"MixKey\"", "\"MixKex\"").getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(first, modified);
+        try {
+            cache.get(first.toString());
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().startsWith("unknown round type \"MixKex\""));
+        }
+        // the failed load is not cached, and the old version was dropped
+        assertEquals(0, cache.size());
+
+        Files.write(first, json.getBytes(StandardCharsets.UTF_8));
+        Cipher reloaded = cache.get(first.toString());
+        assertNotSame(cipher, reloaded);
+        assertEquals(3, reloaded.getNumberOfRounds());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEviction() throws IOException {
+        Path third = Files.createTempFile("third", ".json");
+        try {
+            Files.copy(first, third, StandardCopyOption.REPLACE_EXISTING);
+            Cipher cipher = cache.get(first.toString());
+            cache.get(second.toString());
+            cache.get(first.toString());
+            cache.get(third.toString());
+            assertEquals(2, cache.size());
+            assertEquals(1, cache.getEvictionCount());
+            assertSame(cipher, cache.get(first.toString()));
+            assertEquals(3, cache.getMissCount());
+            cache.get(second.toString());
+            assertEquals(4, cache.getMissCount());
+        } finally {
+            Files.deleteIfExists(third);
+        }
+    }
+
+    @Test
+    public void testSingleFlight() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Cipher>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return cache.get(second.toString());
+                }));
+            }
+            start.countDown();
+            Cipher cipher = results.get(0).get();
+            for (Future<Cipher> result : results) {
+                assertSame(cipher, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, cache.getMissCount());
+        assertEquals(7, cache.getHitCount());
+    }
+
+    @Test
+    public void testMissingFile() {
+        try {
+            cache.get("./data/noSuchFile.json");
+            fail("IOException expected");
+        } catch (IOException e) {
+            // pass
+        }
+    }
+
+    @Test
+    public void testInvalidCapacity() {
+        try {
+            new CipherCache(0);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            // pass
+        }
+    }
+
+    @Test
+    public void testSharedCacheIsMonitored() throws Exception {
+        CipherCache shared = CipherCache.getShared();
+        assertSame(shared, CipherCache.getShared());
+        assertEquals(CipherCache.DEFAULT_CAPACITY, shared.getMaxEntries());
+        TabularData ratios = (TabularData) ManagementFactory.getPlatformMBeanServer()
+                .getAttribute(Monitoring.REGISTRY_NAME, "CacheHitRatios");
+        assertNotNull(ratios.get(new Object[]{"cipher-cache"}));
+    }
+}
@@ -0,0 +1,52 @@
+package persistence;
+
+import model.Cipher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CipherConverterTest {
+    Path binary;
+    Path json;
+
+    @BeforeEach
+    public void runBefore() throws IOException {
+        binary = Files.createTempFile("cipher", ".blky");
+        json = Files.createTempFile("cipher", ".json");
+    }
+
+    @AfterEach
+    public void runAfter() throws IOException {
+        Files.deleteIfExists(binary);
+        Files.deleteIfExists(json);
+    }
+
+    @Test
+    public void testJsonToBinaryAndBack() throws IOException {
+        String source = "./data/testReaderMultipleOfEachRound.json";
+        CipherConverter.jsonToBinary(source, binary.toString());
+        Cipher original = new JsonReader(source).read();
+        BinaryWriterTest.assertRoundsEqual(original, new BinaryReader(binary.toString()).read());
+
+        CipherConverter.binaryToJson(binary.toString(), json.toString());
+        Cipher converted = new JsonReader(json.toString()).read();
+        BinaryWriterTest.assertRoundsEqual(original, converted);
+        assertEquals(original.toJson().toString(), converted.toJson().toString());
+    }
+
+    @Test
+    public void testBinaryToJsonInvalidSource() {
+        try {
+            CipherConverter.binaryToJson("./data/testReaderThreeRoundCipher.json", json.toString());
+            fail("IOException expected");
+        } catch (IOException e) {
+            // pass
+        }
+    }
+}
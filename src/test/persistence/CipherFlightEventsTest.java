@@ -0,0 +1,68 @@
+package persistence;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import model.Cipher;
+import model.MixKeyRound;
+import model.PermutationRound;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CipherFlightEventsTest {
+    @Test
+    void testSaveAndLoadEvents() throws IOException {
+        Path file = Files.createTempFile("cipher", ".json");
+        Path dump = Files.createTempFile("recording", ".jfr");
+        Cipher cipher = new Cipher(2);
+        cipher.addRound(new MixKeyRound(2));
+        PermutationRound pround = new PermutationRound(2);
+        pround.fillWithRandomPermutation();
+        cipher.addRound(pround);
+
+        try (Recording recording = new Recording()) {
+            recording.enable("blocky.CipherSave").withThreshold(Duration.ZERO);
+            recording.enable("blocky.CipherLoad").withThreshold(Duration.ZERO);
+            recording.start();
+            JsonWriter writer = new JsonWriter(file.toString());
+            writer.open();
+            writer.write(cipher);
+            writer.close();
+            new JsonReader(file.toString()).read();
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+        RecordedEvent save = find(events, "blocky.CipherSave");
+        assertEquals(file.toString(), save.getString("destination"));
+        assertEquals(2, save.getInt("blockSize"));
+        assertEquals(2, save.getInt("roundCount"));
+        assertEquals(Files.size(file), save.getLong("bytesWritten"));
+        RecordedEvent load = find(events, "blocky.CipherLoad");
+        assertEquals(file.toString(), load.getString("source"));
+        assertEquals(2, load.getInt("roundCount"));
+        assertEquals(Files.size(file), load.getLong("bytesRead"));
+
+        Files.delete(file);
+        Files.delete(dump);
+    }
+
+    // EFFECTS: returns the first event with the given name, failing the test if there is none
+    private RecordedEvent find(List<RecordedEvent> events, String name) {
+        for (RecordedEvent event : events) {
+            if (event.getEventType().getName().equals(name)) {
+                return event;
+            }
+        }
+        fail("no " + name + " event recorded");
+        return null;
+    }
+}
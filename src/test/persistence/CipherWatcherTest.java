@@ -0,0 +1,156 @@
+package persistence;
+
+import model.Cipher;
+import model.Event;
+import model.EventLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CipherWatcherTest {
+    static final long TIMEOUT_SECONDS = 10;
+
+    CipherWatcher watcher;
+    Path directory;
+    Path file;
+    BlockingQueue<Object> notices;
+
+    @BeforeEach
+    public void runBefore() throws IOException {
+        directory = Files.createTempDirectory("watched");
+        file = directory.resolve("cipher.json");
+        Files.copy(Path.of("./data/testReaderThreeRoundCipher.json"), file);
+        watcher = new CipherWatcher(100);
+        notices = new LinkedBlockingQueue<>();
+        watcher.addListener(new CipherReloadListener() {
+            @Override
+            public void cipherReloaded(ReloadableCipher cipher, Cipher previous) {
+                notices.add(previous);
+            }
+
+            @Override
+            public void reloadFailed(ReloadableCipher cipher, IOException cause) {
+                notices.add(cause);
+            }
+        });
+    }
+
+    @AfterEach
+    public void runAfter() throws IOException {
+        watcher.close();
+        try (var files = Files.list(directory)) {
+            for (Path path : (Iterable<Path>) files::iterator) {
+                Files.delete(path);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    public void testReloadOnChange() throws Exception {
+        ReloadableCipher cipher = watcher.watch(file.toString());
+        Cipher first = cipher.get();
+        assertEquals(3, first.getNumberOfRounds());
+        assertEquals(1, cipher.getVersion());
+        assertSame(cipher, watcher.watch(file.toString()));
+
+        Files.copy(Path.of("./data/testReaderMultipleOfEachRound.json"), file,
+                StandardCopyOption.REPLACE_EXISTING);
+        assertSame(first, notices.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(2, cipher.getVersion());
+        assertNotSame(first, cipher.get());
+        assertEquals(new JsonReader("./data/testReaderMultipleOfEachRound.json").read().getNumberOfRounds(),
+                cipher.get().getNumberOfRounds());
+        // the old version is still usable by work that holds it
+        assertEquals(3, first.getNumberOfRounds());
+
+        boolean logged = false;
+        for (Event event : EventLog.getInstance()) {
+            logged |= event.getDescription().equals("Reloaded cipher from " + file.toAbsolutePath());
+        }
+        assertTrue(logged);
+    }
+
+    @Test
+    public void testSeveralWritesReloadOnce() throws Exception {
+        ReloadableCipher cipher = watcher.watch(file.toString());
+        byte[] original = Files.readAllBytes(file);
+        byte[] other = Files.readAllBytes(Path.of("./data/testReaderMultipleOfEachRound.json"));
+        // an editor truncating, then writing in pieces, then renaming a copy over the file
+        Files.write(file, new byte[0]);
+        Files.write(file, other);
+        Path copy = directory.resolve("cipher.json~");
+        Files.write(copy, original);
+        Files.move(copy, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.write(file, other);
+
+        assertNotNull(notices.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertNull(notices.poll(500, TimeUnit.MILLISECONDS));
+        assertEquals(2, cipher.getVersion());
+    }
+
+    @Test
+    public void testInvalidChangeKeepsCurrentVersion() throws Exception {
+        ReloadableCipher cipher = watcher.watch(file.toString());
+        Cipher first = cipher.get();
+        String json = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        Files.write(file, json.replace("\"MixKey\"", "\"MixKex\"").getBytes(StandardCharsets.UTF_8));
+
+        Object notice = notices.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertTrue(notice instanceof IOException);
+        assertTrue(((IOException) notice).getMessage().startsWith("unknown round type \"MixKex\""));
+        assertSame(first, cipher.get());
+        assertEquals(1, cipher.getVersion());
+
+        Files.write(file, json.getBytes(StandardCharsets.UTF_8));
+        assertNull(notices.poll(500, TimeUnit.MILLISECONDS));
+        assertSame(first, cipher.get());
+    }
+
+    @Test
+    public void testUnwatch() throws Exception {
+        ReloadableCipher cipher = watcher.watch(file.toString());
+        Cipher first = cipher.get();
+        watcher.unwatch(file.toString());
+        watcher.unwatch(file.toString());
+        Files.copy(Path.of("./data/testReaderMultipleOfEachRound.json"), file,
+                StandardCopyOption.REPLACE_EXISTING);
+        assertNull(notices.poll(500, TimeUnit.MILLISECONDS));
+        assertSame(first, cipher.get());
+        assertNotSame(cipher, watcher.watch(file.toString()));
+    }
+
+    @Test
+    public void testWatchInvalidFile() throws IOException {
+        try {
+            watcher.watch(directory.resolve("missing.json").toString());
+            fail("IOException expected");
+        } catch (IOException e) {
+            // pass
+        }
+    }
+
+    @Test
+    public void testNegativeDebounce() throws IOException {
+        try (CipherWatcher defaults = new CipherWatcher()) {
+            assertEquals(CipherWatcher.DEFAULT_DEBOUNCE_MILLIS, defaults.getDebounceMillis());
+        }
+        try {
+            new CipherWatcher(-1);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            // pass
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package persistence;
+
+import model.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonStreamReaderTest {
+    static final String[] DATA_FILES = {"testReaderEmptyCipher", "testReaderMixKeyRoundCipher",
+            "testReaderSubstitutionRoundCipher", "testReaderPermutationRoundCipher", "testReaderThreeRoundCipher",
+            "testReaderMultipleOfEachRound", "testWriterEmptyCipher"};
+    // written by JsonWriterTest with a 24-entry substitution mapping, which JsonReader accepts
+    static final String[] INVALID_SUBSTITUTION_FILES = {"testWriterOneOfEachRound", "testWriterMultipleOfEachRound"};
+
+    Path file;
+
+    @BeforeEach
+    public void runBefore() throws IOException {
+        file = Files.createTempFile("cipher", ".json");
+    }
+
+    @AfterEach
+    public void runAfter() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void testReaderNonExistentFile() {
+        try {
+            new JsonStreamReader("./data/noSuchFile.json").read();
+            fail("IOException expected");
+        } catch (IOException e) {
+            // pass
+        }
+    }
+
+    @Test
+    public void testMatchesJsonReader() throws IOException {
+        for (String name : DATA_FILES) {
+            String source = "./data/" + name + ".json";
+            Cipher expected = new JsonReader(source).read();
+            Cipher actual = new JsonStreamReader(source).read();
+            BinaryWriterTest.assertRoundsEqual(expected, actual);
+        }
+    }
+
+    @Test
+    public void testRejectsSubstitutionMappingNotOfNibbles() {
+        for (String name : INVALID_SUBSTITUTION_FILES) {
+            try {
+                new JsonStreamReader("./data/" + name + ".json").read();
+                fail("IOException expected");
+            } catch (IOException e) {
+                assertTrue(e.getMessage().startsWith("invalid Substitution mapping"));
+            }
+        }
+    }
+
+    @Test
+    public void testLenientMatchesJsonReader() throws IOException {
+        List<String> names = new ArrayList<>(Arrays.asList(DATA_FILES));
+        names.addAll(Arrays.asList(INVALID_SUBSTITUTION_FILES));
+        for (String name : names) {
+            String source = "./data/" + name + ".json";
+            Cipher expected = new JsonReader(source).read();
+            Cipher actual = new JsonStreamReader(source, true).read();
+            BinaryWriterTest.assertRoundsEqual(expected, actual);
+        }
+    }
+
+    @Test
+    public void testLenientRejectsMappingTheRoundRefuses() throws IOException {
+        Files.write(file, ("{\"blockSize\": 1, \"rounds\": [{\"type\": \"Permutation\", "
+                + "\"mapping\": [0, 1, 2, 3, 4, 5, 6, 99]}]}").getBytes(StandardCharsets.UTF_8));
+        try {
+            new JsonStreamReader(file.toString(), true).read();
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().startsWith("invalid Permutation mapping"));
+        }
+    }
+
+    @Test
+    public void testLargeCipher() throws IOException {
+        Cipher cipher = BinaryWriterTest.createCipher(256);
+        JsonWriter writer = new JsonWriter(file.toString());
+        writer.open();
+        writer.write(cipher);
+        writer.close();
+        BinaryWriterTest.assertRoundsEqual(cipher, new JsonStreamReader(file.toString()).read());
+    }
+
+    @Test
+    public void testMembersInAnyOrder() throws IOException {
+        Cipher cipher = read("{\"rounds\": [{\"mapping\": [1, 0, 2, 3, 4, 5, 6, 7], \"type\": \"Permutation\"},"
+                + " {\"note\": {\"a\": [true, null, -1.5e3]}, \"type\": \"MixKey\"}],"
+                + " \"comment\": \"quoted \\\"text\\\" \\u00e9\", \"blockSize\": 1}");
+        assertEquals(1, cipher.getBlockSize());
+        List<Round> rounds = cipher.getRounds();
+        assertEquals(2, rounds.size());
+        assertArrayEquals(new int[]{1, 0, 2, 3, 4, 5, 6, 7}, ((PermutationRound) rounds.get(0)).getPermutationMapping());
+        assertTrue(rounds.get(1) instanceof MixKeyRound);
+    }
+
+    @Test
+    public void testInvalidRounds() {
+        assertRejected("{\"blockSize\": 1, \"rounds\": [{\"type\": \"Rotation\"}]}",
+                "unknown round type \"Rotation\" in the round ending at character 48");
+        assertRejected("{\"blockSize\": 1, \"rounds\": [{}]}", "round without a type in the round ending at character 30");
+        assertRejected("{\"blockSize\": 1, \"rounds\": [{\"type\": \"Substitution\"}]}",
+                "Substitution round without a mapping in the round ending at character 52");
+        assertRejected("{\"blockSize\": 1, \"rounds\": [{\"type\": \"Permutation\", \"mapping\": [0, 1]}]}",
+                "invalid Permutation mapping in the round ending at character 70");
+        assertRejected("{\"blockSize\": 1, \"rounds\": [{\"type\": \"Permutation\", \"mapping\": [0, 0, 1, 2, 3, 4, 5, 6]}]}",
+                null);
+        assertRejected("{\"blockSize\": 2, \"rounds\": [{\"type\": \"Substitution\", \"mapping\": [0, 1, 2]}]}", null);
+        StringBuilder wide = new StringBuilder("20");
+        for (int i = 1; i < 32; i++) {
+            wide.append(", ").append(i == 20 ? 0 : i);
+        }
+        assertRejected("{\"blockSize\": 2, \"rounds\": [{\"type\": \"Substitution\", \"mapping\": [" + wide + "]}]}",
+                null);
+    }
+
+    @Test
+    public void testInvalidCiphers() {
+        assertRejected("{\"rounds\": []}", "missing blockSize at character 14");
+        assertRejected("{\"blockSize\": 0}", "block size should be positive at character 15");
+        assertRejected("{\"blockSize\": 2.5}", "expected an integer at character 15");
+        assertRejected("{\"blockSize\": 2, \"blockSize\": 2}", "duplicate blockSize at character 29");
+        assertRejected("{\"blockSize\": 2} {}", "unexpected data after the cipher at character 17");
+        assertRejected("{\"blockSize\": 2, \"rounds\": [", "expected '{' at character 28");
+        assertRejected("", "expected '{' at character 0");
+    }
+
+    // EFFECTS: writes json to the temporary file and reads it back
+    private Cipher read(String json) throws IOException {
+        Files.write(file, json.getBytes(StandardCharsets.UTF_8));
+        return new JsonStreamReader(file.toString()).read();
+    }
+
+    // EFFECTS: fails unless reading json throws IOException with the given message (any message if null)
+    private void assertRejected(String json, String message) {
+        try {
+            read(json);
+            fail("IOException expected");
+        } catch (IOException e) {
+            if (message != null) {
+                assertEquals(message, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package persistence;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonTokenizerTest {
+    @Test
+    public void testReadInts() throws IOException {
+        JsonTokenizer tokenizer = tokenizer(" [0, -12, 2147483647, -2147483648 ]");
+        assertArrayEquals(new int[]{0, -12, Integer.MAX_VALUE, Integer.MIN_VALUE}, tokenizer.readIntArray());
+        assertEquals(-1, tokenizer.peek());
+        assertArrayEquals(new int[0], tokenizer("[]").readIntArray());
+    }
+
+    @Test
+    public void testInvalidInts() {
+        for (String json : new String[]{"2147483648", "1.0", "1e3", "-", "x", "99999999999999999999"}) {
+            try {
+                tokenizer(json).readInt();
+                fail("IOException expected for " + json);
+            } catch (IOException e) {
+                // pass
+            }
+        }
+    }
+
+    @Test
+    public void testReadStrings() throws IOException {
+        JsonTokenizer tokenizer = tokenizer("\"plain\" \"a\\\"b\\\\c\\/d\\n\\t\\u0041\"");
+        assertEquals("plain", tokenizer.readString());
+        assertEquals("a\"b\\c/d\n\tA", tokenizer.readString());
+        try {
+            tokenizer("\"unterminated").readString();
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertEquals("unexpected end of input at character 13", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testSkipValue() throws IOException {
+        JsonTokenizer tokenizer = tokenizer("{\"a\": [1, {\"b\": null}, \"]\"], \"c\": -1.5e+3, \"d\": true} 7");
+        tokenizer.skipValue();
+        assertEquals(7, tokenizer.readInt());
+        try {
+            tokenizer(":").skipValue();
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertEquals("expected a value at character 0", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testAcrossBufferBoundaries() throws IOException {
+        // values that straddle the 8192-character buffer end up split between two reads
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 10000; i++) {
+            json.append(i == 0 ? "" : ",").append(i * 7919);
+        }
+        int[] values = tokenizer(json.append("]").toString()).readIntArray();
+        assertEquals(10000, values.length);
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(i * 7919, values[i]);
+        }
+    }
+
+    @Test
+    public void testOffsets() throws IOException {
+        JsonTokenizer tokenizer = tokenizer("{\"key\" 1}");
+        tokenizer.expect('{');
+        try {
+            tokenizer.readKey();
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertEquals("expected ':' at character 7", e.getMessage());
+        }
+    }
+
+    private JsonTokenizer tokenizer(String json) {
+        return new JsonTokenizer(new StringReader(json));
+    }
+}
@@ -0,0 +1,61 @@
+package model;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/*
+VectorKernels is the VectorBackend built on the incubating Vector API, using the platform's preferred vector
+width. A key mix is one vector XOR per vector of bytes. A substitution splits each vector into its high and
+low nibbles and looks both up in the 16-entry nibble table with one lane selection each, so every instruction
+substitutes a whole vector of nibbles (32 to 128, depending on the width).
+
+This class is compiled separately from the rest of the application (see VectorSupport).
+ */
+final class VectorKernels implements VectorBackend {
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+    private static final int MINIMUM_VECTOR_BYTES = 16;
+
+    // EFFECTS: constructs the backend; throws UnsupportedOperationException if the preferred vectors are narrower
+    // than 16 bytes or wider than MAX_VECTOR_BYTES
+    VectorKernels() {
+        if (SPECIES.vectorByteSize() < MINIMUM_VECTOR_BYTES || SPECIES.vectorByteSize() > MAX_VECTOR_BYTES) {
+            throw new UnsupportedOperationException("unsupported vector size " + SPECIES.vectorByteSize());
+        }
+    }
+
+    @Override
+    public int xor(byte[] key, byte[] block, int offset, int length) {
+        int end = SPECIES.loopBound(length);
+        for (int i = 0; i < end; i += SPECIES.length()) {
+            ByteVector mixed = ByteVector.fromArray(SPECIES, block, offset + i)
+                    .lanewise(VectorOperators.XOR, ByteVector.fromArray(SPECIES, key, i));
+            mixed.intoArray(block, offset + i);
+        }
+        return end;
+    }
+
+    @Override
+    public int xorPattern(byte[] pattern, byte[] block, int offset, int length) {
+        ByteVector key = ByteVector.fromArray(SPECIES, pattern, 0);
+        int end = SPECIES.loopBound(length);
+        for (int i = 0; i < end; i += SPECIES.length()) {
+            ByteVector.fromArray(SPECIES, block, offset + i).lanewise(VectorOperators.XOR, key)
+                    .intoArray(block, offset + i);
+        }
+        return end;
+    }
+
+    @Override
+    public int substitute(byte[] nibbles, byte[] src, int srcOffset, byte[] dst, int dstOffset, int length) {
+        ByteVector table = ByteVector.fromArray(SPECIES, nibbles, 0);
+        int end = SPECIES.loopBound(length);
+        for (int i = 0; i < end; i += SPECIES.length()) {
+            ByteVector bytes = ByteVector.fromArray(SPECIES, src, srcOffset + i);
+            ByteVector high = bytes.lanewise(VectorOperators.LSHR, 4).selectFrom(table);
+            ByteVector low = bytes.and((byte) 0x0f).selectFrom(table);
+            high.lanewise(VectorOperators.LSHL, 4).or(low).intoArray(dst, dstOffset + i);
+        }
+        return end;
+    }
+}